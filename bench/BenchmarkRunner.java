@@ -0,0 +1,135 @@
+import java.io.PrintStream;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Runner microbenchmark kecil bergaya JMH untuk source root {@code bench/}.
+ *
+ * Setiap benchmark dijalankan per kombinasi parameter: state dibuat ulang lewat
+ * {@link Setup} sebelum setiap iterasi (di luar pengukuran), lalu {@code threads}
+ * thread memanggil {@link Operation} berulang selama satu iterasi. Iterasi warmup
+ * dibuang; skor adalah rata-rata throughput iterasi pengukuran dengan error
+ * interval kepercayaan 99,9% (distribusi t), seperti mode Throughput JMH.
+ *
+ * Nilai kembalian operasi dijumlahkan ke sink per thread agar JIT tidak
+ * menghapus pekerjaan yang diukur (pengganti Blackhole).
+ *
+ * Property: bench.warmup (3 iterasi), bench.iterations (5), bench.timeMs (1000
+ * per iterasi), bench.filter (regex nama benchmark, default semua).
+ */
+public class BenchmarkRunner {
+    /** Membuat state satu iterasi; dipanggil sebelum thread mulai */
+    public interface Setup<S> {
+        S create() throws Exception;
+    }
+
+    /** Satu operasi yang diukur; {@code thread} adalah indeks thread 0..threads-1 */
+    public interface Operation<S> {
+        long run(S state, int thread) throws Exception;
+    }
+
+    private static final double[] T_999 = {636.6, 31.6, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59,
+            4.44, 4.32, 4.22, 4.14, 4.07, 4.01, 3.97, 3.92, 3.88, 3.85};
+
+    private final int warmupIterations = Integer.getInteger("bench.warmup", 3);
+    private final int measurementIterations = Math.max(1, Integer.getInteger("bench.iterations", 5));
+    private final long iterationMs = Long.getLong("bench.timeMs", 1000L);
+    private final Pattern filter = Pattern.compile(System.getProperty("bench.filter", ".*"));
+    // Ditangkap saat dibuat, sehingga benchmark boleh mengalihkan System.out
+    private final PrintStream out = System.out;
+
+    public boolean isSelected(String benchmark) {
+        return filter.matcher(benchmark).find();
+    }
+
+    /**
+     * Menjalankan satu benchmark untuk satu kombinasi parameter dan mencetak skornya.
+     *
+     * @param params deskripsi parameter untuk laporan, mis. "hall=5000, fill=95%"
+     */
+    public <S> void run(String benchmark, String params, int threads, Setup<S> setup, Operation<S> operation)
+            throws Exception {
+        if (!isSelected(benchmark)) return;
+        double[] scores = new double[measurementIterations];
+        for (int i = 0; i < warmupIterations + measurementIterations; i++) {
+            double opsPerSecond = iteration(setup.create(), threads, operation);
+            if (i >= warmupIterations) scores[i - warmupIterations] = opsPerSecond;
+        }
+
+        double mean = 0;
+        for (double score : scores) mean += score;
+        mean /= scores.length;
+        double variance = 0;
+        for (double score : scores) variance += (score - mean) * (score - mean);
+        double error = scores.length > 1
+                ? T_999[Math.min(scores.length - 2, T_999.length - 1)] * Math.sqrt(variance / (scores.length - 1) / scores.length)
+                : Double.NaN;
+
+        out.printf("%-22s %-34s %7d %14s ± %12s ops/s %12s ns/op%n",
+                benchmark, params, threads, format(mean), format(error), format(threads * 1e9 / mean));
+    }
+
+    private <S> double iteration(final S state, int threads, final Operation<S> operation) throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final long[] operations = new long[threads];
+        final long[] sinks = new long[threads];
+        final Exception[] failure = new Exception[1];
+        final CyclicBarrier start = new CyclicBarrier(threads + 1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            workers[t] = new Thread(() -> {
+                long count = 0;
+                long sink = 0;
+                try {
+                    start.await();
+                    while (running.get()) {
+                        sink += operation.run(state, thread);
+                        count++;
+                    }
+                } catch (Exception e) {
+                    synchronized (failure) {
+                        failure[0] = e;
+                    }
+                    running.set(false);
+                }
+                operations[thread] = count;
+                sinks[thread] = sink;
+            }, "bench-" + t);
+            workers[t].start();
+        }
+
+        start.await();
+        long begin = System.nanoTime();
+        Thread.sleep(iterationMs);
+        running.set(false);
+        for (Thread worker : workers) worker.join();
+        long elapsed = System.nanoTime() - begin;
+
+        synchronized (failure) {
+            if (failure[0] != null) throw failure[0];
+        }
+        long total = 0;
+        long sink = 0;
+        for (int t = 0; t < threads; t++) {
+            total += operations[t];
+            sink ^= sinks[t];
+        }
+        // Dipakai agar sink tidak dianggap mati; nilainya sendiri tidak berarti
+        if (sink == Long.MIN_VALUE) out.print("");
+        return total * 1e9 / elapsed;
+    }
+
+    public void printHeader() {
+        out.printf("Warmup %d x %d ms, pengukuran %d x %d ms%n",
+                warmupIterations, iterationMs, measurementIterations, iterationMs);
+        out.printf("%-22s %-34s %7s %14s   %12s       %12s%n",
+                "Benchmark", "Parameter", "Threads", "Skor", "Error (99.9%)", "Waktu");
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) return "NaN";
+        return value >= 100 ? String.format("%,.0f", value) : String.format("%.3f", value);
+    }
+}
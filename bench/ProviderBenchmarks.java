@@ -0,0 +1,180 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Microbenchmark jalur panas provider dan logger (lihat {@link BenchmarkRunner}).
+ *
+ * - processBooking: booking 1-4 kursi bersebelahan acak di area "panas" sebuah studio
+ *   2.000 kursi, lalu dibatalkan lagi agar contention tetap; semakin kecil area panas,
+ *   semakin sering CAS bertabrakan. Tanpa journal (biaya fsync diukur di SystemTest).
+ * - generateInfoResponse: daftar kursi satu kelas untuk studio 12 (layout default)
+ *   sampai 50.000 kursi, dengan separuh kursi terjual. Varian writes=N% membooking lalu
+ *   melepas satu kursi acak sebelum N% query, sehingga view harus dibuat ulang di tengah
+ *   penulis lain (skor menghitung query beserta booking-nya).
+ * - findAlternativeSeats: lima alternatif pertama saat studio setengah penuh dan hampir penuh.
+ * - contentParse: parse satu pesan BOOKING/REQUEST_INFO dan membaca field-nya.
+ * - logMessage: {@link EnhancedLoggerUtil#logMessage} ke CSV, konsol dibuang.
+ *
+ * Jalankan dengan run_bench.sh; pilih suite dengan -Dbench.filter=processBooking.
+ */
+public class ProviderBenchmarks {
+    private static final String SHOW = EnhancedProviderAgent.showKey("Dune", "2025-01-20", "19:00");
+    private static final EnhancedProviderAgent PROVIDER = new EnhancedProviderAgent();
+
+    public static void main(String[] args) throws Exception {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        System.out.println("Java " + System.getProperty("java.version") + ", "
+                + java.lang.Runtime.getRuntime().availableProcessors() + " CPU");
+        runner.printHeader();
+
+        benchmarkProcessBooking(runner);
+        benchmarkInfoResponse(runner);
+        benchmarkAlternatives(runner);
+        benchmarkContentParse(runner);
+        benchmarkLogMessage(runner);
+    }
+
+    static final class BookingState {
+        final EnhancedProviderAgent provider = new EnhancedProviderAgent();
+        final SeatInventory inventory = hall(2000);
+        final int hotSeats;
+
+        BookingState(int hotSeats) {
+            this.hotSeats = hotSeats;
+        }
+    }
+
+    private static void benchmarkProcessBooking(BenchmarkRunner runner) throws Exception {
+        for (int hotSeats : new int[]{16, 256, 2000}) {
+            for (int threads : new int[]{1, 4, 8}) {
+                runner.run("processBooking", "hotSeats=" + hotSeats, threads, () -> new BookingState(hotSeats),
+                        (state, thread) -> {
+                            ThreadLocalRandom random = ThreadLocalRandom.current();
+                            int count = 1 + random.nextInt(4);
+                            int first = random.nextInt(state.hotSeats - count);
+                            int[] seats = new int[count];
+                            for (int i = 0; i < count; i++) seats[i] = first + i;
+                            String transactionId = state.provider.processBooking(SHOW, state.inventory, seats);
+                            if (transactionId == null) return 0;
+                            state.inventory.cancelSale(seats);
+                            return transactionId.length();
+                        });
+            }
+        }
+    }
+
+    private static void benchmarkInfoResponse(BenchmarkRunner runner) throws Exception {
+        for (int seats : new int[]{12, 600, 5000, 50000}) {
+            for (int threads : new int[]{1, 4}) {
+                runner.run("generateInfoResponse", "hall=" + seats + ", sold=50%", threads, () -> {
+                    SeatInventory inventory = seats == 12 ? SeatInventory.createDefault() : hall(seats);
+                    sell(inventory, 0.5, seats);
+                    return inventory;
+                }, (inventory, thread) -> PROVIDER.generateInfoResponse(inventory, "Dune", "2025-01-20",
+                        "Economy", null).length());
+            }
+        }
+        for (int writePercent : new int[]{10, 100}) {
+            for (int threads : new int[]{1, 4}) {
+                runner.run("generateInfoResponse", "hall=5000, sold=50%, writes=" + writePercent + "%", threads, () -> {
+                    SeatInventory inventory = hall(5000);
+                    sell(inventory, 0.5, 5000);
+                    return inventory;
+                }, (inventory, thread) -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    if (random.nextInt(100) < writePercent) {
+                        int[] seat = {random.nextInt(inventory.getSeatCount())};
+                        if (inventory.book(seat)) inventory.release(seat);
+                    }
+                    return PROVIDER.generateInfoResponse(inventory, "Dune", "2025-01-20", "Economy", null).length();
+                });
+            }
+        }
+    }
+
+    private static void benchmarkAlternatives(BenchmarkRunner runner) throws Exception {
+        for (int seats : new int[]{600, 50000}) {
+            for (double sold : new double[]{0.5, 0.99}) {
+                runner.run("findAlternativeSeats", "hall=" + seats + ", sold=" + Math.round(sold * 100) + "%", 1, () -> {
+                    SeatInventory inventory = hall(seats);
+                    sell(inventory, sold, seats);
+                    return inventory;
+                }, (inventory, thread) -> EnhancedProviderAgent.findAlternativeSeats(inventory).length());
+            }
+        }
+    }
+
+    private static void benchmarkContentParse(BenchmarkRunner runner) throws Exception {
+        String[][] messages = {
+                {"booking-best", "BOOKING:Film=Avengers: Endgame,Date=2024-01-15,Time=19:00,Seats=BEST,Count=3,Class=VIP,RequestId=m2k1x9-3"},
+                {"booking-seats", "BOOKING:Film=Avengers: Endgame,Date=2024-01-15,Time=19:00,Seats=B12;B13;B14;B15,Class=Regular"},
+                {"request-info", "REQUEST_INFO:Film=Inception,Date=2024-01-15,Time=13:00,Class=Regular,Tickets=2,IfVersion=m2k1x9.42"},
+        };
+        SeatInventory layout = hall(2000);
+        for (String[] message : messages) {
+            runner.run("contentParse", message[0], 1, () -> message[1], (content, thread) -> {
+                ContentCodec request = ContentCodec.parser().parse(content);
+                int[] seats = request.seatIndices("Seats", layout);
+                return request.showKey().length() + request.getInt("Count", 0) + request.get("Class", "").length()
+                        + (seats != null ? seats.length : 0);
+            });
+        }
+    }
+
+    private static void benchmarkLogMessage(BenchmarkRunner runner) throws Exception {
+        if (!runner.isSelected("logMessage")) return;
+        PrintStream console = System.out;
+        // Output konsol logger dibuang agar yang terukur adalah format + CSV, bukan terminal;
+        // hasil tetap dicetak runner ke konsol asli
+        PrintStream discard = new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        String content = "Booking berhasil! Transaction ID: TXN_1842, Kursi: E7,E8,E9, Waktu: 19:00";
+        for (int threads : new int[]{1, 4}) {
+            System.setOut(discard);
+            try {
+                runner.run("logMessage", "csv, console discarded", threads, () -> content, (text, thread) -> {
+                    EnhancedLoggerUtil.logMessage("provider", "customer", "CONFIRM", "movie_booking_" + thread, text);
+                    return 1;
+                });
+            } finally {
+                System.setOut(console);
+            }
+        }
+    }
+
+    /**
+     * Studio dengan baris 25 kursi: 20% baris pertama VIP, 40% Regular, sisanya Economy.
+     */
+    static SeatInventory hall(int seats) {
+        int rows = Math.max(3, (seats + 24) / 25);
+        int[] lengths = new int[rows];
+        int[] classes = new int[rows];
+        for (int r = 0; r < rows; r++) {
+            lengths[r] = Math.min(25, Math.max(1, seats - r * 25));
+            classes[r] = r < rows / 5 ? SeatInventory.CLASS_VIP
+                    : r < rows * 3 / 5 ? SeatInventory.CLASS_REGULAR : SeatInventory.CLASS_ECONOMY;
+        }
+        return new SeatInventory(lengths, classes, new int[]{150000, 100000, 75000});
+    }
+
+    // Menandai kira-kira {@code fraction} kursi sebagai terjual (seed tetap agar antar-run sebanding)
+    static void sell(SeatInventory inventory, double fraction, long seed) {
+        Random random = new Random(seed);
+        int[] seat = new int[1];
+        for (int i = 0; i < inventory.getSeatCount(); i++) {
+            if (random.nextDouble() < fraction) {
+                seat[0] = i;
+                inventory.markSold(seat);
+            }
+        }
+    }
+}
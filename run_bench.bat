@@ -0,0 +1,17 @@
+@echo off
+echo Running Multi-Agent Movie Booking System Benchmarks...
+echo.
+
+echo Compiling source files...
+javac -cp "libs/jade.jar;src" src/*.java bench/*.java
+
+if %ERRORLEVEL% NEQ 0 (
+    echo Compilation failed!
+    pause
+    exit /b 1
+)
+
+echo.
+echo Running benchmarks...
+java %* -cp "libs/jade.jar;src;bench" ProviderBenchmarks
+pause
@@ -0,0 +1,16 @@
+#!/bin/bash
+
+echo "Running Multi-Agent Movie Booking System Benchmarks..."
+echo
+
+echo "Compiling source files..."
+javac --release 8 -encoding UTF-8 -cp "libs/jade.jar:src" src/*.java bench/*.java
+
+if [ $? -ne 0 ]; then
+    echo "Compilation failed!"
+    exit 1
+fi
+
+echo
+echo "Running benchmarks..."
+java "$@" -cp "libs/jade.jar:src:bench" ProviderBenchmarks
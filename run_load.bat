@@ -0,0 +1,17 @@
+@echo off
+echo Running Multi-Agent Movie Booking System Load Test...
+echo.
+
+echo Compiling source files...
+javac -cp "libs/jade.jar;src" src/*.java
+
+if %ERRORLEVEL% NEQ 0 (
+    echo Compilation failed!
+    pause
+    exit /b 1
+)
+
+echo.
+echo Running load generator...
+java %* -cp "libs/jade.jar;src" LoadGenerator
+pause
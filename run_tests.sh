@@ -4,7 +4,7 @@ echo "Running Multi-Agent Movie Booking System Tests..."
 echo
 
 echo "Compiling source files..."
-javac -cp "libs/jade.jar:src" src/*.java
+javac --release 8 -encoding UTF-8 -cp "libs/jade.jar:src" src/*.java
 
 if [ $? -ne 0 ]; then
     echo "Compilation failed!"
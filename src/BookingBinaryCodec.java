@@ -0,0 +1,233 @@
+import jade.content.abs.AbsAgentAction;
+import jade.content.abs.AbsContentElement;
+import jade.content.abs.AbsObject;
+import jade.content.abs.AbsPredicate;
+import jade.content.abs.AbsPrimitive;
+import jade.content.lang.ByteArrayCodec;
+import jade.content.onto.BasicOntology;
+import jade.content.onto.Ontology;
+import jade.content.onto.OntologyException;
+import jade.content.schema.AgentActionSchema;
+import jade.content.schema.ObjectSchema;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Bahasa konten biner ringkas untuk MovieBookingOntology.
+ *
+ * Berbeda dengan LEAP yang menulis nama tipe dan nama setiap slot di setiap pesan,
+ * codec ini menulis posisi: nomor tipe, bitmask slot yang terisi, lalu nilai slot
+ * dalam urutan schema. Urutan slot dibaca sekali dari ontologi saat codec dibuat,
+ * jadi kedua sisi harus memakai versi ontologi yang sama.
+ *
+ * Format: [varint tipe][varint mask slot] lalu per slot terisi: String sebagai
+ * [varint panjang][UTF-8], Integer sebagai varint zigzag, Boolean sebagai satu byte.
+ * Hanya konten datar dengan slot primitif yang didukung. Codec tidak menyimpan
+ * state per pesan sehingga aman dipakai bersamaan oleh worker provider.
+ */
+public class BookingBinaryCodec extends ByteArrayCodec {
+    public static final String NAME = "booking-binary";
+
+    private static final String[] TYPES = {
+            MovieBookingOntology.MOVIE_REQUEST,
+            MovieBookingOntology.BOOKING_REQUEST,
+            MovieBookingOntology.ALTERNATIVE_REQUEST,
+            MovieBookingOntology.BOOKING_RESPONSE
+    };
+    private static final byte KIND_STRING = 0;
+    private static final byte KIND_INTEGER = 1;
+    private static final byte KIND_BOOLEAN = 2;
+
+    private final Ontology ontology;
+    private final String[][] slots = new String[TYPES.length][];
+    private final byte[][] kinds = new byte[TYPES.length][];
+    private final boolean[] actions = new boolean[TYPES.length];
+
+    public BookingBinaryCodec() {
+        super(NAME);
+        this.ontology = MovieBookingOntology.getInstance();
+        try {
+            for (int t = 0; t < TYPES.length; t++) {
+                ObjectSchema schema = ontology.getSchema(TYPES[t]);
+                String[] names = schema.getNames();
+                byte[] slotKinds = new byte[names.length];
+                for (int s = 0; s < names.length; s++) {
+                    slotKinds[s] = kindOf(schema.getSchema(names[s]).getTypeName());
+                }
+                slots[t] = names;
+                kinds[t] = slotKinds;
+                actions[t] = schema instanceof AgentActionSchema;
+            }
+        } catch (OntologyException e) {
+            throw new IllegalStateException("Schema MovieBookingOntology tidak lengkap", e);
+        }
+    }
+
+    @Override
+    public byte[] encode(AbsContentElement content) throws CodecException {
+        return encode(ontology, content);
+    }
+
+    @Override
+    public byte[] encode(Ontology ontology, AbsContentElement content) throws CodecException {
+        int type = typeIndex(content.getTypeName());
+        String[] names = slots[type];
+        if (names.length > 63) throw new CodecException("Terlalu banyak slot: " + content.getTypeName());
+
+        long mask = 0;
+        for (int s = 0; s < names.length; s++) {
+            if (content.getAbsObject(names[s]) != null) mask |= 1L << s;
+        }
+
+        Output out = new Output();
+        out.writeVarLong(type);
+        out.writeVarLong(mask);
+        for (int s = 0; s < names.length; s++) {
+            if ((mask & (1L << s)) == 0) continue;
+            AbsObject value = content.getAbsObject(names[s]);
+            if (!(value instanceof AbsPrimitive)) {
+                throw new CodecException("Slot " + names[s] + " bukan primitif");
+            }
+            AbsPrimitive primitive = (AbsPrimitive) value;
+            switch (kinds[type][s]) {
+                case KIND_INTEGER:
+                    long number = ((Number) primitive.getObject()).longValue();
+                    out.writeVarLong((number << 1) ^ (number >> 63));
+                    break;
+                case KIND_BOOLEAN:
+                    out.writeByte(primitive.getBoolean() ? 1 : 0);
+                    break;
+                default:
+                    byte[] text = primitive.getString().getBytes(StandardCharsets.UTF_8);
+                    out.writeVarLong(text.length);
+                    out.writeBytes(text);
+                    break;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public AbsContentElement decode(byte[] content) throws CodecException {
+        return decode(ontology, content);
+    }
+
+    @Override
+    public AbsContentElement decode(Ontology ontology, byte[] content) throws CodecException {
+        Input in = new Input(content);
+        long typeValue = in.readVarLong();
+        if (typeValue < 0 || typeValue >= TYPES.length) throw new CodecException("Tipe konten tidak dikenal: " + typeValue);
+        int type = (int) typeValue;
+        long mask = in.readVarLong();
+
+        String[] names = slots[type];
+        AbsContentElement element = actions[type] ? new AbsAgentAction(TYPES[type]) : new AbsPredicate(TYPES[type]);
+        for (int s = 0; s < names.length; s++) {
+            if ((mask & (1L << s)) == 0) continue;
+            AbsPrimitive value;
+            switch (kinds[type][s]) {
+                case KIND_INTEGER:
+                    long zigzag = in.readVarLong();
+                    long number = (zigzag >>> 1) ^ -(zigzag & 1);
+                    value = number == (int) number ? AbsPrimitive.wrap((int) number) : AbsPrimitive.wrap(number);
+                    break;
+                case KIND_BOOLEAN:
+                    value = AbsPrimitive.wrap(in.readByte() != 0);
+                    break;
+                default:
+                    int length = (int) in.readVarLong();
+                    value = AbsPrimitive.wrap(in.readString(length));
+                    break;
+            }
+            if (element instanceof AbsAgentAction) {
+                ((AbsAgentAction) element).set(names[s], value);
+            } else {
+                ((AbsPredicate) element).set(names[s], value);
+            }
+        }
+        if (!in.atEnd()) throw new CodecException("Sisa byte setelah konten " + TYPES[type]);
+        return element;
+    }
+
+    private static int typeIndex(String typeName) throws CodecException {
+        for (int t = 0; t < TYPES.length; t++) {
+            if (TYPES[t].equals(typeName)) return t;
+        }
+        throw new CodecException("Tipe tidak didukung codec biner: " + typeName);
+    }
+
+    private static byte kindOf(String typeName) throws OntologyException {
+        switch (typeName) {
+            case BasicOntology.STRING: return KIND_STRING;
+            case BasicOntology.INTEGER: return KIND_INTEGER;
+            case BasicOntology.BOOLEAN: return KIND_BOOLEAN;
+            default: throw new OntologyException("Slot bertipe " + typeName + " tidak didukung codec biner");
+        }
+    }
+
+    private static final class Output {
+        private byte[] buffer = new byte[64];
+        private int size;
+
+        void writeByte(int value) {
+            if (size == buffer.length) buffer = Arrays.copyOf(buffer, size * 2);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeBytes(byte[] bytes) {
+            if (size + bytes.length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + bytes.length));
+            }
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] data;
+        private int position;
+
+        Input(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() throws CodecException {
+            if (position >= data.length) throw new CodecException("Konten biner terpotong");
+            return data[position++];
+        }
+
+        long readVarLong() throws CodecException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new CodecException("Varint terlalu panjang");
+        }
+
+        String readString(int length) throws CodecException {
+            if (length < 0 || length > data.length - position) throw new CodecException("Konten biner terpotong");
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        boolean atEnd() {
+            return position == data.length;
+        }
+    }
+}
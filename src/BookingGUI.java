@@ -6,7 +6,8 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import jade.wrapper.AgentController;
 import jade.wrapper.StaleProxyException;
 
@@ -19,6 +20,7 @@ public class BookingGUI extends JFrame {
     private JTextField seatSelectionField;
     private JTextArea logArea;
     private JTextArea seatInfoArea;
+    private SeatMapPanel seatMap;
     private JButton submitButton;
     private JButton clearButton;
     private JButton checkAvailabilityButton;
@@ -26,14 +28,32 @@ public class BookingGUI extends JFrame {
 
     // Data film, jam, dan harga
     private Map<String, String[]> movieShowtimes;
-    private Map<String, String[]> seatAvailability;
-    private Map<String, java.util.Set<String>> bookedSeats;
     private Map<String, Integer> seatPrices;
-    private Map<String, ReentrantLock> scheduleLocks;
+
+    // Ketersediaan kursi per pertunjukan (key Film|Date|Time) sebagai word bitmap replika provider,
+    // bit 1 = tersedia. Hanya diakses di EDT; tidak ada entry berarti data provider belum diterima.
+    private final SeatInventory seatLayout = SeatInventory.createDefault();
+    private final Map<String, long[]> seatWords = new HashMap<>();
+    // Word dari thread agent ditampung lalu diterapkan sekaligus di EDT
+    private final ConcurrentLinkedQueue<SeatWordUpdate> pendingSeatUpdates = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean seatFlushScheduled = new AtomicBoolean(false);
+    private String watchedShowKey;
+
+    private static final class SeatWordUpdate {
+        final String showKey;
+        final int wordIndex;
+        final long bits;
+
+        SeatWordUpdate(String showKey, int wordIndex, long bits) {
+            this.showKey = showKey;
+            this.wordIndex = wordIndex;
+            this.bits = bits;
+        }
+    }
     
     // Agent connection
     private AgentController customerAgentController;
-    private EnhancedCustomerAgent customerAgent;
+    private EnhancedCustomerAgent.BookingService bookingService;
     private boolean waitingForAgentResponse = false;
     private String currentBookingRequest = "";
 
@@ -44,7 +64,6 @@ public class BookingGUI extends JFrame {
     
     public BookingGUI(AgentController customerAgentController) {
         this.customerAgentController = customerAgentController;
-        this.customerAgent = null; // Will be set later
         setTitle("Movie Booking System - Customer Interface");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(800, 700);
@@ -63,10 +82,7 @@ public class BookingGUI extends JFrame {
 
     private void initializeMovieData() {
         movieShowtimes = new HashMap<>();
-        seatAvailability = new HashMap<>();
-        bookedSeats = new HashMap<>();
         seatPrices = new HashMap<>();
-        scheduleLocks = new HashMap<>();
 
         // Data film dan jam tayang
         movieShowtimes.put("Batman: The Dark Knight", new String[]{"10:00", "13:00", "16:00", "19:00", "22:00"});
@@ -79,17 +95,6 @@ public class BookingGUI extends JFrame {
         seatPrices.put("VIP", 100000);
         seatPrices.put("Regular", 70000);
         seatPrices.put("Economy", 50000);
-
-        // Inisialisasi kursi tersedia (semua kosong)
-        String[] allSeats = {"A1", "A2", "A3", "B1", "B2", "B3", "B4", "C1", "C2", "C3", "C4", "C5"};
-        for (String movie : movieShowtimes.keySet()) {
-            for (String time : movieShowtimes.get(movie)) {
-                String key = movie + "_" + time;
-                seatAvailability.put(key, allSeats);
-                bookedSeats.put(key, new java.util.HashSet<>());
-                ReentrantLock put = scheduleLocks.put(key, new ReentrantLock());
-            }
-        }
     }
 
     private void initComponents() {
@@ -124,8 +129,11 @@ public class BookingGUI extends JFrame {
         logArea.setEditable(false);
         logArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
 
-        // Seat info area
-        seatInfoArea = new JTextArea(8, 50);
+        // Seat map: hanya area yang terlihat yang digambar
+        seatMap = new SeatMapPanel(seatLayout);
+
+        // Seat info area (ringkasan; status per kursi ada di seat map)
+        seatInfoArea = new JTextArea(6, 50);
         seatInfoArea.setEditable(false);
         seatInfoArea.setFont(new Font("Monospaced", Font.PLAIN, 11));
         seatInfoArea.setBackground(new Color(240, 248, 255));
@@ -193,7 +201,8 @@ public class BookingGUI extends JFrame {
         // --- Seat Info Panel ---
         JPanel seatInfoPanel = new JPanel(new BorderLayout());
         seatInfoPanel.setBorder(BorderFactory.createTitledBorder("Seat Availability Information"));
-        seatInfoPanel.add(new JScrollPane(seatInfoArea), BorderLayout.CENTER);
+        seatInfoPanel.add(new JScrollPane(seatMap), BorderLayout.CENTER);
+        seatInfoPanel.add(new JScrollPane(seatInfoArea), BorderLayout.SOUTH);
 
         // --- Log Panel ---
         JPanel logPanel = new JPanel(new BorderLayout());
@@ -260,11 +269,74 @@ public class BookingGUI extends JFrame {
     }
 
     private boolean isSeatInClass(String seat, String seatClass) {
-        switch (seatClass) {
-            case "VIP": return seat.startsWith("A");
-            case "Regular": return seat.startsWith("B");
-            case "Economy": return seat.startsWith("C");
-            default: return false;
+        int index = seatLayout.indexOf(seat);
+        return index >= 0 && seatLayout.getClassOrdinal(index) == SeatInventory.classOrdinal(seatClass);
+    }
+
+    private static boolean isAvailable(long[] words, int seat) {
+        return (words[seat >>> 6] & (1L << seat)) != 0;
+    }
+
+    private String selectedShowKey() {
+        return EnhancedProviderAgent.showKey((String) movieCombo.getSelectedItem(),
+                dateField.getText().trim(), (String) timeCombo.getSelectedItem());
+    }
+
+    /**
+     * Word ketersediaan pertunjukan. Dengan agent, isinya hanya berasal dari replika
+     * (null sampai snapshot diterima); tanpa agent, semua kursi awalnya tersedia.
+     */
+    private long[] seatWordsFor(String showKey) {
+        long[] words = seatWords.get(showKey);
+        if (words == null && customerAgentController == null) {
+            words = new long[(seatLayout.getSeatCount() + 63) >>> 6];
+            for (int seat = 0; seat < seatLayout.getSeatCount(); seat++) {
+                words[seat >>> 6] |= 1L << seat;
+            }
+            seatWords.put(showKey, words);
+        }
+        return words;
+    }
+
+    // Minta customer agent mengikuti delta pertunjukan yang sedang ditampilkan
+    private void watchShow(String showKey) {
+        if (customerAgentController == null || showKey.equals(watchedShowKey)) return;
+        try {
+            customerAgentController.putO2AObject(new Object[]{EnhancedCustomerAgent.WATCH_SHOW,
+                    movieCombo.getSelectedItem(), dateField.getText().trim(), timeCombo.getSelectedItem()}, false);
+            watchedShowKey = showKey;
+        } catch (StaleProxyException e) {
+            System.err.println("GUI: Tidak dapat mengikuti ketersediaan kursi: " + e.getMessage());
+        }
+    }
+
+    // Dipanggil thread agent untuk setiap word replika; satu flush EDT untuk semua word yang tertunda
+    private void onSeatWord(String showKey, int wordIndex, long bits) {
+        pendingSeatUpdates.add(new SeatWordUpdate(showKey, wordIndex, bits));
+        if (seatFlushScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::applySeatUpdates);
+        }
+    }
+
+    private void applySeatUpdates() {
+        seatFlushScheduled.set(false);
+        String displayed = selectedShowKey();
+        boolean displayedChanged = false;
+        SeatWordUpdate update;
+        while ((update = pendingSeatUpdates.poll()) != null) {
+            long[] words = seatWords.computeIfAbsent(update.showKey,
+                    key -> new long[(seatLayout.getSeatCount() + 63) >>> 6]);
+            if (update.wordIndex >= words.length) continue;
+            words[update.wordIndex] = update.bits;
+            if (update.showKey.equals(displayed)) {
+                seatMap.updateWord(update.wordIndex, update.bits);
+                displayedChanged = true;
+            }
+        }
+        if (displayedChanged) {
+            // Data pertama pertunjukan yang ditampilkan: muat seluruh peta sekali
+            if (!seatMap.isLoaded()) seatMap.setWords(seatWords.get(displayed));
+            updateSeatSummary();
         }
     }
 
@@ -311,13 +383,16 @@ public class BookingGUI extends JFrame {
             }
         }
 
-        String key = selectedMovie + "_" + selectedTime;
-        java.util.Set<String> booked = bookedSeats.get(key);
+        // Validasi dari replika lokal; jika belum sinkron, provider yang memutuskan
+        String key = selectedShowKey();
+        long[] words = seatWordsFor(key);
         java.util.List<String> alreadyBooked = new java.util.ArrayList<>();
 
-        for (String seat : selectedSeats) {
-            if (booked.contains(seat)) {
-                alreadyBooked.add(seat);
+        if (words != null) {
+            for (String seat : selectedSeats) {
+                if (!isAvailable(words, seatLayout.indexOf(seat))) {
+                    alreadyBooked.add(seat);
+                }
             }
         }
 
@@ -338,62 +413,57 @@ public class BookingGUI extends JFrame {
 
             // cari alternatif kursi di kelas yang sama
             java.util.List<String> alternatives = new java.util.ArrayList<>();
-            for (String seat : seatAvailability.get(key)) {
-                if (isSeatInClass(seat, selectedClass) && !booked.contains(seat)) {
-                    alternatives.add(seat);
-                }
-            }
-
-            // tampilkan alternatif di text area
-            if (!alternatives.isEmpty()) {
-                alternativeArea.setText("The following alternative seats are available:\n\n");
-                for (int i = 0; i < alternatives.size(); i++) {
-                    alternativeArea.append(alternatives.get(i) + " ");
-                    if ((i + 1) % 5 == 0) alternativeArea.append("\n");
+            int classOrdinal = SeatInventory.classOrdinal(selectedClass);
+            for (int seat = 0; seat < seatLayout.getSeatCount(); seat++) {
+                if (seatLayout.getClassOrdinal(seat) == classOrdinal && isAvailable(words, seat)) {
+                    alternatives.add(seatLayout.seatId(seat));
                 }
-                alternativeArea.append("\n\nPlease choose from these available seats.");
-            } else {
-                alternativeArea.setText("No alternative seats available in " + selectedClass + " class.");
             }
 
+            showAlternatives(alternatives, selectedClass);
             return;
         }
 
         // Use agent system for booking
         if (customerAgentController != null) {
-            try {
-                // Send booking request to customer agent
-                Object[] args = {selectedMovie, dateField.getText().trim(), selectedTime, selectedClass, requestedTickets};
-                customerAgentController.putO2AObject(args, false);
-                
-                // Store current booking info for response handling
-                waitingForAgentResponse = true;
-                currentBookingRequest = String.format("Movie: %s, Time: %s, Seats: %s, Class: %s", 
-                        selectedMovie, selectedTime, String.join(",", selectedSeats), selectedClass);
-                
-                logArea.append("[" + java.time.LocalTime.now().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm:ss")) + "] ");
-                logArea.append("Booking Request sent to Customer Agent\n");
-                logArea.append("Movie: " + selectedMovie + ", Time: " + selectedTime + ", Seats: " + String.join(",", selectedSeats) + "\n");
-                logArea.append("Status: PROCESSING - Agent is handling your request...\n\n");
-                logArea.setCaretPosition(logArea.getDocument().getLength());
-                
-                // Log to conversation log
-                EnhancedLoggerUtil.logMessage("GUI", "customer", "BOOKING_REQUEST", 
-                        "gui_booking_" + System.currentTimeMillis(),
-                        "Movie: " + selectedMovie + ", Time: " + selectedTime + ", Seats: " + String.join(",", selectedSeats) + ", Class: " + selectedClass);
-                
-                // Simulate immediate response for GUI (but keep full process in conversation log)
-                simulateBookingResponse(selectedMovie, selectedTime, selectedSeats, selectedClass);
-                
-            } catch (StaleProxyException e) {
-                logArea.append("Error: Cannot connect to Customer Agent - " + e.getMessage() + "\n");
+            if (bookingService == null) {
+                logArea.append("Error: Cannot connect to Customer Agent - booking service not available\n");
                 logArea.setCaretPosition(logArea.getDocument().getLength());
-                EnhancedLoggerUtil.logError("GUI", "customer", "Agent connection failed: " + e.getMessage(), "gui_error");
+                EnhancedLoggerUtil.logError("GUI", "customer", "Agent connection failed: booking service not available", "gui_error");
+                return;
             }
+
+            // Store current booking info for response handling
+            waitingForAgentResponse = true;
+            currentBookingRequest = String.format("Movie: %s, Time: %s, Seats: %s, Class: %s",
+                    selectedMovie, selectedTime, String.join(",", selectedSeats), selectedClass);
+
+            logArea.append("[" + java.time.LocalTime.now().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm:ss")) + "] ");
+            logArea.append("Booking Request sent to Customer Agent\n");
+            logArea.append("Movie: " + selectedMovie + ", Time: " + selectedTime + ", Seats: " + String.join(",", selectedSeats) + "\n");
+            logArea.append("Status: PROCESSING - Agent is handling your request...\n\n");
+            logArea.setCaretPosition(logArea.getDocument().getLength());
+
+            // Log to conversation log
+            EnhancedLoggerUtil.logMessage("GUI", "customer", "BOOKING_REQUEST",
+                    "gui_booking_" + System.currentTimeMillis(),
+                    "Movie: " + selectedMovie + ", Time: " + selectedTime + ", Seats: " + String.join(",", selectedSeats) + ", Class: " + selectedClass);
+
+            // Kursi yang dipilih dikirim apa adanya, sehingga log dan dialog menampilkan kursi yang benar-benar dipesan.
+            // Hasil asli dari provider; future selesai di thread agent, jadi tampilan diperbarui di EDT.
+            // Penolakan sudah membawa kursi yang masih tersedia, jadi alternatif tampil tanpa request tambahan.
+            bookingService.book(selectedMovie, dateField.getText().trim(), selectedTime, selectedClass, selectedSeats)
+                    .thenAccept(result -> SwingUtilities.invokeLater(() -> {
+                        if (result.getStatus() == BookingResult.REJECTED) {
+                            showAlternatives(java.util.Arrays.asList(result.getAvailableSeats()), selectedClass);
+                        }
+                        handleBookingConfirmation(result.isSuccess(), result.getMessage(), result.getTransactionId());
+                    }));
         } else {
             // Fallback to local booking (original behavior)
             for (String seat : selectedSeats) {
-                booked.add(seat);
+                int index = seatLayout.indexOf(seat);
+                words[index >>> 6] &= ~(1L << index);
             }
 
             int pricePerSeat = seatPrices.get(selectedClass);
@@ -429,6 +499,20 @@ public class BookingGUI extends JFrame {
         seatSelectionField.setText("");
     }
 
+    // tampilkan alternatif di text area
+    private void showAlternatives(java.util.List<String> alternatives, String selectedClass) {
+        if (!alternatives.isEmpty()) {
+            alternativeArea.setText("The following alternative seats are available:\n\n");
+            for (int i = 0; i < alternatives.size(); i++) {
+                alternativeArea.append(alternatives.get(i) + " ");
+                if ((i + 1) % 5 == 0) alternativeArea.append("\n");
+            }
+            alternativeArea.append("\n\nPlease choose from these available seats.");
+        } else {
+            alternativeArea.setText("No alternative seats available in " + selectedClass + " class.");
+        }
+    }
+
     private void clearFields() {
         movieCombo.setSelectedIndex(0);
         dateField.setText(LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
@@ -442,7 +526,8 @@ public class BookingGUI extends JFrame {
     }
 
     private void updateSeatInfo() {
-        if (movieCombo == null || timeCombo == null || seatClassCombo == null || seatInfoArea == null || dateField == null) {
+        if (movieCombo == null || timeCombo == null || seatClassCombo == null || seatInfoArea == null
+                || dateField == null || seatMap == null) {
             return;
         }
 
@@ -451,41 +536,38 @@ public class BookingGUI extends JFrame {
         String selectedClass = (String) seatClassCombo.getSelectedItem();
 
         if (selectedMovie != null && selectedTime != null && selectedClass != null) {
-            String key = selectedMovie + "_" + selectedTime;
-            String[] allSeats = seatAvailability.get(key);
-            java.util.Set<String> booked = bookedSeats.get(key);
-
-            if (allSeats != null && booked != null) {
-                StringBuilder info = new StringBuilder();
-                info.append("Movie: ").append(selectedMovie).append("\n");
-                info.append("Time: ").append(selectedTime).append("\n");
-                info.append("Date: ").append(dateField.getText()).append("\n\n");
-
-                int pricePerSeat = seatPrices.get(selectedClass);
-                info.append(selectedClass).append(" Seats Status (Rp ").append(pricePerSeat).append(" per seat):\n");
-                info.append("(Available = Green, Booked = Red)\n\n");
-
-                int availableCount = 0;
-                int bookedCount = 0;
-                for (String seat : allSeats) {
-                    if (isSeatInClass(seat, selectedClass)) {
-                        if (booked.contains(seat)) {
-                            info.append("[").append(seat).append("] ");
-                            bookedCount++;
-                        } else {
-                            info.append(seat).append(" ");
-                            availableCount++;
-                        }
-                        if ((availableCount + bookedCount) % 4 == 0) info.append("\n");
-                    }
-                }
+            String key = selectedShowKey();
+            watchShow(key);
+            seatMap.setWords(seatWordsFor(key));
+            seatMap.setClassFilter(SeatInventory.classOrdinal(selectedClass));
+            updateSeatSummary();
+        }
+    }
 
-                info.append("\n\nTotal Available: ").append(availableCount).append(" seats");
-                info.append("\nTotal Booked: ").append(bookedCount).append(" seats");
-                info.append("\n\nNote: You can select any seat, but booking will fail if seat is already booked.");
-                seatInfoArea.setText(info.toString());
-            }
+    // Hanya ringkasan teks; status per kursi digambar oleh seatMap
+    private void updateSeatSummary() {
+        String selectedClass = (String) seatClassCombo.getSelectedItem();
+        if (selectedClass == null) return;
+
+        StringBuilder info = new StringBuilder();
+        info.append("Movie: ").append(movieCombo.getSelectedItem()).append("\n");
+        info.append("Time: ").append(timeCombo.getSelectedItem()).append("\n");
+        info.append("Date: ").append(dateField.getText()).append("\n\n");
+
+        if (!seatMap.isLoaded()) {
+            info.append("Menunggu data ketersediaan kursi dari provider...");
+        } else {
+            int classOrdinal = SeatInventory.classOrdinal(selectedClass);
+            int availableCount = seatMap.countAvailable(classOrdinal);
+            int bookedCount = seatMap.countSeats(classOrdinal) - availableCount;
+            int pricePerSeat = seatPrices.get(selectedClass);
+            info.append(selectedClass).append(" Seats (Rp ").append(pricePerSeat).append(" per seat): ");
+            info.append("Available = Green, Booked = Red\n");
+            info.append("Total Available: ").append(availableCount).append(" seats");
+            info.append(", Total Booked: ").append(bookedCount).append(" seats");
+            info.append("\nNote: Arahkan mouse ke kursi untuk detail; booking gagal jika kursi sudah terisi.");
         }
+        seatInfoArea.setText(info.toString());
     }
 
     public void addLogMessage(String message) {
@@ -493,9 +575,14 @@ public class BookingGUI extends JFrame {
         logArea.setCaretPosition(logArea.getDocument().getLength());
     }
     
-    // Method to set the customer agent reference
-    public void setCustomerAgent(EnhancedCustomerAgent agent) {
-        this.customerAgent = agent;
+    // Booking asinkron lewat customer agent
+    public void setBookingService(EnhancedCustomerAgent.BookingService service) {
+        this.bookingService = service;
+    }
+
+    // Replika kursi customer agent mengalirkan word yang berubah ke tampilan
+    public void setSeatFeed(EnhancedCustomerAgent.SeatFeed feed) {
+        feed.setSeatListener(this::onSeatWord);
     }
     
     // Method to handle booking confirmation from agent
@@ -514,8 +601,7 @@ public class BookingGUI extends JFrame {
                 }
                 logArea.append("\n");
                 
-                // Update seat availability
-                updateSeatAvailabilityFromBooking();
+                // Status kursi terbaru datang sendiri lewat delta provider
                 
                 // Show success dialog
                 JOptionPane.showMessageDialog(this, 
@@ -546,91 +632,6 @@ public class BookingGUI extends JFrame {
     }
     
     
-    private void updateSeatAvailabilityFromBooking() {
-        // Update the local seat availability to reflect the booking
-        // This ensures the GUI shows the correct seat status
-        updateSeatInfo();
-    }
-    
-    // Method to mark seats as booked
-    private void markSeatsAsBooked(String[] seats, String movie, String time, String seatClass) {
-        String scheduleKey = movie + "_" + time; // Use same key format as validation
-        
-        // Get the booked seats set for this schedule
-        java.util.Set<String> booked = bookedSeats.get(scheduleKey);
-        if (booked == null) {
-            booked = new java.util.HashSet<>();
-            bookedSeats.put(scheduleKey, booked);
-        }
-        
-        // Mark seats as booked
-        for (String seat : seats) {
-            booked.add(seat);
-        }
-        
-        // Update seat availability
-        updateSeatInfo();
-        
-        // Log the booking
-        System.out.println("Seats marked as booked: " + String.join(",", seats) + " for " + scheduleKey);
-    }
-    
-    // Simulate booking response for GUI (while keeping full process in conversation log)
-    private void simulateBookingResponse(String movie, String time, String[] seats, String seatClass) {
-        // Simulate a short delay to show processing
-        Timer delayTimer = new Timer(2000, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                // Simulate successful booking (90% success rate)
-                boolean success = Math.random() > 0.1;
-                String transactionId = "TXN" + System.currentTimeMillis();
-                
-                String timestamp = java.time.LocalTime.now().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm:ss"));
-                logArea.append("[" + timestamp + "] ");
-                logArea.append("Agent Response: " + currentBookingRequest + "\n");
-                
-                if (success) {
-                    String message = String.format("Booking confirmed! %d seat(s) booked successfully.", seats.length);
-                    logArea.append("Status: SUCCESS - " + message + "\n");
-                    logArea.append("Transaction ID: " + transactionId + "\n");
-                    logArea.append("\n");
-                    
-                    // Mark seats as booked
-                    markSeatsAsBooked(seats, movie, time, seatClass);
-                    
-                    // Show success dialog
-                    JOptionPane.showMessageDialog(BookingGUI.this, 
-                            "Booking successful!\n\n" + currentBookingRequest + "\n\n" + message + "\nTransaction ID: " + transactionId,
-                            "Booking Confirmed", JOptionPane.INFORMATION_MESSAGE);
-                            
-                    // Log success to conversation log
-                    EnhancedLoggerUtil.logMessage("GUI", "customer", "BOOKING_SUCCESS", 
-                            "gui_booking_" + System.currentTimeMillis(),
-                            "Booking confirmed: " + currentBookingRequest + " - " + message);
-                } else {
-                    String message = "Sorry, the selected seats are no longer available. Please try different seats.";
-                    logArea.append("Status: FAILED - " + message + "\n\n");
-                    
-                    // Show error dialog
-                    JOptionPane.showMessageDialog(BookingGUI.this, 
-                            "Booking failed!\n\n" + currentBookingRequest + "\n\n" + message,
-                            "Booking Failed", JOptionPane.ERROR_MESSAGE);
-                            
-                    // Log failure to conversation log
-                    EnhancedLoggerUtil.logMessage("GUI", "customer", "BOOKING_FAILED", 
-                            "gui_booking_" + System.currentTimeMillis(),
-                            "Booking failed: " + currentBookingRequest + " - " + message);
-                }
-                
-                logArea.setCaretPosition(logArea.getDocument().getLength());
-                waitingForAgentResponse = false;
-                currentBookingRequest = "";
-            }
-        });
-        delayTimer.setRepeats(false);
-        delayTimer.start();
-    }
-
     public static void main(String[] args) {
         SwingUtilities.invokeLater(new Runnable() {
             @Override
@@ -0,0 +1,470 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal untuk transisi status kursi (book, hold, release).
+ *
+ * Record ditambahkan ke buffer di memori lalu ditulis ke file dengan
+ * FileChannel oleh satu thread flusher. Thread yang butuh durabilitas
+ * memanggil {@link #awaitDurable(long)}; semua record yang terkumpul selama
+ * satu fsync berjalan ikut di-fsync bersama pada putaran berikutnya (group
+ * commit), sehingga biaya fsync dibagi ke banyak booking.
+ *
+ * Journal dibagi menjadi segment ({@code segment-00000001.journal}, ...).
+ * {@link #rotate()} menutup segment aktif dan memulai segment baru; setelah
+ * snapshot inventaris tersimpan, segment lama dihapus dengan
+ * {@link #deleteSegmentsBefore(long)}.
+ *
+ * Format record: [int panjang][int crc32][byte tipe][long id][long ref]
+ * [short panjang key][key UTF-8][short jumlah kursi][int kursi...]. Untuk
+ * CONFIRM_HOLD, id adalah nomor transaksi dan ref adalah nomor hold. Saat
+ * replay, record terakhir yang terpotong atau CRC-nya salah dianggap torn
+ * write dan segment dipotong di sana.
+ */
+public class BookingJournal implements AutoCloseable {
+    public static final byte BOOK = 1;
+    public static final byte HOLD = 2;
+    public static final byte CONFIRM_HOLD = 3;
+    public static final byte RELEASE = 4;
+
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    public interface ReplayHandler {
+        void apply(byte type, long id, long ref, String showKey, int[] seats);
+    }
+
+    public interface Appender {
+        void appendTo(BookingJournal journal) throws IOException;
+    }
+
+    public static class Config {
+        /** Panggil force() setelah setiap flush; false berarti hanya sampai page cache OS. */
+        public boolean fsync = true;
+        /** Waktu maksimal menunggu record lain sebelum flush (0 = flush segera, group commit alami). */
+        public long groupCommitWindowMs = 0;
+        /** Flush segera jika jumlah record tertunda mencapai batas ini. */
+        public int maxBatchRecords = 256;
+
+        public static Config fromSystemProperties() {
+            Config config = new Config();
+            config.fsync = Boolean.parseBoolean(System.getProperty("booking.journal.fsync", "true"));
+            config.groupCommitWindowMs = Long.getLong("booking.journal.groupCommitMs", 0L);
+            config.maxBatchRecords = Integer.getInteger("booking.journal.batchSize", 256);
+            return config;
+        }
+    }
+
+    private final File directory;
+    private final Config config;
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+
+    // Hanya diakses oleh thread flusher setelah open()
+    private FileChannel channel;
+    private long segment;
+
+    private ByteBuffer active = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer flushing = ByteBuffer.allocate(64 * 1024);
+    private int pendingRecords;
+    private long firstPendingAt;
+    private long appendedSeq;
+    private long durableSeq;
+    private IOException failure;
+    private boolean closed;
+
+    // Rotasi: byte sebelum rotatePosition di buffer aktif masih milik segment lama
+    private boolean rotationPending;
+    private int rotatePosition;
+    private long currentSegment;
+
+    private long flushCount;
+    private long flushedRecords;
+
+    private BookingJournal(File directory, FileChannel channel, long segment, Config config) {
+        this.directory = directory;
+        this.channel = channel;
+        this.segment = segment;
+        this.currentSegment = segment;
+        this.config = config;
+        this.flusher = new Thread(this::flushLoop, "journal-flusher-" + directory.getName());
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Membuka (atau membuat) journal di {@code directory}, menghapus segment di
+     * bawah {@code firstSegment} (sudah tercakup snapshot), me-replay semua
+     * record yang valid ke {@code handler}, lalu memulai thread flusher.
+     */
+    public static BookingJournal open(File directory, long firstSegment, Config config, ReplayHandler handler)
+            throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Tidak dapat membuat direktori journal: " + directory);
+        }
+
+        List<Long> segments = listSegments(directory);
+        long lastSegment = Math.max(1, firstSegment);
+        for (long number : segments) {
+            if (number < firstSegment) {
+                deleteSegment(directory, number);
+                continue;
+            }
+            lastSegment = number;
+            try (FileChannel channel = FileChannel.open(segmentFile(directory, number).toPath(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long validEnd = replay(channel, handler);
+                if (validEnd < channel.size()) {
+                    System.out.println("Journal: Memotong " + (channel.size() - validEnd) +
+                            " byte record tidak lengkap di " + segmentFile(directory, number));
+                    channel.truncate(validEnd);
+                }
+            }
+        }
+
+        FileChannel channel = openSegment(directory, lastSegment);
+        BookingJournal journal = new BookingJournal(directory, channel, lastSegment, config);
+        journal.flusher.start();
+        return journal;
+    }
+
+    /**
+     * @return nomor segment terkecil yang masih ada di {@code directory}, atau 0 jika belum ada segment
+     */
+    public static long oldestSegment(File directory) {
+        List<Long> segments = listSegments(directory);
+        return segments.isEmpty() ? 0 : segments.get(0);
+    }
+
+    private static List<Long> listSegments(File directory) {
+        List<Long> segments = new ArrayList<>();
+        String[] names = directory.list();
+        if (names == null) return segments;
+        for (String name : names) {
+            if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) continue;
+            try {
+                segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            } catch (NumberFormatException e) {
+                // bukan file segment
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static File segmentFile(File directory, long number) {
+        return new File(directory, String.format("%s%08d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static FileChannel openSegment(File directory, long number) throws IOException {
+        File file = segmentFile(directory, number);
+        boolean created = !file.exists();
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            channel.position(channel.size());
+            // Tanpa fsync direktori, segment baru beserta record di dalamnya bisa hilang setelah crash
+            if (created) InventorySnapshot.syncDirectory(directory);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    private static void deleteSegment(File directory, long number) {
+        File file = segmentFile(directory, number);
+        if (file.exists() && !file.delete()) {
+            System.err.println("Journal: Gagal menghapus segment " + file);
+        }
+    }
+
+    private static long replay(FileChannel channel, ReplayHandler handler) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        long position = 0;
+        long size = channel.size();
+
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            if (readFully(channel, header, position) < HEADER_BYTES) break;
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES || position + HEADER_BYTES + length > size) break;
+
+            ByteBuffer body = ByteBuffer.allocate(length);
+            if (readFully(channel, body, position + HEADER_BYTES) < length) break;
+            crc.reset();
+            crc.update(body.array(), 0, length);
+            if ((int) crc.getValue() != checksum) break;
+
+            body.flip();
+            byte type = body.get();
+            long id = body.getLong();
+            long ref = body.getLong();
+            byte[] key = new byte[body.getShort() & 0xFFFF];
+            body.get(key);
+            int[] seats = new int[body.getShort() & 0xFFFF];
+            for (int i = 0; i < seats.length; i++) {
+                seats[i] = body.getInt();
+            }
+            handler.apply(type, id, ref, new String(key, StandardCharsets.UTF_8), seats);
+
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + total);
+            if (n < 0) break;
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Menambahkan record ke buffer journal.
+     *
+     * @return nomor urut record, untuk diteruskan ke {@link #awaitDurable(long)}
+     */
+    public synchronized long append(byte type, long id, long ref, String showKey, int[] seats) throws IOException {
+        if (failure != null) throw failure;
+        if (closed) throw new IOException("Journal sudah ditutup");
+
+        byte[] key = showKey.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 8 + 8 + 2 + key.length + 2 + 4 * seats.length;
+        ensureCapacity(HEADER_BYTES + length);
+
+        int start = active.position();
+        active.putInt(length);
+        active.putInt(0); // checksum diisi setelah body ditulis
+        active.put(type);
+        active.putLong(id);
+        active.putLong(ref);
+        active.putShort((short) key.length);
+        active.put(key);
+        active.putShort((short) seats.length);
+        for (int seat : seats) {
+            active.putInt(seat);
+        }
+
+        crc.reset();
+        crc.update(active.array(), start + HEADER_BYTES, length);
+        active.putInt(start + 4, (int) crc.getValue());
+
+        if (pendingRecords++ == 0) firstPendingAt = System.currentTimeMillis();
+        appendedSeq++;
+        notifyAll();
+        return appendedSeq;
+    }
+
+    /**
+     * Menjalankan beberapa {@link #append} tanpa disela flusher, sehingga semua
+     * record tersebut masuk ke flush (dan fsync) yang sama.
+     *
+     * @return nomor urut record terakhir
+     */
+    public synchronized long appendBatch(Appender appender) throws IOException {
+        appender.appendTo(this);
+        return appendedSeq;
+    }
+
+    /**
+     * Menunggu sampai record dengan nomor urut {@code seq} sudah ditulis (dan di-fsync jika diaktifkan).
+     */
+    public synchronized void awaitDurable(long seq) throws IOException {
+        boolean interrupted = false;
+        try {
+            while (durableSeq < seq && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        if (durableSeq < seq) throw failure;
+    }
+
+    /**
+     * Menutup segment aktif dan memulai segment baru. Semua record yang
+     * di-append sebelum method ini dipanggil berada di segment lama, dan
+     * sudah durable saat method ini kembali.
+     *
+     * @return nomor segment baru
+     */
+    public synchronized long rotate() throws IOException {
+        if (failure != null) throw failure;
+        if (closed) throw new IOException("Journal sudah ditutup");
+
+        long target = currentSegment + 1;
+        if (!rotationPending) {
+            rotationPending = true;
+            rotatePosition = active.position();
+            notifyAll();
+        }
+
+        boolean interrupted = false;
+        try {
+            while (currentSegment < target && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        if (currentSegment < target) throw failure;
+        return currentSegment;
+    }
+
+    /**
+     * Menghapus segment yang nomornya di bawah {@code segmentNumber} (kompaksi setelah snapshot).
+     */
+    public void deleteSegmentsBefore(long segmentNumber) {
+        long current;
+        synchronized (this) {
+            current = currentSegment;
+        }
+        for (long number : listSegments(directory)) {
+            if (number < segmentNumber && number < current) {
+                deleteSegment(directory, number);
+            }
+        }
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (active.remaining() >= bytes) return;
+        int capacity = active.capacity();
+        while (capacity - active.position() < bytes) capacity *= 2;
+        ByteBuffer bigger = ByteBuffer.allocate(capacity);
+        active.flip();
+        bigger.put(active);
+        active = bigger;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long batchSeq;
+            int batchRecords;
+            int split = -1;
+            synchronized (this) {
+                try {
+                    while (pendingRecords == 0 && !rotationPending && !closed) {
+                        wait();
+                    }
+                    // Tunggu record lain selama jendela group commit (jika dikonfigurasi)
+                    while (!closed && !rotationPending && pendingRecords < config.maxBatchRecords) {
+                        long remaining = firstPendingAt + config.groupCommitWindowMs - System.currentTimeMillis();
+                        if (remaining <= 0) break;
+                        wait(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (pendingRecords == 0 && !rotationPending && closed) return;
+
+                ByteBuffer swap = flushing;
+                flushing = active;
+                active = swap;
+                active.clear();
+                batchSeq = appendedSeq;
+                batchRecords = pendingRecords;
+                pendingRecords = 0;
+                if (rotationPending) split = rotatePosition;
+            }
+
+            IOException error = null;
+            try {
+                flushing.flip();
+                if (split >= 0) {
+                    // Bagian sebelum rotasi ditutup di segment lama, sisanya masuk segment baru
+                    int limit = flushing.limit();
+                    flushing.limit(split);
+                    writeFully(flushing);
+                    channel.force(false);
+                    channel.close();
+                    segment++;
+                    channel = openSegment(directory, segment);
+                    flushing.limit(limit);
+                }
+                writeFully(flushing);
+                if (config.fsync) channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            flushing.clear();
+
+            synchronized (this) {
+                if (error != null) {
+                    failure = error;
+                    System.err.println("Journal: Gagal menulis ke " + segmentFile(directory, segment) + ": " + error.getMessage());
+                } else {
+                    durableSeq = batchSeq;
+                    flushCount++;
+                    flushedRecords += batchRecords;
+                    if (split >= 0) {
+                        rotationPending = false;
+                        currentSegment = segment;
+                    }
+                }
+                notifyAll();
+                if (error != null) return;
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** Jumlah flush (dan fsync, jika aktif) yang sudah dilakukan. */
+    public synchronized long getFlushCount() {
+        return flushCount;
+    }
+
+    public synchronized long getFlushedRecords() {
+        return flushedRecords;
+    }
+
+    public synchronized long getCurrentSegment() {
+        return currentSegment;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Hasil akhir satu booking asinkron dari {@link EnhancedCustomerAgent.BookingService#book}.
+ *
+ * {@link #CONFIRMED} dan {@link #REJECTED} berasal dari balasan provider (CONFIRM /
+ * DISCONFIRM); {@link #TIMEOUT} berarti tidak ada balasan final dalam batas waktu,
+ * dan {@link #FAILED} berarti request tidak bisa diproses (FAILURE berulang, agent berhenti).
+ * Untuk TIMEOUT booking mungkin tetap tercatat di provider; mengirim ulang dengan
+ * RequestId yang sama aman karena provider menjawab duplikat dari cache.
+ */
+public final class BookingResult {
+    public static final int CONFIRMED = 0;
+    public static final int REJECTED = 1;
+    public static final int TIMEOUT = 2;
+    public static final int FAILED = 3;
+
+    private static final String[] STATUS_NAMES = {"CONFIRMED", "REJECTED", "TIMEOUT", "FAILED"};
+
+    private final int status;
+    private final String requestId;
+    private final String message;
+    private final String transactionId;
+
+    BookingResult(int status, String requestId, String message, String transactionId) {
+        this.status = status;
+        this.requestId = requestId;
+        this.message = message;
+        this.transactionId = transactionId;
+    }
+
+    public boolean isSuccess() {
+        return status == CONFIRMED;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getStatusName() {
+        return STATUS_NAMES[status];
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /** Konten balasan provider, atau keterangan untuk TIMEOUT/FAILED */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Kursi yang masih tersedia di kelas yang diminta saat provider menolak booking
+     * (maksimal 20, dibawa di DISCONFIRM), atau array kosong.
+     */
+    public String[] getAvailableSeats() {
+        String seats = status == REJECTED && message != null ? ContentCodec.valueAfter(message, "Tersedia:", ',') : "";
+        return seats.isEmpty() ? new String[0] : seats.split(";");
+    }
+
+    /**
+     * Token versi ketersediaan pertunjukan yang dibawa penolakan provider, atau null.
+     * Booking ulang dengan {@code IfVersion=<token>} hanya diproses jika belum ada perubahan lagi.
+     */
+    public String getVersion() {
+        String version = status == REJECTED && message != null ? ContentCodec.valueAfter(message, "Versi:", ',') : "";
+        return version.isEmpty() ? null : version;
+    }
+
+    /** ID transaksi untuk CONFIRMED, selain itu null */
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    @Override
+    public String toString() {
+        return getStatusName() + " " + requestId + (transactionId != null ? " " + transactionId : "") + ": " + message;
+    }
+}
@@ -0,0 +1,301 @@
+import java.util.Arrays;
+
+/**
+ * Parser dan encoder satu-pass untuk konten pesan "VERB:Key=Value,Key=Value".
+ *
+ * Parser hanya mencatat offset awal/akhir setiap key dan value (sudah di-trim)
+ * di array int yang dipakai ulang, jadi parsing tidak membuat array, substring
+ * atau Map. Nilai baru menjadi String jika benar-benar diminta lewat {@link #get}.
+ * Aturannya sama dengan rantai split lama: verb sampai ':' pertama, parameter
+ * dipisah ',', parameter tanpa tepat satu '=' atau dengan value kosong diabaikan,
+ * dan key yang muncul dua kali memakai nilai terakhir.
+ *
+ * Instance tidak thread-safe; pakai {@link #parser()} untuk instance per thread.
+ */
+public final class ContentCodec {
+    private static final ThreadLocal<ContentCodec> PARSERS = ThreadLocal.withInitial(ContentCodec::new);
+
+    private String content = "";
+    private int verbEnd = -1;
+    private int count;
+    private int[] keyStart = new int[8];
+    private int[] keyEnd = new int[8];
+    private int[] valueStart = new int[8];
+    private int[] valueEnd = new int[8];
+    private final Slice slice = new Slice();
+
+    /**
+     * Parser milik thread saat ini; hasil parse sebelumnya tidak berlaku lagi setelah parse berikutnya.
+     */
+    public static ContentCodec parser() {
+        return PARSERS.get();
+    }
+
+    public ContentCodec parse(String content) {
+        int colon = content.indexOf(':');
+        return scan(content, colon, colon < 0 ? content.length() : colon + 1, content.length());
+    }
+
+    /**
+     * Mem-parse parameter di {@code content[start, end)} saja, mis. satu item batch.
+     * Hasilnya tidak punya verb ({@link #isValid()} false).
+     */
+    public ContentCodec parseParams(String content, int start, int end) {
+        return scan(content, -1, start, end);
+    }
+
+    private ContentCodec scan(String content, int verbEnd, int start, int limit) {
+        this.content = content;
+        this.count = 0;
+        this.verbEnd = verbEnd;
+
+        int pos = start;
+        while (pos < limit) {
+            int end = pos;
+            int equals = -1;
+            int equalsCount = 0;
+            char c;
+            while (end < limit && (c = content.charAt(end)) != ',') {
+                if (c == '=' && equalsCount++ == 0) equals = end;
+                end++;
+            }
+            if (equalsCount == 1 && equals + 1 < end) {
+                int ks = trimStart(pos, equals);
+                int vs = trimStart(equals + 1, end);
+                add(ks, trimEnd(ks, equals), vs, trimEnd(vs, end));
+            }
+            pos = end + 1;
+        }
+        return this;
+    }
+
+    /**
+     * @return true jika konten punya verb (ada ':')
+     */
+    public boolean isValid() {
+        return verbEnd >= 0;
+    }
+
+    public boolean hasVerb(String verb) {
+        return verbEnd == verb.length() && content.startsWith(verb);
+    }
+
+    public boolean has(String key) {
+        return find(key) >= 0;
+    }
+
+    public String get(String key, String defaultValue) {
+        int i = find(key);
+        return i >= 0 ? content.substring(valueStart[i], valueEnd[i]) : defaultValue;
+    }
+
+    public boolean valueEquals(String key, String expected) {
+        int i = find(key);
+        return i >= 0 && valueEnd[i] - valueStart[i] == expected.length()
+                && content.regionMatches(valueStart[i], expected, 0, expected.length());
+    }
+
+    /**
+     * @return nilai integer, atau {@code defaultValue} jika key tidak ada atau bukan angka
+     */
+    public int getInt(String key, int defaultValue) {
+        int i = find(key);
+        if (i < 0) return defaultValue;
+        int pos = valueStart[i];
+        int end = valueEnd[i];
+        if (pos == end) return defaultValue;
+        boolean negative = false;
+        if (content.charAt(pos) == '-' || content.charAt(pos) == '+') {
+            negative = content.charAt(pos) == '-';
+            if (++pos == end) return defaultValue;
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            char c = content.charAt(pos);
+            if (c < '0' || c > '9') return defaultValue;
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE + 1L) return defaultValue;
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? defaultValue : (int) value;
+    }
+
+    /**
+     * Seperti {@link #getInt}, untuk nilai yang bisa melewati jangkauan int (mis. versi ketersediaan).
+     */
+    public long getLong(String key, long defaultValue) {
+        int i = find(key);
+        if (i < 0) return defaultValue;
+        int pos = valueStart[i];
+        int end = valueEnd[i];
+        if (pos == end) return defaultValue;
+        boolean negative = false;
+        if (content.charAt(pos) == '-' || content.charAt(pos) == '+') {
+            negative = content.charAt(pos) == '-';
+            if (++pos == end) return defaultValue;
+        }
+        // Dijumlahkan sebagai bilangan negatif agar Long.MIN_VALUE tetap terbaca
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = content.charAt(pos) - '0';
+            if (digit < 0 || digit > 9) return defaultValue;
+            if (value < (Long.MIN_VALUE + digit) / 10) return defaultValue;
+            value = value * 10 - digit;
+        }
+        if (negative) return value;
+        return value == Long.MIN_VALUE ? defaultValue : -value;
+    }
+
+    /**
+     * Key pertunjukan "Film|Date|Time", sama dengan {@link EnhancedProviderAgent#showKey}.
+     */
+    public String showKey() {
+        StringBuilder sb = new StringBuilder(content.length());
+        appendValue(sb, "Film").append('|');
+        appendValue(sb, "Date").append('|');
+        appendValue(sb, "Time");
+        return sb.toString();
+    }
+
+    public StringBuilder appendValue(StringBuilder sb, String key) {
+        int i = find(key);
+        if (i >= 0) sb.append(content, valueStart[i], valueEnd[i]);
+        return sb;
+    }
+
+    /**
+     * Mengubah daftar kursi "A1;A2;B3" langsung menjadi indeks kursi tanpa substring.
+     *
+     * @return indeks kursi, atau null jika key tidak ada atau ada ID kursi yang tidak valid
+     */
+    public int[] seatIndices(String key, SeatInventory inventory) {
+        int i = find(key);
+        if (i < 0) return null;
+        int start = valueStart[i];
+        int end = valueEnd[i];
+
+        int items = 1;
+        for (int pos = start; pos < end; pos++) {
+            if (content.charAt(pos) == ';') items++;
+        }
+        // Sama seperti split(";"): elemen kosong di akhir dibuang
+        while (items > 1 && content.charAt(end - 1) == ';') {
+            end--;
+            items--;
+        }
+
+        int[] seats = new int[items];
+        int n = 0;
+        int itemStart = start;
+        for (int pos = start; pos <= end; pos++) {
+            if (pos == end || content.charAt(pos) == ';') {
+                int seat = inventory.indexOf(slice.of(content, itemStart, pos));
+                if (seat < 0) return null;
+                seats[n++] = seat;
+                itemStart = pos + 1;
+            }
+        }
+        return seats;
+    }
+
+    /**
+     * Nilai setelah {@code label} sampai {@code terminator} berikutnya (atau akhir teks), di-trim.
+     * Dipakai customer untuk membaca balasan seperti "Transaction ID: TXN_1, Kursi: ...".
+     *
+     * @return nilai, atau string kosong jika label tidak ditemukan
+     */
+    public static String valueAfter(String text, String label, char terminator) {
+        int start = text.indexOf(label);
+        if (start < 0) return "";
+        start += label.length();
+        int end = text.indexOf(terminator, start);
+        if (end < 0) end = text.length();
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        return text.substring(start, end);
+    }
+
+    /**
+     * Memulai konten baru "VERB:" di builder.
+     */
+    public static StringBuilder begin(StringBuilder sb, String verb) {
+        return sb.append(verb).append(':');
+    }
+
+    public static StringBuilder param(StringBuilder sb, String key, CharSequence value) {
+        if (sb.charAt(sb.length() - 1) != ':') sb.append(',');
+        return sb.append(key).append('=').append(value);
+    }
+
+    public static StringBuilder param(StringBuilder sb, String key, int value) {
+        if (sb.charAt(sb.length() - 1) != ':') sb.append(',');
+        return sb.append(key).append('=').append(value);
+    }
+
+    private int find(String key) {
+        int length = key.length();
+        for (int i = count - 1; i >= 0; i--) {
+            if (keyEnd[i] - keyStart[i] == length && content.regionMatches(keyStart[i], key, 0, length)) return i;
+        }
+        return -1;
+    }
+
+    private void add(int ks, int ke, int vs, int ve) {
+        if (count == keyStart.length) {
+            int capacity = count * 2;
+            keyStart = Arrays.copyOf(keyStart, capacity);
+            keyEnd = Arrays.copyOf(keyEnd, capacity);
+            valueStart = Arrays.copyOf(valueStart, capacity);
+            valueEnd = Arrays.copyOf(valueEnd, capacity);
+        }
+        keyStart[count] = ks;
+        keyEnd[count] = ke;
+        valueStart[count] = vs;
+        valueEnd[count] = ve;
+        count++;
+    }
+
+    private int trimStart(int start, int end) {
+        while (start < end && content.charAt(start) <= ' ') start++;
+        return start;
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && content.charAt(end - 1) <= ' ') end--;
+        return end;
+    }
+
+    // View CharSequence yang dipakai ulang atas bagian konten
+    private static final class Slice implements CharSequence {
+        private String text;
+        private int start;
+        private int end;
+
+        Slice of(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return text.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return text.substring(start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return text.substring(start, end);
+        }
+    }
+}
@@ -1,52 +1,211 @@
+import jade.content.abs.AbsAgentAction;
+import jade.content.lang.Codec;
+import jade.content.lang.leap.LEAPCodec;
+import jade.content.onto.OntologyException;
 import jade.core.Agent;
+import jade.core.ServiceException;
 import jade.core.behaviours.CyclicBehaviour;
 import jade.core.behaviours.OneShotBehaviour;
+import jade.core.behaviours.TickerBehaviour;
 import jade.core.behaviours.WakerBehaviour;
+import jade.core.messaging.TopicManagementHelper;
 import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
 import jade.core.AID;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class EnhancedCustomerAgent extends Agent {
+    /**
+     * Antarmuka O2A untuk GUI (JADE membungkus O2A dengan proxy, jadi harus berupa interface).
+     */
+    public interface SeatFeed {
+        void setSeatListener(SeatReplica.Listener listener);
+    }
+
+    /**
+     * Antarmuka O2A booking asinkron. Boleh dipanggil dari thread mana pun dan tidak memblokir;
+     * request dikirim di thread agent, dan future diselesaikan di thread agent saat CONFIRM,
+     * DISCONFIRM, FAILURE berulang atau timeout. Callback pada future tidak boleh memblokir.
+     */
+    public interface BookingService {
+        /** Blok kursi bersebelahan terbaik dipilih provider */
+        CompletableFuture<BookingResult> book(String movieTitle, String date, String time, String seatClass, int ticketCount);
+
+        /** Kursi yang dipilih pengguna, mis. {"A1", "A2"}; ditolak jika salah satunya sudah terpesan */
+        CompletableFuture<BookingResult> book(String movieTitle, String date, String time, String seatClass, String[] seats);
+    }
+
     private enum AgentState {
         IDLE, REQUESTING_INFO, RECEIVED_OPTIONS, REQUESTING_BOOKING,
-        WAITING_CONFIRMATION, BOOKING_COMPLETED, ERROR, CHECKING_SEAT
+        WAITING_CONFIRMATION, BOOKING_COMPLETED, ERROR
+    }
+
+    /**
+     * State satu percakapan dengan provider: state machine, request terakhir, retry dan deadline.
+     *
+     * Percakapan interaktif (GUI lewat O2A Object[], {@link #startBookingRequest}) mencetak progres
+     * ke console dan mengirim ulang saat timeout.
+     * Percakapan dari {@link #book} tidak mencetak apa pun dan hasilnya dikirim lewat future.
+     */
+    private static final class Conversation {
+        final String id;
+        final String movieTitle;
+        final String date;
+        final String time;
+        final String showKey;
+        final boolean interactive;
+        // null untuk percakapan interaktif
+        final CompletableFuture<BookingResult> future;
+        AgentState state = AgentState.IDLE;
+        String requestContent;
+        String requestId;
+        String lastReplyWith;
+        int retries;
+        // 0 sampai request pertama terkirim
+        long deadline;
+
+        Conversation(String id, String movieTitle, String date, String time, boolean interactive,
+                     CompletableFuture<BookingResult> future) {
+            this.id = id;
+            this.movieTitle = movieTitle;
+            this.date = date;
+            this.time = time;
+            this.showKey = EnhancedProviderAgent.showKey(movieTitle, date, time);
+            this.interactive = interactive;
+            this.future = future;
+        }
     }
 
-    private AgentState currentState = AgentState.IDLE;
-    private String conversationId;
-    private String lastRequestContent;
-    private String lastReplyWith;
-    private int retryCount = 0;
     private final int MAX_RETRIES = 3;
-    private final ReentrantLock stateLock = new ReentrantLock();
     private final AtomicInteger requestCounter = new AtomicInteger(0);
+    // Unik per instance agent agar RequestId tidak bentrok setelah restart
+    private final String requestIdPrefix = Long.toString(System.currentTimeMillis(), 36);
+
+    // Percakapan yang sedang berjalan per conversationId; hanya diakses di thread agent.
+    // Timeout sama untuk semua dan percakapan yang deadline-nya diperbarui dipindah ke ekor,
+    // jadi percakapan yang paling dulu kedaluwarsa selalu di kepala map. Timeout per instance agar test bisa mengaturnya.
+    long conversationTimeoutMs = Long.getLong("booking.customer.bookTimeoutMs", 30000L);
+    private final LinkedHashMap<String, Conversation> conversations = new LinkedHashMap<>();
+
+    // Versi ketersediaan terakhir per (pertunjukan, kelas) dari info provider; dikirim sebagai IfVersion
+    // sehingga provider tidak mengirim ulang daftar kursi yang tidak berubah
+    private final Map<String, String> knownInfoVersions = new HashMap<>();
+
+    // Shard provider per indeks dari langganan DF; null sampai tabel lengkap atau waktu tunggu habis.
+    // Request yang dikirim selama tabel belum ada ditahan di awaitingShards (thread agent saja).
+    private static final long SHARD_WAIT_MS = Long.getLong("booking.customer.shardWaitMs", 2000L);
+    private static final String SHARD_SUBSCRIPTION = "df_provider_shards";
+    private AID[] providerShards;
+    private int expectedShardCount = 1;
+    private final Map<AID, int[]> registeredShards = new HashMap<>();
+    private final List<Conversation> awaitingShards = new ArrayList<>();
+    private final Set<String> awaitingSnapshots = new LinkedHashSet<>();
+    private ACLMessage shardSubscription;
+
+    // Bahasa konten request: string (protokol teks, default), booking-binary atau LEAP untuk konten bertipe
+    private static final String CONTENT_LANGUAGE = System.getProperty("booking.content.language", "string");
+
+    // Replika ketersediaan pertunjukan yang sedang diproses, disinkronkan dari topic delta provider
+    private static final MessageTemplate SEAT_DELTA = new MessageTemplate(msg ->
+            msg.getPerformative() == ACLMessage.INFORM
+                    && msg.getContent() != null && msg.getContent().startsWith("SEAT_DELTA:"));
+    private TopicManagementHelper topicHelper;
+    private AID seatTopic;
+    private volatile SeatReplica seatReplica;
+    private volatile SeatReplica.Listener seatListener;
+
+    // Perintah O2A dari GUI: {WATCH_SHOW, film, tanggal, jam} untuk mengikuti ketersediaan pertunjukan
+    public static final String WATCH_SHOW = "WATCH_SHOW";
 
     @Override
     protected void setup() {
         System.out.println("EnhancedCustomerAgent started: " + getLocalName());
+        Object[] args = getArguments();
+        if (args != null && args.length >= 1) {
+            expectedShardCount = Integer.parseInt(String.valueOf(args[0]));
+        }
+        getContentManager().registerLanguage(new BookingBinaryCodec());
+        getContentManager().registerLanguage(new LEAPCodec());
+        getContentManager().registerOntology(MovieBookingOntology.getInstance());
+
+        try {
+            topicHelper = (TopicManagementHelper) getHelper(TopicManagementHelper.SERVICE_NAME);
+            addBehaviour(new SeatDeltaBehaviour());
+        } catch (ServiceException e) {
+            System.out.println("Customer: TopicManagementService tidak aktif, ketersediaan kursi hanya lewat request");
+        }
+
+        subscribeProviderShards();
         addBehaviour(new HandleResponsesBehaviour());
         addBehaviour(new TimeoutBehaviour());
         addBehaviour(new HandleO2AMessageBehaviour());
         
         // Enable O2A communication
         setEnabledO2ACommunication(true, 0);
+        // GUI memasang listener replika kursi dan memesan lewat AgentController.getO2AInterface
+        registerO2AInterface(SeatFeed.class, this::setSeatListener);
+        registerO2AInterface(BookingService.class, new BookingService() {
+            @Override
+            public CompletableFuture<BookingResult> book(String movieTitle, String date, String time, String seatClass,
+                                                         int ticketCount) {
+                return EnhancedCustomerAgent.this.book(movieTitle, date, time, seatClass, ticketCount);
+            }
+
+            @Override
+            public CompletableFuture<BookingResult> book(String movieTitle, String date, String time, String seatClass,
+                                                         String[] seats) {
+                return EnhancedCustomerAgent.this.book(movieTitle, date, time, seatClass, seats);
+            }
+        });
     }
     
     @Override
     protected void takeDown() {
+        // Booking yang belum terkirim atau belum dijawab tidak akan pernah selesai lagi
+        Object queued;
+        while ((queued = getO2AObject()) != null) {
+            if (queued instanceof Conversation) {
+                Conversation conversation = (Conversation) queued;
+                conversations.put(conversation.id, conversation);
+            }
+        }
+        for (Conversation conversation : awaitingShards) conversations.put(conversation.id, conversation);
+        for (Conversation conversation : conversations.values().toArray(new Conversation[0])) {
+            endConversation(conversation, AgentState.ERROR, BookingResult.FAILED, "Customer agent berhenti", null);
+        }
+        if (shardSubscription != null) send(DFService.createCancelMessage(this, getDefaultDF(), shardSubscription));
         System.out.println("EnhancedCustomerAgent " + getLocalName() + " terminated");
     }
     
     // Handle O2A messages from GUI
-    private class HandleO2AMessageBehaviour extends CyclicBehaviour {
+    class HandleO2AMessageBehaviour extends CyclicBehaviour {
         @Override
         public void action() {
             Object obj = getO2AObject();
             if (obj != null) {
-                if (obj instanceof Object[]) {
+                if (obj instanceof Conversation) {
+                    sendActualBookingRequest((Conversation) obj);
+                } else if (obj instanceof Object[]) {
                     Object[] args = (Object[]) obj;
-                    if (args.length >= 5) {
+                    if (args.length == 4 && WATCH_SHOW.equals(args[0])) {
+                        subscribeSeatDeltas(EnhancedProviderAgent.showKey(
+                                (String) args[1], (String) args[2], (String) args[3]));
+                    } else if (args.length >= 5) {
                         String movieTitle = (String) args[0];
                         String date = (String) args[1];
                         String time = (String) args[2];
@@ -68,211 +227,302 @@ public class EnhancedCustomerAgent extends Agent {
         }
     }
 
+    // ====================== Seat Deltas ======================
+    private static final MessageTemplate CONVERSATION_REPLIES = MessageTemplate.and(MessageTemplate.not(SEAT_DELTA),
+            MessageTemplate.not(MessageTemplate.MatchConversationId(SHARD_SUBSCRIPTION)));
+
+    private class SeatDeltaBehaviour extends CyclicBehaviour {
+        @Override
+        public void action() {
+            ACLMessage msg = receive(SEAT_DELTA);
+            if (msg == null) {
+                block();
+                return;
+            }
+            SeatReplica replica = seatReplica;
+            ContentCodec delta = ContentCodec.parser().parse(msg.getContent());
+            // Delta pertunjukan sebelumnya yang masih di mailbox diabaikan
+            if (replica == null || !replica.getShowKey().equals(delta.showKey())) return;
+            if (replica.apply(delta) == SeatReplica.GAP) {
+                System.out.println("Customer: Delta kursi terlewat, meminta snapshot ulang");
+                requestSeatSnapshot(replica.getShowKey());
+            }
+        }
+    }
+
+    /**
+     * Replika ketersediaan pertunjukan yang sedang diproses, atau null jika topic tidak aktif.
+     * Dibaca GUI tanpa mengirim request ke provider.
+     */
+    public SeatReplica getSeatReplica() {
+        return seatReplica;
+    }
+
+    /**
+     * Listener untuk setiap word kursi yang diterapkan ke replika; tetap terpasang saat pertunjukan berganti.
+     */
+    public void setSeatListener(SeatReplica.Listener listener) {
+        seatListener = listener;
+        SeatReplica replica = seatReplica;
+        if (replica != null) replica.setListener(listener);
+    }
+
+    private void subscribeSeatDeltas(String showKey) {
+        SeatReplica current = seatReplica;
+        if (topicHelper == null || (current != null && current.getShowKey().equals(showKey))) return;
+        try {
+            if (seatTopic != null) topicHelper.deregister(seatTopic);
+            seatTopic = topicHelper.createTopic(EnhancedProviderAgent.seatTopicName(showKey));
+            topicHelper.register(seatTopic);
+        } catch (ServiceException e) {
+            System.err.println("Customer: Gagal subscribe delta kursi: " + e.getMessage());
+            seatTopic = null;
+            seatReplica = null;
+            return;
+        }
+        SeatReplica replica = new SeatReplica(showKey);
+        seatReplica = replica;
+        replica.setListener(seatListener);
+        requestSeatSnapshot(showKey);
+    }
+
+    private void requestSeatSnapshot(String showKey) {
+        if (providerShards == null) {
+            awaitingSnapshots.add(showKey);
+            return;
+        }
+        StringBuilder content = ContentCodec.begin(new StringBuilder(64), "SEAT_SNAPSHOT");
+        EnhancedProviderAgent.appendShowParams(content, showKey);
+
+        ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
+        request.addReceiver(providerFor(showKey));
+        request.setConversationId("seat_snapshot_" + showKey);
+        request.setContent(content.toString());
+        send(request);
+    }
+
     // ====================== Handle Responses ======================
-    private class HandleResponsesBehaviour extends CyclicBehaviour {
+    class HandleResponsesBehaviour extends CyclicBehaviour {
         @Override
         public void action() {
-            ACLMessage msg = receive();
+            ACLMessage msg = receive(CONVERSATION_REPLIES);
             if (msg != null) {
-                // Robustness: validasi pesan
-                if (!isValidResponse(msg)) {
-                    System.out.println("[WARN] Pesan diabaikan (conversationId tidak cocok): " + msg.getContent());
+                readTypedContent(msg);
+                // Robustness: hanya balasan untuk percakapan yang masih berjalan yang diproses
+                Conversation conversation = conversations.get(msg.getConversationId());
+                if (conversation == null) {
+                    System.out.println("[WARN] Pesan diabaikan (conversationId tidak dikenal): " + msg.getContent());
                     return;
                 }
-                handleResponse(msg);
+                handleResponse(conversation, msg);
             } else {
                 block();
             }
         }
 
-        private void handleResponse(ACLMessage msg) {
+        private void handleResponse(Conversation conversation, ACLMessage msg) {
             // Log incoming message
             EnhancedLoggerUtil.logMessage(msg.getSender().getLocalName(), getLocalName(),
                     ACLMessage.getPerformative(msg.getPerformative()),
                     msg.getConversationId(), msg.getContent());
             
             // Validate in-reply-to for proper FIPA-ACL compliance
-            if (lastReplyWith != null && !lastReplyWith.equals(msg.getInReplyTo())) {
-                System.out.println("[WARN] Message in-reply-to mismatch. Expected: " + lastReplyWith + ", Got: " + msg.getInReplyTo());
+            if (conversation.lastReplyWith != null && !conversation.lastReplyWith.equals(msg.getInReplyTo())) {
+                System.out.println("[WARN] Message in-reply-to mismatch. Expected: " + conversation.lastReplyWith + ", Got: " + msg.getInReplyTo());
                 EnhancedLoggerUtil.logWarning(getLocalName(), msg.getSender().getLocalName(),
                         "Message in-reply-to mismatch", msg.getConversationId());
             }
             
             switch (msg.getPerformative()) {
                 case ACLMessage.INFORM:
-                    handleInformMessage(msg);
+                    handleInformMessage(conversation, msg);
                     break;
                 case ACLMessage.CONFIRM:
-                    handleConfirmMessage(msg);
+                    handleConfirmMessage(conversation, msg);
                     break;
                 case ACLMessage.DISCONFIRM:
-                    handleDisconfirmMessage(msg);
+                    handleDisconfirmMessage(conversation, msg);
                     break;
                 case ACLMessage.FAILURE:
-                    handleFailureMessage(msg);
-                    break;
-                case ACLMessage.AGREE:
-                    if (currentState == AgentState.CHECKING_SEAT) {
-                        System.out.println("Customer: Kursi tersedia, melanjutkan booking...");
-                        sendActualBookingRequest();
-                    }
+                    handleFailureMessage(conversation, msg);
                     break;
                 case ACLMessage.REFUSE:
-                    if (currentState == AgentState.CHECKING_SEAT) {
-                        System.out.println("Customer: Kursi sudah tidak tersedia, meminta alternatif...");
-                        requestAlternative();
-                    }
+                    endConversation(conversation, AgentState.ERROR, BookingResult.REJECTED, msg.getContent(), null);
                     break;
                 default:
                     System.out.println("Customer: Pesan tidak dikenal: " + msg.getPerformative());
             }
         }
 
-        private void handleInformMessage(ACLMessage msg) {
-            setState(AgentState.RECEIVED_OPTIONS);
-
-            if (msg.getContent().contains("Alternatif kursi")) {
-                System.out.println("Customer: Menerima kursi alternatif → " + msg.getContent());
-            } else {
-                System.out.println("Customer: Menerima opsi film → " + msg.getContent());
+        private void handleInformMessage(Conversation conversation, ACLMessage msg) {
+            String version = ContentCodec.valueAfter(msg.getContent(), "Versi:", ',');
+            String infoKey = infoVersionKey(conversation);
+            if (!version.isEmpty() && infoKey != null) knownInfoVersions.put(infoKey, version);
+            if (conversation.interactive) {
+                if (msg.getContent().contains("tidak berubah")) {
+                    System.out.println("Customer: Ketersediaan tidak berubah sejak versi " + version);
+                } else {
+                    System.out.println("Customer: Menerima opsi film → " + msg.getContent());
+                }
                 // Don't automatically check seat availability - wait for user to make booking request
-                // The seat check will happen when user actually requests booking
             }
+            // Opsi film mengakhiri percakapan; booking berikutnya memakai percakapan baru
+            endConversation(conversation, AgentState.RECEIVED_OPTIONS, BookingResult.FAILED,
+                    "Balasan bukan hasil booking: " + msg.getContent(), null);
         }
 
-        private void handleConfirmMessage(ACLMessage msg) {
-            setState(AgentState.BOOKING_COMPLETED);
-            System.out.println("Customer: Booking berhasil → " + msg.getContent());
-            retryCount = 0;
-            
-            // Extract transaction ID from message
-            String transactionId = "";
-            if (msg.getContent().contains("Transaction ID:")) {
-                String[] parts = msg.getContent().split("Transaction ID:");
-                if (parts.length > 1) {
-                    transactionId = parts[1].trim().split(",")[0];
-                }
-            }
-            
-            // Send confirmation to GUI via O2A
-            sendConfirmationToGUI(true, msg.getContent(), transactionId);
+        private void handleConfirmMessage(Conversation conversation, ACLMessage msg) {
+            if (conversation.interactive) System.out.println("Customer: Booking berhasil → " + msg.getContent());
+            endConversation(conversation, AgentState.BOOKING_COMPLETED, BookingResult.CONFIRMED, msg.getContent(),
+                    ContentCodec.valueAfter(msg.getContent(), "Transaction ID:", ','));
         }
 
-        private void handleDisconfirmMessage(ACLMessage msg) {
-            setState(AgentState.ERROR);
-            System.out.println("Customer: Booking gagal → " + msg.getContent());
-            
+        private void handleDisconfirmMessage(Conversation conversation, ACLMessage msg) {
             // Log booking failure
             EnhancedLoggerUtil.logError(getLocalName(), "provider", 
                     "Booking failed: " + msg.getContent(), msg.getConversationId());
 
-            if (msg.getContent().contains("Alternatif")) {
-                System.out.println("Customer: Kursi alternatif yang ditawarkan → " + msg.getContent());
-            }
-
-            if (retryCount < MAX_RETRIES) {
-                retryCount++;
-                System.out.println("[INFO] Percobaan ulang ke-" + retryCount);
-                EnhancedLoggerUtil.logMessage(getLocalName(), "SYSTEM", "RETRY", 
-                        msg.getConversationId(), "Retry attempt " + retryCount);
-                addBehaviour(new WakerBehaviour(EnhancedCustomerAgent.this, 1000) {
-                    @Override
-                    protected void onWake() {
-                        requestAlternative(); // fallback
-                    }
-                });
-            } else {
-                System.out.println("[ERROR] Maksimal percobaan tercapai. Booking dibatalkan.");
-                EnhancedLoggerUtil.logError(getLocalName(), "SYSTEM", 
-                        "Maximum retry attempts reached. Booking cancelled.", msg.getConversationId());
-                
-                // Send failure confirmation to GUI
-                sendConfirmationToGUI(false, msg.getContent(), null);
+            // DISCONFIRM sudah membawa kursi yang masih tersedia, jadi tidak perlu request ALTERNATIVE
+            if (conversation.interactive) {
+                System.out.println("Customer: Booking gagal → " + msg.getContent());
             }
+            endConversation(conversation, AgentState.ERROR, BookingResult.REJECTED, msg.getContent(), null);
         }
 
-        private void handleFailureMessage(ACLMessage msg) {
-            setState(AgentState.ERROR);
-            System.out.println("[ERROR] Dari provider → " + msg.getContent());
+        private void handleFailureMessage(Conversation conversation, ACLMessage msg) {
+            setState(conversation, AgentState.ERROR);
+            if (conversation.interactive) System.out.println("[ERROR] Dari provider → " + msg.getContent());
             
             // Log system failure
-            EnhancedLoggerUtil.logError(getLocalName(), "provider", 
+            EnhancedLoggerUtil.logError(getLocalName(), msg.getSender().getLocalName(), 
                     "System failure: " + msg.getContent(), msg.getConversationId());
+
+            // Jumlah shard berubah; retry menunggu tabel dari notifikasi DF jika belum lengkap
+            if (msg.getContent() != null && msg.getContent().contains("dimiliki oleh")) {
+                rebuildShardTable();
+            }
             
-            if (retryCount < MAX_RETRIES) {
-                retryCount++;
-                System.out.println("[INFO] Retry booking (Failure). Percobaan ke-" + retryCount);
+            if (conversation.retries < MAX_RETRIES) {
+                conversation.retries++;
+                if (conversation.interactive) System.out.println("[INFO] Retry booking (Failure). Percobaan ke-" + conversation.retries);
                 EnhancedLoggerUtil.logMessage(getLocalName(), "SYSTEM", "RETRY", 
-                        msg.getConversationId(), "Retry after failure - attempt " + retryCount);
-                sendActualBookingRequest();
+                        msg.getConversationId(), "Retry after failure - attempt " + conversation.retries);
+                // Konten (dan RequestId) sama, jadi provider tidak membooking dua kali
+                sendActualBookingRequest(conversation);
             } else {
-                EnhancedLoggerUtil.logError(getLocalName(), "SYSTEM", 
-                        "Maximum retry attempts reached after failure. Using fallback.", msg.getConversationId());
-                fallbackRequest();
+                endConversation(conversation, AgentState.ERROR, BookingResult.FAILED, msg.getContent(), null);
+                if (conversation.interactive) {
+                    EnhancedLoggerUtil.logError(getLocalName(), "SYSTEM", 
+                            "Maximum retry attempts reached after failure. Using fallback.", msg.getConversationId());
+                    fallbackRequest();
+                }
             }
         }
     }
 
-    // ====================== Booking / Check ======================
-    private void checkSeatAvailability() {
-        setState(AgentState.CHECKING_SEAT);
-        ACLMessage check = new ACLMessage(ACLMessage.QUERY_IF);
-        check.addReceiver(new AID("provider", AID.ISLOCALNAME));
-        check.setConversationId(conversationId);
-        check.setContent(lastRequestContent);
-        send(check);
-        
-        // Log outgoing message
-        EnhancedLoggerUtil.logMessage(getLocalName(), "provider", "QUERY_IF", 
-                conversationId, lastRequestContent);
-        
-        System.out.println("Customer: Mengecek ketersediaan kursi sebelum booking...");
+    // ====================== Async Booking ======================
+    /**
+     * Memesan kursi bersebelahan terbaik tanpa memblokir; dipanggil lewat {@link BookingService}.
+     * Setiap booking punya percakapan sendiri sehingga banyak booking bisa berjalan bersamaan.
+     */
+    public CompletableFuture<BookingResult> book(String movieTitle, String date, String time, String seatClass, int ticketCount) {
+        return submitBooking(movieTitle, date, time, seatClass, null, ticketCount);
     }
 
-    private void sendBookingRequest() {
-        // First check seat availability
-        checkSeatAvailability();
-    }
-    
-    private void sendActualBookingRequest() {
-        setState(AgentState.REQUESTING_BOOKING);
-        ACLMessage book = new ACLMessage(ACLMessage.REQUEST);
-        book.addReceiver(new AID("provider", AID.ISLOCALNAME));
-        book.setConversationId(conversationId);
-        book.setContent(lastRequestContent);
-        lastReplyWith = "booking_" + System.currentTimeMillis();
-        book.setReplyWith(lastReplyWith);
-        send(book);
-        
-        // Log outgoing message
-        EnhancedLoggerUtil.logMessage(getLocalName(), "provider", "REQUEST", 
-                conversationId, lastRequestContent);
-        
-        System.out.println("Customer: Mengirim permintaan booking...");
+    /**
+     * Memesan kursi tertentu tanpa memblokir; jika salah satu kursi sudah terpesan, hasilnya
+     * REJECTED beserta kursi kelas tersebut yang masih tersedia.
+     */
+    public CompletableFuture<BookingResult> book(String movieTitle, String date, String time, String seatClass, String[] seats) {
+        return submitBooking(movieTitle, date, time, seatClass, seats, seats.length);
     }
 
-    private void requestAlternative() {
-        setState(AgentState.REQUESTING_INFO);
+    private CompletableFuture<BookingResult> submitBooking(String movieTitle, String date, String time, String seatClass,
+                                                           String[] seats, int ticketCount) {
+        int requestNumber = requestCounter.incrementAndGet();
+        Conversation conversation = new Conversation("movie_booking_" + requestNumber, movieTitle, date, time,
+                false, new CompletableFuture<>());
+        conversation.requestId = requestIdPrefix + "-" + requestNumber;
+        conversation.requestContent = createBookingRequest(movieTitle, date, time, seatClass, seats, ticketCount,
+                conversation.requestId);
+        try {
+            // Dikirim oleh HandleO2AMessageBehaviour di thread agent
+            putO2AObject(conversation, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            conversation.future.complete(new BookingResult(BookingResult.FAILED, conversation.requestId,
+                    "Request tidak terkirim: interrupted", null));
+        }
+        return conversation.future;
+    }
 
-        String seatClass = "Regular"; // default
-        if (lastRequestContent.contains("Class=")) {
-            seatClass = lastRequestContent.split("Class=")[1].split(",")[0];
+    /**
+     * Mengakhiri percakapan: dilepas dari map sehingga balasan yang terlambat diabaikan,
+     * dan future (jika ada) diselesaikan dengan hasilnya.
+     */
+    private void endConversation(Conversation conversation, AgentState finalState, int status,
+                                 String message, String transactionId) {
+        conversations.remove(conversation.id);
+        setState(conversation, finalState);
+        if (conversation.future != null) {
+            BookingResult result = new BookingResult(status, conversation.requestId, message, transactionId);
+            EnhancedLoggerUtil.logMessage(getLocalName(), "SYSTEM", "BOOKING_RESULT", conversation.id, result.toString());
+            conversation.future.complete(result);
         }
+    }
 
-        String alternativeRequest = String.format("ALTERNATIVE:%s", seatClass);
-        lastRequestContent = alternativeRequest;
+    // ====================== Booking / Check ======================
+    /**
+     * Mengirim request percakapan ke shard pemilik pertunjukan. Deadline dihitung dari kirim
+     * pertama; percakapan interaktif memperbaruinya di setiap langkah, booking asinkron tidak,
+     * sehingga timeout {@link #book} berlaku untuk seluruh percakapan.
+     */
+    private void sendToProvider(Conversation conversation, int performative, String content, String replyWithPrefix) {
+        if (providerShards == null) {
+            if (!awaitingShards.contains(conversation)) awaitingShards.add(conversation);
+            return;
+        }
+        ACLMessage msg = new ACLMessage(performative);
+        AID provider = providerFor(conversation.showKey);
+        msg.addReceiver(provider);
+        msg.setConversationId(conversation.id);
+        setRequestContent(msg, content);
+        conversation.lastReplyWith = replyWithPrefix != null ? replyWithPrefix + "_" + System.currentTimeMillis() : null;
+        msg.setReplyWith(conversation.lastReplyWith);
+        deliver(msg);
 
-        ACLMessage alt = new ACLMessage(ACLMessage.REQUEST);
-        alt.addReceiver(new AID("provider", AID.ISLOCALNAME));
-        alt.setConversationId(conversationId);
-        alt.setContent(alternativeRequest);
-        send(alt);
-        
         // Log outgoing message
-        EnhancedLoggerUtil.logMessage(getLocalName(), "provider", "REQUEST", 
-                conversationId, alternativeRequest);
+        EnhancedLoggerUtil.logMessage(getLocalName(), provider.getLocalName(),
+                ACLMessage.getPerformative(performative), conversation.id, content);
+
+        if (conversation.interactive || conversation.deadline == 0) {
+            conversations.remove(conversation.id);
+            conversation.deadline = System.currentTimeMillis() + conversationTimeoutMs;
+            conversations.put(conversation.id, conversation);
+        }
+    }
 
-        System.out.println("Customer: Meminta alternatif kursi di kelas " + seatClass + "...");
+    // Test menimpanya untuk menangkap request tanpa container
+    void deliver(ACLMessage msg) {
+        send(msg);
+    }
+
+    private void sendActualBookingRequest(Conversation conversation) {
+        setState(conversation, AgentState.REQUESTING_BOOKING);
+        if (conversation.interactive) {
+            System.out.println("Customer: Mengirim permintaan booking"
+                    + (providerShards != null ? " ke " + providerFor(conversation.showKey).getLocalName() : "") + "...");
+        }
+        sendToProvider(conversation, ACLMessage.REQUEST, conversation.requestContent, "booking");
+    }
+
+    // Mengirim ulang request terakhir percakapan (booking atau REQUEST_INFO yang sama)
+    private void resend(Conversation conversation) {
+        if (conversation.state == AgentState.REQUESTING_BOOKING) {
+            sendActualBookingRequest(conversation);
+        } else {
+            sendToProvider(conversation, ACLMessage.REQUEST, conversation.requestContent, "info_request");
+        }
     }
 
     private void fallbackRequest() {
@@ -280,45 +530,78 @@ public class EnhancedCustomerAgent extends Agent {
         addBehaviour(new RequestMovieInfoBehaviour("Default", "Today", "19:00", "Regular", 1));
     }
 
-    private boolean isValidResponse(ACLMessage msg) {
-        return msg.getConversationId() != null && msg.getConversationId().equals(conversationId);
+    /**
+     * Mengisi konten request; dikirim bertipe jika bahasa konten aktif dan verb punya schema.
+     */
+    private void setRequestContent(ACLMessage msg, String content) {
+        msg.setContent(content);
+        if (getContentManager().lookupLanguage(CONTENT_LANGUAGE) == null) return;
+        AbsAgentAction action = MovieBookingOntology.toAction(ContentCodec.parser().parse(content));
+        if (action == null) return;
+        msg.setLanguage(CONTENT_LANGUAGE);
+        msg.setOntology(MovieBookingOntology.ONTOLOGY_NAME);
+        try {
+            getContentManager().fillContent(msg, action);
+        } catch (Codec.CodecException | OntologyException e) {
+            System.out.println("[WARN] Request dikirim sebagai teks, encode gagal: " + e.getMessage());
+            msg.setLanguage(null);
+            msg.setOntology(null);
+            msg.setContent(content);
+        }
+    }
+
+    // Balasan bertipe diubah ke teks pesannya sehingga handler tetap membaca getContent()
+    private void readTypedContent(ACLMessage msg) {
+        if (!MovieBookingOntology.ONTOLOGY_NAME.equals(msg.getOntology())) return;
+        try {
+            String content = MovieBookingOntology.toContent(getContentManager().extractAbsContent(msg));
+            msg.setContent(content != null ? content : "");
+        } catch (Codec.CodecException | OntologyException e) {
+            System.out.println("[WARN] Balasan bertipe tidak dapat dibaca: " + e.getMessage());
+            msg.setContent("");
+        }
     }
 
     // ====================== Timeout ======================
-    private class TimeoutBehaviour extends WakerBehaviour {
-        public TimeoutBehaviour() { super(EnhancedCustomerAgent.this, 30000); }
+    class TimeoutBehaviour extends TickerBehaviour {
+        TimeoutBehaviour() {
+            super(EnhancedCustomerAgent.this, Math.max(10L, Math.min(500L, conversationTimeoutMs / 4)));
+        }
+
         @Override
-        protected void onWake() {
-            if (currentState == AgentState.REQUESTING_INFO ||
-                    currentState == AgentState.REQUESTING_BOOKING ||
-                    currentState == AgentState.CHECKING_SEAT) {
-                System.out.println("[TIMEOUT] Tidak ada respon. Percobaan ke-" + (retryCount + 1));
-                
-                // Log timeout
-                EnhancedLoggerUtil.logWarning(getLocalName(), "SYSTEM", 
-                        "Timeout occurred in state: " + currentState, 
-                        conversationId != null ? conversationId : "system");
-                
-                retryCount++;
-                if (retryCount < MAX_RETRIES) {
-                    EnhancedLoggerUtil.logMessage(getLocalName(), "SYSTEM", "TIMEOUT_RETRY", 
-                            conversationId != null ? conversationId : "system", 
-                            "Timeout retry attempt " + retryCount);
-                    
-                    if (currentState == AgentState.REQUESTING_INFO) {
-                        addBehaviour(new RequestMovieInfoBehaviour("Default", "Today", "19:00", "Regular", 1));
-                    } else if (currentState == AgentState.CHECKING_SEAT) {
-                        checkSeatAvailability();
-                    } else if (currentState == AgentState.REQUESTING_BOOKING) {
-                        sendActualBookingRequest();
-                    }
-                } else {
-                    System.out.println("[ERROR] Timeout maksimal tercapai. Booking dibatalkan.");
-                    EnhancedLoggerUtil.logError(getLocalName(), "SYSTEM", 
-                            "Maximum timeout retry attempts reached. Booking cancelled.", 
-                            conversationId != null ? conversationId : "system");
-                    setState(AgentState.ERROR);
-                }
+        protected void onTick() {
+            long now = System.currentTimeMillis();
+            List<Conversation> expired = new ArrayList<>();
+            for (Conversation conversation : conversations.values()) {
+                if (conversation.deadline > now) break;
+                expired.add(conversation);
+            }
+            for (Conversation conversation : expired) {
+                handleTimeout(conversation);
+            }
+        }
+
+        private void handleTimeout(Conversation conversation) {
+            EnhancedLoggerUtil.logWarning(getLocalName(), "SYSTEM",
+                    "Timeout occurred in state: " + conversation.state, conversation.id);
+            if (!conversation.interactive) {
+                endConversation(conversation, AgentState.ERROR, BookingResult.TIMEOUT,
+                        "Tidak ada balasan dalam " + conversationTimeoutMs + " ms", null);
+                return;
+            }
+
+            System.out.println("[TIMEOUT] Tidak ada respon untuk " + conversation.id + ". Percobaan ke-" + (conversation.retries + 1));
+            conversation.retries++;
+            if (conversation.retries < MAX_RETRIES) {
+                EnhancedLoggerUtil.logMessage(getLocalName(), "SYSTEM", "TIMEOUT_RETRY",
+                        conversation.id, "Timeout retry attempt " + conversation.retries);
+                resend(conversation);
+            } else {
+                System.out.println("[ERROR] Timeout maksimal tercapai. Booking dibatalkan.");
+                EnhancedLoggerUtil.logError(getLocalName(), "SYSTEM",
+                        "Maximum timeout retry attempts reached. Booking cancelled.", conversation.id);
+                endConversation(conversation, AgentState.ERROR, BookingResult.TIMEOUT,
+                        "Tidak ada balasan dalam " + conversationTimeoutMs + " ms", null);
             }
         }
     }
@@ -329,56 +612,22 @@ public class EnhancedCustomerAgent extends Agent {
     }
     
     // Direct booking request from GUI (skip info request)
-    public void startDirectBookingRequest(String movieTitle, String date, String time, String seatClass, int ticketCount) {
-        setState(AgentState.REQUESTING_BOOKING);
-        
-        // Create booking request content
-        String seatIds = generateSeatIds(seatClass, ticketCount);
-        lastRequestContent = String.format("BOOKING:Time=%s,Seats=%s,Class=%s", time, seatIds, seatClass);
-        conversationId = "movie_booking_" + requestCounter.incrementAndGet();
+    private void startDirectBookingRequest(String movieTitle, String date, String time, String seatClass, int ticketCount) {
+        int requestNumber = requestCounter.incrementAndGet();
+        Conversation conversation = new Conversation("movie_booking_" + requestNumber, movieTitle, date, time, true, null);
+        conversation.requestId = requestIdPrefix + "-" + requestNumber;
+        // Provider memilih blok kursi bersebelahan terbaik, jadi tidak perlu menebak ID kursi
+        conversation.requestContent = createBookingRequest(movieTitle, date, time, seatClass, null, ticketCount,
+                conversation.requestId);
+        subscribeSeatDeltas(conversation.showKey);
         
         // Log the booking request
         EnhancedLoggerUtil.logMessage(getLocalName(), "provider", "BOOKING_REQUEST", 
-                conversationId, "Direct booking: " + movieTitle + " at " + time + " for seats " + seatIds);
+                conversation.id, "Direct booking: " + movieTitle + " at " + time + " for " + ticketCount +
+                        " adjacent " + seatClass + " seats");
         
         // Send booking request directly
-        sendActualBookingRequest();
-    }
-    
-    private String generateSeatIds(String seatClass, int ticketCount) {
-        StringBuilder seats = new StringBuilder();
-        String prefix = "";
-        switch (seatClass) {
-            case "VIP": prefix = "A"; break;
-            case "Regular": prefix = "B"; break;
-            case "Economy": prefix = "C"; break;
-        }
-        
-        for (int i = 1; i <= ticketCount; i++) {
-            if (seats.length() > 0) seats.append(";");
-            seats.append(prefix).append(i);
-        }
-        
-        return seats.toString();
-    }
-    
-    // Send confirmation to GUI
-    private void sendConfirmationToGUI(boolean success, String message, String transactionId) {
-        try {
-            // Create confirmation object
-            Object[] confirmation = {success, message, transactionId};
-            putO2AObject(confirmation, false);
-            
-            // Log the confirmation
-            EnhancedLoggerUtil.logMessage(getLocalName(), "GUI", "CONFIRMATION", 
-                    conversationId != null ? conversationId : "system",
-                    "Sending confirmation to GUI: " + (success ? "SUCCESS" : "FAILED") + " - " + message);
-        } catch (Exception e) {
-            System.err.println("Error sending confirmation to GUI: " + e.getMessage());
-            EnhancedLoggerUtil.logError(getLocalName(), "GUI", 
-                    "Failed to send confirmation: " + e.getMessage(), 
-                    conversationId != null ? conversationId : "system");
-        }
+        sendActualBookingRequest(conversation);
     }
 
     private class RequestMovieInfoBehaviour extends OneShotBehaviour {
@@ -395,44 +644,200 @@ public class EnhancedCustomerAgent extends Agent {
 
         @Override
         public void action() {
-            setState(AgentState.REQUESTING_INFO);
-            lastRequestContent = createMovieRequest(movieTitle, date, time, seatClass, ticketCount);
-            conversationId = "movie_booking_" + requestCounter.incrementAndGet();
-
-            ACLMessage request = new ACLMessage(ACLMessage.REQUEST);
-            request.addReceiver(new AID("provider", AID.ISLOCALNAME));
-            request.setConversationId(conversationId);
-            request.setContent(lastRequestContent);
-            lastReplyWith = "info_request_" + System.currentTimeMillis();
-            request.setReplyWith(lastReplyWith);
-            send(request);
-            
-            // Log outgoing message
-            EnhancedLoggerUtil.logMessage(getLocalName(), "provider", "REQUEST", 
-                    conversationId, lastRequestContent);
+            Conversation conversation = new Conversation("movie_booking_" + requestCounter.incrementAndGet(),
+                    movieTitle, date, time, true, null);
+            conversation.requestContent = createMovieRequest(movieTitle, date, time, seatClass, ticketCount,
+                    knownInfoVersions.get(conversation.showKey + "|" + seatClass));
+            subscribeSeatDeltas(conversation.showKey);
+            setState(conversation, AgentState.REQUESTING_INFO);
+            sendToProvider(conversation, ACLMessage.REQUEST, conversation.requestContent, "info_request");
 
             System.out.println("Customer: Mengirim permintaan info film...");
         }
     }
 
-    private String createMovieRequest(String movieTitle, String date, String time, String seatClass, int ticketCount) {
-        return String.format("REQUEST_INFO:Film=%s,Date=%s,Time=%s,Class=%s,Tickets=%d",
-                movieTitle, date, time, seatClass, ticketCount);
+    // seats null = Seats=BEST dengan Count, selain itu kursi yang diminta dipisah ';'
+    private static String createBookingRequest(String movieTitle, String date, String time, String seatClass,
+                                               String[] seats, int ticketCount, String requestId) {
+        StringBuilder content = ContentCodec.begin(new StringBuilder(96), "BOOKING");
+        ContentCodec.param(content, "Film", movieTitle);
+        ContentCodec.param(content, "Date", date);
+        ContentCodec.param(content, "Time", time);
+        if (seats == null) {
+            ContentCodec.param(content, "Seats", "BEST");
+            ContentCodec.param(content, "Count", ticketCount);
+        } else {
+            ContentCodec.param(content, "Seats", String.join(";", seats));
+        }
+        ContentCodec.param(content, "Class", seatClass);
+        // Idempotency key: retry memakai konten yang sama sehingga tidak membooking dua kali
+        ContentCodec.param(content, "RequestId", requestId);
+        return content.toString();
     }
 
-    private void setState(AgentState newState) {
-        stateLock.lock();
-        try {
-            AgentState oldState = currentState;
-            currentState = newState;
-            System.out.println("[STATE] Berubah ke: " + newState);
-            
-            // Log state transition
-            EnhancedLoggerUtil.logMessage(getLocalName(), "SYSTEM", "STATE_CHANGE", 
-                    conversationId != null ? conversationId : "system", 
-                    "State changed from " + oldState + " to " + newState);
-        } finally {
-            stateLock.unlock();
+    private String createMovieRequest(String movieTitle, String date, String time, String seatClass, int ticketCount,
+                                      String ifVersion) {
+        StringBuilder content = ContentCodec.begin(new StringBuilder(96), "REQUEST_INFO");
+        ContentCodec.param(content, "Film", movieTitle);
+        ContentCodec.param(content, "Date", date);
+        ContentCodec.param(content, "Time", time);
+        ContentCodec.param(content, "Class", seatClass);
+        ContentCodec.param(content, "Tickets", ticketCount);
+        if (ifVersion != null) ContentCodec.param(content, "IfVersion", ifVersion);
+        return content.toString();
+    }
+
+    // Info request menyimpan versinya per kelas; null untuk percakapan selain REQUEST_INFO
+    private static String infoVersionKey(Conversation conversation) {
+        ContentCodec request = ContentCodec.parser().parse(conversation.requestContent);
+        if (!request.hasVerb("REQUEST_INFO")) return null;
+        return conversation.showKey + "|" + request.get("Class", "");
+    }
+
+    // Hanya dipanggil saat providerShards sudah terisi
+    private AID providerFor(String showKey) {
+        return providerShards[EnhancedProviderAgent.shardFor(showKey, providerShards.length)];
+    }
+
+    // ====================== Shard Table ======================
+    /**
+     * Berlangganan registrasi provider di DF, sekali per agent. DF langsung mengirim registrasi
+     * yang sudah ada lalu setiap perubahan, sehingga tidak ada search DF yang memblokir per request.
+     * Jika tabel belum lengkap setelah {@code SHARD_WAIT_MS}, nama default "provider"/"provider-i"
+     * dipakai; notifikasi DF berikutnya tetap menggantinya.
+     */
+    private void subscribeProviderShards() {
+        DFAgentDescription template = new DFAgentDescription();
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(EnhancedProviderAgent.SERVICE_TYPE);
+        template.addServices(sd);
+        shardSubscription = DFService.createSubscriptionMessage(this, getDefaultDF(), template, null);
+        shardSubscription.setConversationId(SHARD_SUBSCRIPTION);
+        send(shardSubscription);
+
+        addBehaviour(new CyclicBehaviour(this) {
+            private final MessageTemplate subscription = MessageTemplate.MatchConversationId(SHARD_SUBSCRIPTION);
+
+            @Override
+            public void action() {
+                ACLMessage msg = receive(subscription);
+                if (msg == null) {
+                    block();
+                    return;
+                }
+                // AGREE dari DF tidak membawa registrasi
+                if (msg.getPerformative() != ACLMessage.INFORM) return;
+                try {
+                    for (DFAgentDescription registration : DFService.decodeNotification(msg.getContent())) {
+                        int[] shard = shardProperties(registration);
+                        // Notifikasi tanpa service berarti provider keluar dari DF
+                        if (shard == null) registeredShards.remove(registration.getName());
+                        else registeredShards.put(registration.getName(), shard);
+                    }
+                } catch (FIPAException e) {
+                    System.err.println("Customer: Notifikasi DF tidak dapat dibaca: " + e.getMessage());
+                    return;
+                }
+                rebuildShardTable();
+            }
+        });
+        addBehaviour(new ShardWaitBehaviour());
+    }
+
+    private class ShardWaitBehaviour extends WakerBehaviour {
+        ShardWaitBehaviour() {
+            super(EnhancedCustomerAgent.this, SHARD_WAIT_MS);
         }
+
+        @Override
+        protected void onWake() {
+            if (providerShards != null) return;
+            System.out.println("Customer: Shard provider belum lengkap di DF, memakai nama default");
+            setProviderShards(defaultProviderShards(expectedShardCount));
+        }
+    }
+
+    /**
+     * Membangun tabel shard dari registrasi DF: jumlah shard terbesar yang semua indeksnya
+     * terdaftar. Jika belum ada yang lengkap, request berikutnya ditahan sampai notifikasi
+     * berikutnya atau sampai waktu tunggu habis.
+     */
+    private void rebuildShardTable() {
+        AID[] best = null;
+        for (int[] candidate : registeredShards.values()) {
+            int count = candidate[1];
+            if (best != null && best.length >= count) continue;
+            AID[] shards = new AID[count];
+            int found = 0;
+            for (Map.Entry<AID, int[]> entry : registeredShards.entrySet()) {
+                int[] shard = entry.getValue();
+                if (shard[1] == count && shards[shard[0]] == null) {
+                    shards[shard[0]] = entry.getKey();
+                    found++;
+                }
+            }
+            if (found == count) best = shards;
+        }
+        if (best == null) {
+            if (providerShards != null) addBehaviour(new ShardWaitBehaviour());
+            providerShards = null;
+            return;
+        }
+        if (providerShards == null || !Arrays.equals(providerShards, best)) {
+            System.out.println("Customer: " + best.length + " shard provider ditemukan di DF");
+        }
+        setProviderShards(best);
+    }
+
+    void setProviderShards(AID[] shards) {
+        providerShards = shards;
+        List<Conversation> pending = new ArrayList<>(awaitingShards);
+        List<String> snapshots = new ArrayList<>(awaitingSnapshots);
+        awaitingShards.clear();
+        awaitingSnapshots.clear();
+        for (Conversation conversation : pending) resend(conversation);
+        for (String showKey : snapshots) requestSeatSnapshot(showKey);
+    }
+
+    /**
+     * @return {shard-index, shard-count} dari service movie-booking, atau null jika tidak ada
+     */
+    private static int[] shardProperties(DFAgentDescription registration) {
+        Iterator<?> services = registration.getAllServices();
+        while (services.hasNext()) {
+            ServiceDescription service = (ServiceDescription) services.next();
+            int index = -1;
+            int count = -1;
+            Iterator<?> properties = service.getAllProperties();
+            while (properties.hasNext()) {
+                Property property = (Property) properties.next();
+                if (EnhancedProviderAgent.PROPERTY_SHARD_INDEX.equals(property.getName())) {
+                    index = Integer.parseInt(String.valueOf(property.getValue()));
+                } else if (EnhancedProviderAgent.PROPERTY_SHARD_COUNT.equals(property.getName())) {
+                    count = Integer.parseInt(String.valueOf(property.getValue()));
+                }
+            }
+            if (count > 0 && index >= 0 && index < count) return new int[]{index, count};
+        }
+        return null;
+    }
+
+    private static AID[] defaultProviderShards(int shardCount) {
+        AID[] shards = new AID[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new AID(EnhancedProviderAgent.shardName(i, shardCount), AID.ISLOCALNAME);
+        }
+        return shards;
+    }
+
+    private void setState(Conversation conversation, AgentState newState) {
+        AgentState oldState = conversation.state;
+        conversation.state = newState;
+        if (!conversation.interactive) return;
+        System.out.println("[STATE] " + conversation.id + " berubah ke: " + newState);
+
+        // Log state transition
+        EnhancedLoggerUtil.logMessage(getLocalName(), "SYSTEM", "STATE_CHANGE", conversation.id,
+                "State changed from " + oldState + " to " + newState);
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,7 @@
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.concurrent.locks.ReentrantLock;
@@ -8,6 +10,9 @@ public class EnhancedLoggerUtil {
     private static final String CSV_FILE_NAME = generateLogFileName();
     private static boolean csvInitialized = false;
     private static final ReentrantLock csvLock = new ReentrantLock();
+    // Dibuka sekali dan dipakai ulang; membuka file per pesan menjadi bottleneck saat provider memakai worker
+    private static Writer csvWriter;
+    private static final DateTimeFormatter CSV_TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     private static String generateLogFileName() {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
@@ -30,29 +35,34 @@ public class EnhancedLoggerUtil {
         logToCSV(sender, receiver, performative, conversationId, content, level);
 
         // Console output for debugging
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        String timestamp = LocalDateTime.now().format(CSV_TIMESTAMP);
         System.out.printf("[%s] %s -> %s: %s (Conv: %s) [%s]%n",
                 timestamp, sender, receiver, performative, conversationId, level);
     }
 
     private static void logToCSV(String sender, String receiver, String performative,
                                  String conversationId, String content, LogLevel level) {
+        // Format baris di luar lock; lock hanya melindungi penulisan ke file
+        String timestamp = LocalDateTime.now().format(CSV_TIMESTAMP);
+        String escapedContent = content.replace(",", ";").replace("\n", " ");
+        String line = timestamp + "," + sender + "," + receiver + "," + performative + "," + conversationId + "," +
+                escapedContent + "," + level + "\n";
+
         csvLock.lock();
-        try (FileWriter fw = new FileWriter(CSV_FILE_NAME, true)) {
+        try {
+            if (csvWriter == null) {
+                csvWriter = new BufferedWriter(new FileWriter(CSV_FILE_NAME, true));
+            }
             if (!csvInitialized) {
-                fw.append("timestamp,sender,receiver,performative,conversationId,content,level\n");
+                csvWriter.append("timestamp,sender,receiver,performative,conversationId,content,level\n");
                 csvInitialized = true;
             }
-
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            String escapedContent = content.replace(",", ";").replace("\n", " ");
-
-            fw.append(String.format("%s,%s,%s,%s,%s,%s,%s\n",
-                    timestamp, sender, receiver, performative, conversationId, escapedContent, level));
-            fw.flush();
+            csvWriter.append(line);
+            csvWriter.flush();
         } catch (IOException e) {
             System.err.println("Error writing to CSV log: " + e.getMessage());
             e.printStackTrace();
+            csvWriter = null;
         } finally {
             csvLock.unlock();
         }
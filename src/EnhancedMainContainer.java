@@ -18,7 +18,7 @@ public class EnhancedMainContainer extends JFrame {
 
     private Runtime rt;
     private AgentContainer container;
-    private AgentController providerAgent;
+    private AgentController[] providerAgents;
     private AgentController customerAgent;
     private BookingGUI bookingGUI;
 
@@ -111,19 +111,26 @@ public class EnhancedMainContainer extends JFrame {
             // Initialize JADE Runtime
             rt = Runtime.instance();
             Profile p = new ProfileImpl();
+            // Topic dipakai provider untuk mempublikasikan delta ketersediaan kursi
+            p.setParameter(Profile.SERVICES, "jade.core.messaging.TopicManagementService;" + Profile.DEFAULT_SERVICES);
             container = rt.createMainContainer(p);
 
             logMessage("Main container created successfully");
 
-            // Create and start Provider Agent
-            providerAgent = container.createNewAgent("provider",
-                    EnhancedProviderAgent.class.getName(), null);
-            providerAgent.start();
-            logMessage("Provider Agent started successfully");
+            // Create and start Provider shards; setiap shard memiliki subset pertunjukan
+            int shardCount = Math.max(1, Integer.getInteger("booking.provider.shards", 1));
+            providerAgents = new AgentController[shardCount];
+            for (int i = 0; i < shardCount; i++) {
+                String name = EnhancedProviderAgent.shardName(i, shardCount);
+                providerAgents[i] = container.createNewAgent(name,
+                        EnhancedProviderAgent.class.getName(), new Object[]{i, shardCount});
+                providerAgents[i].start();
+            }
+            logMessage("Provider Agent started successfully (" + shardCount + " shard)");
 
             // Create and start Customer Agent
             customerAgent = container.createNewAgent("customer",
-                    EnhancedCustomerAgent.class.getName(), null);
+                    EnhancedCustomerAgent.class.getName(), new Object[]{shardCount});
             customerAgent.start();
             logMessage("Customer Agent started successfully");
 
@@ -153,8 +160,10 @@ public class EnhancedMainContainer extends JFrame {
                 logMessage("Customer Agent stopped");
             }
 
-            if (providerAgent != null) {
-                providerAgent.kill();
+            if (providerAgents != null) {
+                for (AgentController providerAgent : providerAgents) {
+                    providerAgent.kill();
+                }
                 logMessage("Provider Agent stopped");
             }
 
@@ -184,10 +193,10 @@ public class EnhancedMainContainer extends JFrame {
             // Pass customer agent to BookingGUI
             bookingGUI = new BookingGUI(customerAgent);
             
-            // Get the actual agent instance and set it in GUI
+            // Hubungkan tampilan kursi GUI ke replika ketersediaan dan booking asinkron di customer agent
             try {
-                EnhancedCustomerAgent agentInstance = customerAgent.getO2AInterface(EnhancedCustomerAgent.class);
-                bookingGUI.setCustomerAgent(agentInstance);
+                bookingGUI.setSeatFeed(customerAgent.getO2AInterface(EnhancedCustomerAgent.SeatFeed.class));
+                bookingGUI.setBookingService(customerAgent.getO2AInterface(EnhancedCustomerAgent.BookingService.class));
             } catch (Exception e) {
                 System.err.println("Warning: Could not get agent instance: " + e.getMessage());
             }
@@ -213,9 +222,6 @@ public class EnhancedMainContainer extends JFrame {
     }
 
     public static void main(String[] args) {
-        // Set JADE properties for better console output
-        System.setProperty("jade.core.messaging.TopicManagementService", "jade.core.messaging.TopicManagementService");
-
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -1,153 +1,729 @@
+import jade.content.lang.Codec;
+import jade.content.lang.leap.LEAPCodec;
+import jade.content.onto.OntologyException;
+import jade.core.AID;
 import jade.core.Agent;
+import jade.core.ServiceException;
 import jade.core.behaviours.CyclicBehaviour;
+import jade.core.behaviours.TickerBehaviour;
+import jade.core.messaging.TopicManagementHelper;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
 import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.Random;
 
 public class EnhancedProviderAgent extends Agent {
-    private final ConcurrentHashMap<String, SeatInfo> seats = new ConcurrentHashMap<>();
-    private final ReentrantReadWriteLock seatLock = new ReentrantReadWriteLock();
+    // Sharding: setiap provider memiliki subset pertunjukan, didaftarkan ke DF agar customer bisa merutekan
+    public static final String SERVICE_TYPE = "movie-booking";
+    public static final String PROPERTY_SHARD_INDEX = "shard-index";
+    public static final String PROPERTY_SHARD_COUNT = "shard-count";
+    private int shardIndex = 0;
+    private int shardCount = 1;
+
+    // Satu inventaris per pertunjukan (film, tanggal, jam), dibuat saat pertama kali diakses.
+    // Setiap inventaris punya bitmap atomik sendiri sehingga pertunjukan berbeda tidak berbagi state.
+    private final ConcurrentHashMap<String, SeatInventory> shows = new ConcurrentHashMap<>();
     private final AtomicInteger transactionCounter = new AtomicInteger(0);
+    // Prefix token versi ketersediaan; unik per instance agar versi dari sebelum restart tidak pernah cocok
+    private final String versionEpoch = Long.toString(System.currentTimeMillis(), 36);
     private final Random random = new Random();
 
-    private static class SeatInfo {
-        boolean available;
-        int price;
-        String seatClass;
-        long lastChecked;
-        final ReentrantLock lock = new ReentrantLock();
+    // Worker pool opsional: loop receive hanya men-dispatch pesan, pemrosesan berjalan paralel.
+    // 0 = semua pesan diproses di thread agent seperti sebelumnya. Per instance agar test bisa mengaturnya.
+    int workerThreads = Integer.getInteger("booking.provider.workers", 0);
+    private static final int WORKER_QUEUE_CAPACITY = Integer.getInteger("booking.provider.workerQueue", 1024);
+    private ThreadPoolExecutor workers;
+    private final Object sendLock = new Object();
+
+    // Microbatch booking di thread agent (tanpa worker, journal aktif): BOOKING yang menunggu di
+    // mailbox diproses bersama, di-journal dengan satu flush, lalu semua balasan dikirim.
+    // Jendela tunggu hanya dipakai jika batch sebelumnya menunjukkan burst. Ukuran 1 = dimatikan.
+    // Per instance (bukan static) agar test bisa mengatur ukuran dan jendela per provider.
+    int batchMaxSize = Integer.getInteger("booking.provider.batchMaxSize", 128);
+    long batchWindowMs = Long.getLong("booking.provider.batchWindowMs", 1L);
+    private static final MessageTemplate BOOKING_REQUEST = new MessageTemplate(msg ->
+            msg.getPerformative() == ACLMessage.REQUEST && msg.getOntology() == null
+                    && msg.getContent() != null && msg.getContent().startsWith("BOOKING:"));
+    // Balasan BOOKING per RequestId (idempotency key) untuk menjawab retry tanpa menyentuh inventaris
+    private final ReplyCache replyCache = new ReplyCache(
+            Integer.getInteger("booking.provider.replyCacheSize", 10000),
+            Long.getLong("booking.provider.replyCacheTtlMs", 600000L));
+
+    // Hanya diakses thread agent
+    private Microbatch microbatch;
+    private double averageBatchSize = 1;
+
+    // Booking "Seats=BEST,Count=n": blok n kursi bersebelahan dipilih oleh provider
+    private static final String BEST_AVAILABLE = "BEST";
+    private static final int MAX_BLOCK_SIZE = 20;
+    // DISCONFIRM booking membawa kursi yang masih tersedia di kelasnya (maksimal sebanyak ini),
+    // jadi customer bisa langsung memilih ulang tanpa QUERY_IF atau ALTERNATIVE terpisah
+    private static final int CONFLICT_SEAT_LIMIT = 20;
+    static final String BOOKING_CONFLICT = "Booking gagal! Kursi tidak tersedia atau sudah terpesan. Silakan pilih kursi lain.";
+    static final String VERSION_CONFLICT = "Booking gagal! Ketersediaan sudah berubah sejak versi yang diminta.";
+
+    // BATCH_BOOKING:item|item|... untuk box office dan partner; satu balasan berisi hasil per item
+    private static final char BATCH_ITEM_SEPARATOR = '|';
+    static final int MAX_BATCH_ITEMS = 1000;
+
+    // Delta ketersediaan kursi per pertunjukan dipublikasikan ke topic "seats:<Film|Date|Time>"
+    // agar customer/GUI tidak perlu polling; 0 = dimatikan
+    public static final String SEAT_TOPIC_PREFIX = "seats:";
+    private static final long DELTA_INTERVAL_MS = Long.getLong("booking.provider.deltaIntervalMs", 100L);
+    private TopicManagementHelper topicHelper;
+
+    // Hold kursi sementara (HOLD -> CONFIRM_HOLD / RELEASE / kedaluwarsa)
+    private static final long HOLD_TICK_MS = 100;
+    private static final int HOLD_WHEEL_SIZE = 1024;
+    private static final int DEFAULT_HOLD_TTL_SECONDS = 120;
+    private static final int MAX_HOLD_TTL_SECONDS = 900;
+    private final ConcurrentHashMap<String, SeatHold> holds = new ConcurrentHashMap<>();
+    private final AtomicInteger holdCounter = new AtomicInteger(0);
+    private final HashedTimingWheel<SeatHold> holdWheel =
+            new HashedTimingWheel<>(HOLD_TICK_MS, HOLD_WHEEL_SIZE, System.currentTimeMillis());
+
+    // Write-ahead journal transisi kursi; null jika dimatikan (-Dbooking.journal.enabled=false)
+    private BookingJournal journal;
+    private final Map<Long, SeatHold> recoveredHolds = new HashMap<>();
+
+    // Snapshot berkala di background; segment journal sebelum snapshot dihapus
+    private static final long SNAPSHOT_INTERVAL_MS = Long.getLong("booking.snapshot.intervalMs", 60000L);
+    private File snapshotFile;
+    private ExecutorService snapshotExecutor;
+    private final AtomicBoolean snapshotRunning = new AtomicBoolean(false);
+    private final Object snapshotLock = new Object();
+    // Penjualan memegang read lock dari markSold sampai record-nya durable atau dibatalkan dengan
+    // cancelSale; snapshot menyalin bitmap di bawah write lock sehingga tidak memuat penjualan yang batal
+    private final ReentrantReadWriteLock saleLock = new ReentrantReadWriteLock();
 
-        SeatInfo(boolean available, int price, String seatClass) {
-            this.available = available;
-            this.price = price;
-            this.seatClass = seatClass;
-            this.lastChecked = System.currentTimeMillis();
+    /**
+     * Booking dalam satu microbatch: kursi sudah terjual di inventaris, sedangkan
+     * record journal dan balasan ditahan sampai {@link #commit()}.
+     */
+    private class Microbatch {
+        private final List<String> showKeys = new ArrayList<>();
+        private final List<SeatInventory> inventories = new ArrayList<>();
+        private final List<int[]> seats = new ArrayList<>();
+        private final List<Long> transactions = new ArrayList<>();
+        private final List<ACLMessage> replies = new ArrayList<>();
+        private final List<String> requestKeys = new ArrayList<>();
+
+        void addBooking(long transactionNumber, String showKey, SeatInventory inventory, int[] seatIndices) {
+            transactions.add(transactionNumber);
+            showKeys.add(showKey);
+            inventories.add(inventory);
+            seats.add(seatIndices);
+        }
+
+        /**
+         * Menulis semua record dengan satu flush, lalu mengirim balasan. Jika journal gagal,
+         * semua kursi dikembalikan dan balasan CONFIRM diganti FAILURE.
+         */
+        void commit() {
+            IOException failure = null;
+            if (!transactions.isEmpty()) {
+                try {
+                    long lastSeq = journal.appendBatch(j -> {
+                        for (int i = 0; i < transactions.size(); i++) {
+                            j.append(BookingJournal.BOOK, transactions.get(i), 0, showKeys.get(i), seats.get(i));
+                        }
+                    });
+                    journal.awaitDurable(lastSeq);
+                } catch (IOException e) {
+                    failure = e;
+                    for (int i = 0; i < seats.size(); i++) {
+                        inventories.get(i).cancelSale(seats.get(i));
+                    }
+                    // Balasan yang sudah di-cache belum durable; retry harus dieksekusi ulang
+                    for (String key : requestKeys) {
+                        replyCache.invalidate(key);
+                    }
+                }
+            }
+            for (ACLMessage reply : replies) {
+                if (failure != null && reply.getPerformative() == ACLMessage.CONFIRM) {
+                    reply.setPerformative(ACLMessage.FAILURE);
+                    reply.setContent("Error: Booking tidak dapat disimpan: " + failure.getMessage());
+                }
+                sendNow(reply);
+            }
+        }
+    }
+
+    private static class SeatHold {
+        static final int HELD = 0;
+        static final int CONFIRMED = 1;
+        static final int RELEASED = 2;
+        static final int EXPIRED = 3;
+
+        final long holdNumber;
+        final String holdId;
+        final String showKey;
+        final SeatInventory inventory;
+        final int[] seats;
+        final String seatList;
+        final AtomicInteger state = new AtomicInteger(HELD);
+        volatile HashedTimingWheel.Timeout<SeatHold> timeout;
+
+        SeatHold(long holdNumber, String showKey, SeatInventory inventory, int[] seats, String seatList) {
+            this.holdNumber = holdNumber;
+            this.holdId = "HOLD_" + holdNumber;
+            this.showKey = showKey;
+            this.inventory = inventory;
+            this.seats = seats;
+            this.seatList = seatList;
         }
     }
 
     @Override
     protected void setup() {
-        System.out.println("EnhancedProviderAgent started: " + getLocalName());
-        initializeSeats();
+        Object[] args = getArguments();
+        if (args != null && args.length >= 2) {
+            setShard(Integer.parseInt(String.valueOf(args[0])), Integer.parseInt(String.valueOf(args[1])));
+        }
+        System.out.println("EnhancedProviderAgent started: " + getLocalName() +
+                (shardCount > 1 ? " (shard " + shardIndex + "/" + shardCount + ")" : ""));
+
+        // Rebuild inventory from the latest snapshot plus the journal tail before accepting requests
+        if (Boolean.parseBoolean(System.getProperty("booking.journal.enabled", "true"))
+                && !recoverInventory(new File(System.getProperty("booking.journal.dir", "journal"), getLocalName()))) {
+            doDelete();
+            return;
+        }
+
+        startWorkers();
+        // Request bertipe (MovieBookingOntology, codec biner atau LEAP) diterima di samping protokol string
+        getContentManager().registerLanguage(new BookingBinaryCodec());
+        getContentManager().registerLanguage(new LEAPCodec());
+        getContentManager().registerOntology(MovieBookingOntology.getInstance());
 
         addBehaviour(new HandleRequestsBehaviour());
 
         // Add periodic seat availability check
         addBehaviour(new PeriodicSeatCheckBehaviour());
+
+        // Drive hold expiry from the timing wheel
+        addBehaviour(new HoldExpiryBehaviour());
+
+        if (DELTA_INTERVAL_MS > 0) {
+            try {
+                topicHelper = (TopicManagementHelper) getHelper(TopicManagementHelper.SERVICE_NAME);
+                addBehaviour(new SeatDeltaBehaviour());
+            } catch (ServiceException e) {
+                System.out.println("Provider: TopicManagementService tidak aktif, delta kursi tidak dipublikasikan");
+            }
+        }
+
+        if (journal != null) {
+            snapshotExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "snapshot-" + getLocalName());
+                thread.setDaemon(true);
+                return thread;
+            });
+            addBehaviour(new SnapshotBehaviour());
+        }
+
+        registerShard();
+    }
+
+    private void registerShard() {
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(SERVICE_TYPE);
+        sd.setName(getLocalName());
+        sd.addProperties(new Property(PROPERTY_SHARD_INDEX, String.valueOf(shardIndex)));
+        sd.addProperties(new Property(PROPERTY_SHARD_COUNT, String.valueOf(shardCount)));
+        dfd.addServices(sd);
+        try {
+            DFService.register(this, dfd);
+        } catch (FIPAException e) {
+            // Tanpa DF customer tetap bisa memakai nama agent "provider"/"provider-<i>"
+            System.err.println("Provider: Gagal mendaftar ke DF: " + e.getMessage());
+        }
+    }
+
+    // Membuat worker pool jika workerThreads > 0
+    void startWorkers() {
+        if (workerThreads <= 0) return;
+        AtomicInteger workerNumber = new AtomicInteger();
+        // Antrian terbatas; jika penuh, thread agent memproses sendiri (backpressure ke loop receive)
+        workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(WORKER_QUEUE_CAPACITY), r -> {
+                    Thread thread = new Thread(r, getLocalName() + "-worker-" + workerNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        System.out.println("Provider: " + workerThreads + " worker thread untuk memproses request");
+    }
+
+    // Menunggu semua request yang sudah di-dispatch ke worker selesai diproses
+    void stopWorkers() {
+        if (workers == null) return;
+        workers.shutdown();
+        try {
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    protected void takeDown() {
+        try {
+            DFService.deregister(this);
+        } catch (FIPAException e) {
+            // Agent mungkin belum terdaftar
+        }
+        stopWorkers();
+        if (journal != null) {
+            snapshotExecutor.shutdown();
+            try {
+                snapshotExecutor.awaitTermination(30, TimeUnit.SECONDS);
+                // Snapshot terakhir agar restart terencana tidak perlu me-replay journal
+                takeSnapshot();
+            } catch (IOException e) {
+                System.err.println("Provider: Gagal menulis snapshot akhir: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Provider: Gagal menutup journal: " + e.getMessage());
+            }
+        }
+        System.out.println("EnhancedProviderAgent " + getLocalName() + " terminated");
+    }
+
+    /**
+     * Memulihkan inventaris dari snapshot dan journal di {@code directory}.
+     *
+     * @return false jika provider tidak boleh berjalan: snapshot hilang atau rusak sementara
+     *         segment journal awal sudah dihapus oleh kompaksi, sehingga replay sisa journal
+     *         akan menjual ulang kursi yang sudah terjual, layout kursi sebuah pertunjukan tidak
+     *         cocok dengan snapshot, atau journal tidak dapat dibuka
+     *         (booking tanpa journal hilang saat restart)
+     */
+    boolean recoverInventory(File directory) {
+        snapshotFile = new File(directory, "snapshot.bin");
+        try {
+            long start = System.currentTimeMillis();
+            long firstSegment = 1;
+            InventorySnapshot snapshot = null;
+            try {
+                snapshot = InventorySnapshot.read(snapshotFile);
+            } catch (IOException e) {
+                // Segment lama hanya dihapus setelah snapshot berhasil ditulis; replay apa yang tersisa
+                System.err.println("Provider: Snapshot tidak dapat dibaca, replay seluruh journal: " + e.getMessage());
+            }
+            long oldestSegment = BookingJournal.oldestSegment(directory);
+            if (snapshot == null && oldestSegment > 1) {
+                System.err.println("Provider: Snapshot tidak tersedia dan journal sebelum segment " + oldestSegment +
+                        " sudah dihapus; provider tidak dijalankan. Pulihkan " + snapshotFile + " terlebih dahulu");
+                EnhancedLoggerUtil.logError(getLocalName(), "SYSTEM",
+                        "Snapshot missing and journal compacted before segment " + oldestSegment, "system");
+                return false;
+            }
+            if (snapshot != null) {
+                for (Map.Entry<String, long[]> entry : snapshot.soldWords.entrySet()) {
+                    SeatInventory inventory = getShowInventory(entry.getKey());
+                    if (snapshot.seatCounts.get(entry.getKey()) != inventory.getSeatCount()) {
+                        // Segment sebelum snapshot sudah dihapus, jadi kursi show ini tidak bisa dibangun
+                        // ulang dari journal saja; melewatinya akan membuka lagi kursi yang sudah terjual
+                        System.err.println("Provider: Layout kursi " + entry.getKey() + " (" + inventory.getSeatCount() +
+                                " kursi) tidak cocok dengan snapshot (" + snapshot.seatCounts.get(entry.getKey()) +
+                                " kursi); provider tidak dijalankan");
+                        EnhancedLoggerUtil.logError(getLocalName(), "SYSTEM",
+                                "Seat layout of " + entry.getKey() + " does not match snapshot", "system");
+                        return false;
+                    }
+                    inventory.restoreSold(entry.getValue());
+                }
+                raiseTo(transactionCounter, snapshot.transactionCounter);
+                raiseTo(holdCounter, snapshot.holdCounter);
+                firstSegment = snapshot.replayFromSegment;
+            }
+
+            journal = BookingJournal.open(directory, firstSegment, BookingJournal.Config.fromSystemProperties(),
+                    this::recoverTransition);
+
+            // Hold yang belum dikonfirmasi saat agent mati tidak dipulihkan; kursinya dilepas
+            long lastSeq = 0;
+            for (SeatHold hold : recoveredHolds.values()) {
+                hold.inventory.release(hold.seats);
+                lastSeq = journal.append(BookingJournal.RELEASE, hold.holdNumber, 0, hold.showKey, hold.seats);
+            }
+            if (lastSeq > 0) journal.awaitDurable(lastSeq);
+
+            System.out.println("Provider: Inventaris dipulihkan dari " + directory + " dalam " +
+                    (System.currentTimeMillis() - start) + " ms (snapshot: " + (snapshot != null ? "ya" : "tidak") +
+                    ", replay dari segment " + firstSegment + ", " + shows.size() + " pertunjukan, " +
+                    transactionCounter.get() + " transaksi, " + recoveredHolds.size() + " hold dilepas)");
+            recoveredHolds.clear();
+        } catch (IOException e) {
+            System.err.println("Provider: Gagal membuka journal " + directory + ": " + e.getMessage() +
+                    "; provider tidak dijalankan");
+            EnhancedLoggerUtil.logError(getLocalName(), "SYSTEM", "Journal unavailable: " + e.getMessage(), "system");
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException closeError) {
+                    // Journal sudah gagal; provider tetap tidak dijalankan
+                }
+                journal = null;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // Replay bersifat idempotent (set state, bukan toggle) agar aman di atas snapshot yang diambil saat booking berjalan
+    private void recoverTransition(byte type, long id, long ref, String showKey, int[] seats) {
+        SeatInventory inventory = getShowInventory(showKey);
+        switch (type) {
+            case BookingJournal.BOOK:
+                inventory.markSold(seats);
+                raiseTo(transactionCounter, id);
+                break;
+            case BookingJournal.HOLD:
+                inventory.reserve(seats);
+                recoveredHolds.put(id, new SeatHold(id, showKey, inventory, seats, ""));
+                raiseTo(holdCounter, id);
+                break;
+            case BookingJournal.CONFIRM_HOLD:
+                inventory.markSold(seats);
+                recoveredHolds.remove(ref);
+                raiseTo(transactionCounter, id);
+                break;
+            case BookingJournal.RELEASE:
+                if (recoveredHolds.remove(id) != null) {
+                    inventory.release(seats);
+                }
+                break;
+        }
+    }
+
+    private static void raiseTo(AtomicInteger counter, long value) {
+        if (counter.get() < value) counter.set((int) value);
+    }
+
+    /**
+     * Menulis snapshot inventaris, lalu menghapus segment journal yang sudah tercakup.
+     *
+     * Journal dirotasi dulu; setiap record di segment lama sudah menandai kursinya
+     * terjual sebelum di-append, jadi pasti terlihat di salinan bitmap setelahnya.
+     * Bitmap disalin di bawah write lock {@code saleLock}: booking hanya berhenti selama
+     * penjualan yang sedang berjalan selesai dan bitmap disalin, dan salinan tidak pernah
+     * memuat kursi yang kemudian dikembalikan karena journal gagal.
+     * Record di segment baru di-replay secara idempotent di atas snapshot.
+     */
+    private void takeSnapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long start = System.currentTimeMillis();
+            long replayFrom = journal.rotate();
+            InventorySnapshot snapshot;
+            saleLock.writeLock().lock();
+            try {
+                snapshot = InventorySnapshot.capture(replayFrom, transactionCounter.get(), holdCounter.get(), shows);
+            } finally {
+                saleLock.writeLock().unlock();
+            }
+            long size = snapshot.write(snapshotFile);
+            journal.deleteSegmentsBefore(replayFrom);
+            System.out.println("Provider: Snapshot " + snapshotFile + " ditulis (" + size + " byte, " + shows.size() +
+                    " pertunjukan) dalam " + (System.currentTimeMillis() - start) + " ms");
+        }
     }
 
-    private void initializeSeats() {
-        // VIP seats
-        seats.put("A1", new SeatInfo(true, 150000, "VIP"));
-        seats.put("A2", new SeatInfo(true, 150000, "VIP"));
-        seats.put("A3", new SeatInfo(true, 150000, "VIP"));
+    private void journalAndWait(byte type, long id, long ref, String showKey, int[] seats) throws IOException {
+        if (journal != null) {
+            journal.awaitDurable(journal.append(type, id, ref, showKey, seats));
+        }
+    }
 
-        // Regular seats
-        seats.put("B1", new SeatInfo(true, 100000, "Regular"));
-        seats.put("B2", new SeatInfo(true, 100000, "Regular"));
-        seats.put("B3", new SeatInfo(true, 100000, "Regular"));
-        seats.put("B4", new SeatInfo(true, 100000, "Regular"));
+    /**
+     * Memasang journal yang sudah dibuka tanpa recovery, untuk provider yang tidak dijalankan
+     * lewat container (test). Harus dipanggil sebelum request pertama diproses.
+     */
+    void setJournal(BookingJournal journal) {
+        this.journal = journal;
+    }
 
-        // Economy seats
-        seats.put("C1", new SeatInfo(true, 75000, "Economy"));
-        seats.put("C2", new SeatInfo(true, 75000, "Economy"));
-        seats.put("C3", new SeatInfo(true, 75000, "Economy"));
-        seats.put("C4", new SeatInfo(true, 75000, "Economy"));
-        seats.put("C5", new SeatInfo(true, 75000, "Economy"));
+    // Rata-rata bergerak ukuran microbatch; jendela tunggu aktif jika >= 2
+    double getAverageBatchSize() {
+        return averageBatchSize;
+    }
 
-        System.out.println("Provider: Kursi diinisialisasi dengan " + seats.size() + " kursi");
+    /**
+     * Jalur kirim tunggal untuk balasan; dipanggil dari thread agent maupun worker.
+     */
+    private void sendReply(ACLMessage reply) {
+        if (microbatch != null) {
+            microbatch.replies.add(reply);
+            return;
+        }
+        sendNow(reply);
     }
 
-    private class HandleRequestsBehaviour extends CyclicBehaviour {
+    private void sendNow(ACLMessage reply) {
+        // Balasan untuk request bertipe dikirim sebagai BookingResponse dalam bahasa konten yang sama
+        if (MovieBookingOntology.ONTOLOGY_NAME.equals(reply.getOntology()) && reply.getContent() != null) {
+            ACLMessage typed = (ACLMessage) reply.clone();
+            try {
+                getContentManager().fillContent(typed,
+                        MovieBookingOntology.toResponse(reply.getPerformative(), reply.getContent()));
+                reply = typed;
+            } catch (Codec.CodecException | OntologyException e) {
+                System.err.println("Provider: Balasan dikirim sebagai teks, encode gagal: " + e.getMessage());
+                reply.setOntology(null);
+            }
+        }
+        synchronized (sendLock) {
+            deliver(reply);
+        }
+    }
+
+    // Dipanggil di bawah sendLock; test menimpanya untuk menangkap balasan tanpa container
+    void deliver(ACLMessage reply) {
+        send(reply);
+    }
+
+    public static String showKey(String movieTitle, String date, String time) {
+        return movieTitle + "|" + date + "|" + time;
+    }
+
+    // Shard yang dilayani instance ini; pertunjukan milik shard lain ditolak
+    void setShard(int shardIndex, int shardCount) {
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Shard pemilik pertunjukan. String.hashCode() stabil antar-JVM, jadi customer
+     * dan provider selalu sepakat tanpa koordinasi.
+     */
+    public static int shardFor(String showKey, int shardCount) {
+        return Math.floorMod(showKey.hashCode(), shardCount);
+    }
+
+    public static String shardName(int shardIndex, int shardCount) {
+        return shardCount == 1 ? "provider" : "provider-" + shardIndex;
+    }
+
+    public static String seatTopicName(String showKey) {
+        return SEAT_TOPIC_PREFIX + showKey;
+    }
+
+    /**
+     * Konten "SEAT_DELTA:Film=..,Date=..,Time=..,Version=n[,Full=true],Words=indeks:hex;..."
+     * dengan words dalam format {@link SeatInventory#drainDelta}.
+     */
+    static String seatDeltaContent(String showKey, long version, boolean full, CharSequence words) {
+        StringBuilder content = ContentCodec.begin(new StringBuilder(64 + words.length()), "SEAT_DELTA");
+        appendShowParams(content, showKey);
+        ContentCodec.param(content, "Version", Long.toString(version));
+        if (full) ContentCodec.param(content, "Full", "true");
+        return ContentCodec.param(content, "Words", words).toString();
+    }
+
+    /**
+     * Menulis parameter Film, Date dan Time dari key "Film|Date|Time".
+     */
+    public static StringBuilder appendShowParams(StringBuilder content, String showKey) {
+        int firstBar = showKey.indexOf('|');
+        int secondBar = showKey.indexOf('|', firstBar + 1);
+        ContentCodec.param(content, "Film", showKey.substring(0, firstBar));
+        ContentCodec.param(content, "Date", showKey.substring(firstBar + 1, secondBar));
+        return ContentCodec.param(content, "Time", showKey.substring(secondBar + 1));
+    }
+
+    private SeatInventory getShowInventory(String movieTitle, String date, String time) {
+        return getShowInventory(showKey(movieTitle, date, time));
+    }
+
+    private SeatInventory getShowInventory(String showKey) {
+        return shows.computeIfAbsent(showKey, key -> {
+            // VIP: A1-A3, Regular: B1-B4, Economy: C1-C5
+            SeatInventory inventory = SeatInventory.createDefault();
+            System.out.println("Provider: Kursi diinisialisasi untuk " + key + " dengan " + inventory.getSeatCount() + " kursi");
+            return inventory;
+        });
+    }
+
+    class HandleRequestsBehaviour extends CyclicBehaviour {
         @Override
         public void action() {
             ACLMessage msg = receive();
-            if (msg != null) {
-                processMessage(msg);
-            } else {
+            if (msg == null) {
                 block();
+                return;
+            }
+            if (workers == null) {
+                if (journal != null && batchMaxSize > 1 && BOOKING_REQUEST.match(msg)) {
+                    processMicrobatch(msg);
+                } else {
+                    processMessage(msg);
+                }
+                return;
+            }
+            // Kosongkan antrian pesan sekaligus agar worker tidak menunggu giliran loop agent
+            do {
+                final ACLMessage request = msg;
+                workers.execute(() -> processSafely(request));
+                msg = receive();
+            } while (msg != null);
+        }
+
+        /**
+         * Memproses {@code first} bersama BOOKING lain yang sudah ada di mailbox (maksimal
+         * {@code batchMaxSize}). Saat beban rendah batch berisi satu request dan langsung
+         * di-commit; jika batch terakhir rata-rata berisi lebih dari satu request, provider
+         * menunggu sampai {@code batchWindowMs} untuk request berikutnya.
+         *
+         * @return jumlah request dalam batch
+         */
+        int processMicrobatch(ACLMessage first) {
+            microbatch = new Microbatch();
+            int size = 0;
+            // Kursi batch terjual sebelum record-nya ditulis di commit; snapshot menunggu batch selesai
+            saleLock.readLock().lock();
+            try {
+                processMessage(first);
+                size++;
+                long deadline = System.currentTimeMillis() + (averageBatchSize >= 2 ? batchWindowMs : 0);
+                while (size < batchMaxSize) {
+                    ACLMessage next = receive(BOOKING_REQUEST);
+                    if (next == null) {
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0) break;
+                        next = blockingReceive(BOOKING_REQUEST, remaining);
+                        if (next == null) break;
+                    }
+                    processMessage(next);
+                    size++;
+                }
+            } finally {
+                Microbatch batch = microbatch;
+                microbatch = null;
+                try {
+                    batch.commit();
+                } finally {
+                    saleLock.readLock().unlock();
+                }
+                averageBatchSize = 0.8 * averageBatchSize + 0.2 * size;
+            }
+            return size;
+        }
+
+        private void processSafely(ACLMessage msg) {
+            try {
+                processMessage(msg);
+            } catch (RuntimeException e) {
+                System.err.println("Provider: Error memproses pesan: " + e);
+                EnhancedLoggerUtil.logError(getLocalName(), msg.getSender().getLocalName(),
+                        "Unhandled error: " + e, msg.getConversationId());
+                sendFailureResponse(msg, "Kesalahan internal provider");
             }
         }
 
         private void processMessage(ACLMessage msg) {
+            String content = msg.getContent();
+            if (MovieBookingOntology.ONTOLOGY_NAME.equals(msg.getOntology())) {
+                content = typedContent(msg);
+                if (content == null) return;
+            }
             EnhancedLoggerUtil.logMessage(msg.getSender().getLocalName(), getLocalName(),
                     ACLMessage.getPerformative(msg.getPerformative()),
-                    msg.getConversationId(), msg.getContent());
+                    msg.getConversationId(), content);
 
-            String content = msg.getContent();
+            // Konten di-parse sekali per pesan; parser per thread sehingga aman dipakai worker
+            ContentCodec request = ContentCodec.parser().parse(content);
+
+            // Pertunjukan milik shard lain ditolak agar inventaris dan journal tidak terpecah
+            // (batch diperiksa per item)
+            if (shardCount > 1 && !request.hasVerb("BATCH_BOOKING") && request.has("Film")) {
+                int owner = shardFor(request.showKey(), shardCount);
+                if (owner != shardIndex) {
+                    sendFailureResponse(msg, "Pertunjukan dimiliki oleh " + shardName(owner, shardCount));
+                    return;
+                }
+            }
 
             // Handle different performatives
             if (msg.getPerformative() == ACLMessage.QUERY_IF) {
-                handleSeatAvailabilityQuery(msg);
-            } else if (content.startsWith("REQUEST_INFO:")) {
-                handleInfoRequest(msg);
-            } else if (content.startsWith("BOOKING:")) {
-                handleBookingRequest(msg);
-            } else if (content.startsWith("ALTERNATIVE:")) {
-                handleAlternativeRequest(msg);
+                handleSeatAvailabilityQuery(msg, request);
+            } else if (request.hasVerb("REQUEST_INFO")) {
+                handleInfoRequest(msg, request);
+            } else if (request.hasVerb("BOOKING")) {
+                handleBookingRequest(msg, request);
+            } else if (request.hasVerb("BATCH_BOOKING")) {
+                handleBatchBookingRequest(msg, content);
+            } else if (request.hasVerb("ALTERNATIVE")) {
+                handleAlternativeRequest(msg, request);
+            } else if (request.hasVerb("HOLD")) {
+                handleHoldRequest(msg, request);
+            } else if (request.hasVerb("CONFIRM_HOLD")) {
+                handleConfirmHoldRequest(msg, request);
+            } else if (request.hasVerb("RELEASE")) {
+                handleReleaseHoldRequest(msg, request);
+            } else if (request.hasVerb("SEAT_SNAPSHOT")) {
+                handleSeatSnapshotRequest(msg, request);
             } else {
                 sendFailureResponse(msg, "Format pesan tidak dikenali");
             }
         }
 
-        private void handleInfoRequest(ACLMessage msg) {
-            System.out.println("Provider: Menerima permintaan info film");
-
-            // Parse request
-            String[] parts = msg.getContent().split(":");
-            if (parts.length < 2) {
-                sendFailureResponse(msg, "Format request tidak valid");
-                return;
+        // Action bertipe dikembalikan ke bentuk "VERB:Key=Value" agar semua handler tetap satu jalur
+        private String typedContent(ACLMessage msg) {
+            try {
+                String content = MovieBookingOntology.toContent(getContentManager().extractAbsContent(msg));
+                if (content != null) return content;
+                sendFailureResponse(msg, "Tipe konten tidak didukung");
+            } catch (Codec.CodecException | OntologyException e) {
+                sendFailureResponse(msg, "Konten bertipe tidak valid: " + e.getMessage());
             }
+            return null;
+        }
 
-            String[] params = parts[1].split(",");
-            String movieTitle = "";
-            String date = "";
-            String time = "";
-            String seatClass = "";
-            int ticketCount = 1;
-
-            for (String param : params) {
-                String[] keyValue = param.split("=");
-                if (keyValue.length == 2) {
-                    switch (keyValue[0].trim()) {
-                        case "Film":
-                            movieTitle = keyValue[1].trim();
-                            break;
-                        case "Date":
-                            date = keyValue[1].trim();
-                            break;
-                        case "Time":
-                            time = keyValue[1].trim();
-                            break;
-                        case "Class":
-                            seatClass = keyValue[1].trim();
-                            break;
-                        case "Tickets":
-                            try {
-                                ticketCount = Integer.parseInt(keyValue[1].trim());
-                            } catch (NumberFormatException e) {
-                                ticketCount = 1;
-                            }
-                            break;
-                    }
-                }
-            }
+        private void handleInfoRequest(ACLMessage msg, ContentCodec request) {
+            System.out.println("Provider: Menerima permintaan info film");
+
+            String movieTitle = request.get("Film", "");
+            String date = request.get("Date", "");
+            String time = request.get("Time", "");
+            String seatClass = request.get("Class", "");
+            int ticketCount = request.getInt("Tickets", 1);
 
             // Generate response
-            String response = generateInfoResponse(movieTitle, date, time, seatClass, ticketCount);
+            String response = generateInfoResponse(movieTitle, date, time, seatClass, ticketCount,
+                    request.get("IfVersion", null));
 
             ACLMessage reply = msg.createReply();
             reply.setPerformative(ACLMessage.INFORM);
             reply.setContent(response);
             reply.setInReplyTo(msg.getReplyWith());
 
-            send(reply);
+            sendReply(reply);
 
             EnhancedLoggerUtil.logMessage(getLocalName(), msg.getSender().getLocalName(),
                     "INFORM", msg.getConversationId(), response);
@@ -155,113 +731,327 @@ public class EnhancedProviderAgent extends Agent {
             System.out.println("Provider: Mengirim info opsi film");
         }
 
-        private void handleBookingRequest(ACLMessage msg) {
+        private void handleBookingRequest(ACLMessage msg, ContentCodec request) {
             System.out.println("Provider: Menerima permintaan booking");
 
-            String[] parts = msg.getContent().split(":");
-            if (parts.length < 2) {
-                sendFailureResponse(msg, "Format booking tidak valid");
-                return;
+            // Retry dengan RequestId yang sama dijawab dari cache tanpa menyentuh inventaris
+            String requestKey = request.has("RequestId")
+                    ? msg.getSender().getName() + "/" + request.get("RequestId", "") : null;
+            if (requestKey != null) {
+                ReplyCache.Entry cached = replyCache.begin(requestKey, System.currentTimeMillis());
+                if (cached != null) {
+                    answerFromCache(msg, cached);
+                    return;
+                }
+                if (microbatch != null) microbatch.requestKeys.add(requestKey);
             }
 
-            String[] params = parts[1].split(",");
-            String time = "";
-            String[] requestedSeats = {};
-            String seatClass = "";
-
-            for (String param : params) {
-                String[] keyValue = param.split("=");
-                if (keyValue.length == 2) {
-                    switch (keyValue[0].trim()) {
-                        case "Time":
-                            time = keyValue[1].trim();
-                            break;
-                        case "Seats":
-                            requestedSeats = keyValue[1].trim().split(";");
-                            break;
-                        case "Class":
-                            seatClass = keyValue[1].trim();
-                            break;
-                    }
-                }
+            String movieTitle = request.get("Film", "");
+            String date = request.get("Date", "");
+            String time = request.get("Time", "");
+            String seatClass = request.get("Class", "");
+            int ticketCount = request.getInt("Count", 0);
+
+            // Seats=BEST: provider memilih blok kursi bersebelahan terbaik di kelas yang diminta
+            boolean bestAvailable = request.valueEquals("Seats", BEST_AVAILABLE);
+            if (bestAvailable && (ticketCount <= 0 || ticketCount > MAX_BLOCK_SIZE)) {
+                if (requestKey != null) replyCache.abandon(requestKey);
+                sendFailureResponse(msg, "Count untuk Seats=BEST harus 1-" + MAX_BLOCK_SIZE);
+                return;
             }
 
-            System.out.println("Provider: Processing booking for seats: " + String.join(",", requestedSeats) + 
-                             " in class: " + seatClass + " at time: " + time);
+            String requestedSeats = request.get("Seats", "").replace(';', ',');
+            System.out.println("Provider: Processing booking for seats: " + requestedSeats + 
+                             " in class: " + seatClass + " for " + movieTitle + " on " + date + " at time: " + time);
 
             // Process booking with race condition handling
-            boolean bookingSuccess = processBooking(requestedSeats, seatClass);
+            String showKey = request.showKey();
+            SeatInventory inventory = getShowInventory(showKey);
+            String transactionId = null;
+            // IfVersion: booking optimistik atas state yang dilihat customer. Versi sama berarti langsung
+            // ke klaim; versi lama ditolak dengan satu perbandingan tanpa menyentuh bitmap
+            boolean versionConflict = request.has("IfVersion")
+                    && !versionToken(inventory.getVersion()).equals(request.get("IfVersion", ""));
+            try {
+                if (versionConflict) {
+                    System.out.println("Provider: Versi ketersediaan " + request.get("IfVersion", "") + " sudah berubah");
+                } else if (bestAvailable) {
+                    int[] block = inventory.bookBestBlock(SeatInventory.classOrdinal(seatClass), ticketCount);
+                    transactionId = block != null ? commitBooking(showKey, inventory, block) : null;
+                    if (block != null) requestedSeats = seatList(inventory, block);
+                } else {
+                    transactionId = processBooking(showKey, inventory, request.seatIndices("Seats", inventory));
+                }
+            } catch (IOException e) {
+                if (requestKey != null) replyCache.abandon(requestKey);
+                sendFailureResponse(msg, "Booking tidak dapat disimpan: " + e.getMessage());
+                return;
+            }
 
             ACLMessage reply = msg.createReply();
             reply.setInReplyTo(msg.getReplyWith());
             
-            if (bookingSuccess) {
-                String transactionId = "TXN_" + transactionCounter.incrementAndGet();
+            if (transactionId != null) {
                 reply.setPerformative(ACLMessage.CONFIRM);
                 reply.setContent("Booking berhasil! Transaction ID: " + transactionId +
-                        ", Kursi: " + String.join(",", requestedSeats) +
+                        ", Kursi: " + requestedSeats +
                         ", Waktu: " + time);
-                System.out.println("Provider: Booking successful for seats: " + String.join(",", requestedSeats));
+                System.out.println("Provider: Booking successful for seats: " + requestedSeats);
             } else {
+                int classOrdinal = SeatInventory.classOrdinal(seatClass);
+                if (classOrdinal < 0 && !bestAvailable) {
+                    int[] seats = request.seatIndices("Seats", inventory);
+                    if (seats != null) classOrdinal = inventory.getClassOrdinal(seats[0]);
+                }
+                SeatView view = inventory.view();
                 reply.setPerformative(ACLMessage.DISCONFIRM);
-                reply.setContent("Booking gagal! Kursi tidak tersedia atau sudah terpesan. " +
-                        "Silakan pilih kursi lain.");
-                System.out.println("Provider: Booking failed for seats: " + String.join(",", requestedSeats));
+                reply.setContent(conflictContent(versionConflict ? VERSION_CONFLICT : BOOKING_CONFLICT,
+                        view, classOrdinal, versionToken(view.getVersion())));
+                System.out.println("Provider: Booking failed for seats: " + requestedSeats);
             }
 
-            send(reply);
+            if (requestKey != null) replyCache.complete(requestKey, reply.getPerformative(), reply.getContent());
+            sendReply(reply);
 
             EnhancedLoggerUtil.logMessage(getLocalName(), msg.getSender().getLocalName(),
                     ACLMessage.getPerformative(reply.getPerformative()),
                     msg.getConversationId(), reply.getContent());
         }
 
-        private void handleAlternativeRequest(ACLMessage msg) {
+        private void answerFromCache(ACLMessage msg, ReplyCache.Entry cached) {
+            if (cached.isPending()) {
+                // Request asli masih diproses; balasannya dikirim ke percakapan yang sama
+                System.out.println("Provider: Booking duplikat masih diproses, diabaikan");
+                return;
+            }
+            ACLMessage reply = msg.createReply();
+            reply.setPerformative(cached.getPerformative());
+            reply.setContent(cached.getContent());
+            reply.setInReplyTo(msg.getReplyWith());
+
+            sendReply(reply);
+
+            EnhancedLoggerUtil.logMessage(getLocalName(), msg.getSender().getLocalName(),
+                    ACLMessage.getPerformative(reply.getPerformative()),
+                    msg.getConversationId(), "(cache) " + reply.getContent());
+            System.out.println("Provider: Booking duplikat dijawab dari cache");
+        }
+
+        private void handleBatchBookingRequest(ACLMessage msg, String content) {
+            String result;
+            try {
+                result = processBatch(content);
+            } catch (IllegalArgumentException e) {
+                sendFailureResponse(msg, e.getMessage());
+                return;
+            } catch (IOException e) {
+                sendFailureResponse(msg, "Batch tidak dapat disimpan: " + e.getMessage());
+                return;
+            }
+
+            ACLMessage reply = msg.createReply();
+            reply.setPerformative(ACLMessage.INFORM);
+            reply.setContent(result);
+            reply.setInReplyTo(msg.getReplyWith());
+
+            sendReply(reply);
+
+            // Satu baris log per batch, bukan per item
+            String summary = result.substring(0, Math.max(0, result.indexOf(BATCH_ITEM_SEPARATOR)));
+            EnhancedLoggerUtil.logMessage(getLocalName(), msg.getSender().getLocalName(),
+                    "INFORM", msg.getConversationId(), summary);
+            System.out.println("Provider: Batch booking selesai → " + summary);
+        }
+
+        private void handleAlternativeRequest(ACLMessage msg, ContentCodec request) {
             System.out.println("Provider: Menerima permintaan alternatif");
 
+            // ALTERNATIVE:Class=...,Film=...,Date=...,Time=... (format lama: ALTERNATIVE:<kelas>)
+
             // Offer alternative seats
-            String alternatives = findAlternativeSeats();
+            String alternatives = findAlternativeSeats(getShowInventory(request.showKey()));
 
             ACLMessage reply = msg.createReply();
             reply.setPerformative(ACLMessage.INFORM);
             reply.setContent("Alternatif kursi tersedia: " + alternatives);
             reply.setInReplyTo(msg.getReplyWith());
 
-            send(reply);
+            sendReply(reply);
 
             EnhancedLoggerUtil.logMessage(getLocalName(), msg.getSender().getLocalName(),
                     "INFORM", msg.getConversationId(), reply.getContent());
         }
 
-        private void handleSeatAvailabilityQuery(ACLMessage msg) {
+        private void handleSeatAvailabilityQuery(ACLMessage msg, ContentCodec request) {
             System.out.println("Provider: Menerima query ketersediaan kursi");
             
-            // Parse the query content to get seat information
-            String content = msg.getContent();
-            boolean seatsAvailable = checkSeatAvailabilityFromContent(content);
+            // Jawaban dan versinya dari view yang sama, sehingga customer bisa booking dengan IfVersion=<versi>
+            SeatInventory inventory = getShowInventory(request.showKey());
+            SeatView view = inventory.view();
+            String version = versionToken(view.getVersion());
+            boolean seatsAvailable = checkSeatAvailabilityFromContent(request, inventory, view);
             
             ACLMessage reply = msg.createReply();
             reply.setInReplyTo(msg.getReplyWith());
             
             if (seatsAvailable) {
                 reply.setPerformative(ACLMessage.AGREE);
-                reply.setContent("Seats are available for booking");
+                reply.setContent("Seats are available for booking, Versi: " + version);
             } else {
                 reply.setPerformative(ACLMessage.REFUSE);
-                reply.setContent("Seats are not available");
+                reply.setContent("Seats are not available, Versi: " + version);
             }
             
-            send(reply);
+            sendReply(reply);
             
             EnhancedLoggerUtil.logMessage(getLocalName(), msg.getSender().getLocalName(),
                     ACLMessage.getPerformative(reply.getPerformative()),
                     msg.getConversationId(), reply.getContent());
         }
         
-        private boolean checkSeatAvailabilityFromContent(String content) {
-            // Simple check - if content contains seat class, assume seats are available
-            // In a real system, this would parse the specific seats requested
-            return content.contains("Class=") && content.contains("Tickets=");
+        // Subscriber baru (atau yang kehilangan delta) meminta state lengkap sebelum menerapkan delta topic
+        private void handleSeatSnapshotRequest(ACLMessage msg, ContentCodec request) {
+            String showKey = request.showKey();
+            StringBuilder words = new StringBuilder(64);
+            long version = getShowInventory(showKey).appendSnapshot(words);
+
+            ACLMessage reply = msg.createReply();
+            reply.setPerformative(ACLMessage.INFORM);
+            reply.setInReplyTo(msg.getReplyWith());
+            reply.setContent(seatDeltaContent(showKey, version, true, words));
+            sendReply(reply);
+        }
+
+        // Hanya indikasi untuk klien lama: BOOKING sendiri memeriksa dan mengklaim kursi secara atomik
+        private boolean checkSeatAvailabilityFromContent(ContentCodec request, SeatInventory inventory, SeatView view) {
+            if (request.has("Seats") && !request.valueEquals("Seats", BEST_AVAILABLE)) {
+                int[] seats = request.seatIndices("Seats", inventory);
+                if (seats == null) return false;
+                for (int seat : seats) {
+                    if (!view.isAvailable(seat)) return false;
+                }
+                return true;
+            }
+            int classOrdinal = SeatInventory.classOrdinal(request.get("Class", ""));
+            int count = request.getInt("Count", request.getInt("Tickets", 1));
+            if (classOrdinal < 0 || count <= 0) return false;
+            return request.valueEquals("Seats", BEST_AVAILABLE)
+                    ? view.hasBlock(classOrdinal, count)
+                    : view.countAvailable(classOrdinal) >= count;
+        }
+
+        private void handleHoldRequest(ACLMessage msg, ContentCodec request) {
+            System.out.println("Provider: Menerima permintaan hold kursi");
+
+            if (!request.has("Seats")) {
+                sendFailureResponse(msg, "Format hold tidak valid");
+                return;
+            }
+
+            int ttlSeconds = Math.min(MAX_HOLD_TTL_SECONDS, Math.max(1, request.getInt("TTL", DEFAULT_HOLD_TTL_SECONDS)));
+
+            String showKey = request.showKey();
+            SeatInventory inventory = getShowInventory(showKey);
+            String seatList = request.get("Seats", "").replace(';', ',');
+            SeatHold hold;
+            try {
+                hold = createHold(showKey, inventory, request.seatIndices("Seats", inventory), seatList, ttlSeconds);
+            } catch (IOException e) {
+                sendFailureResponse(msg, "Hold tidak dapat disimpan: " + e.getMessage());
+                return;
+            }
+
+            ACLMessage reply = msg.createReply();
+            reply.setInReplyTo(msg.getReplyWith());
+            if (hold != null) {
+                reply.setPerformative(ACLMessage.AGREE);
+                reply.setContent("Hold berhasil! Hold ID: " + hold.holdId +
+                        ", Kursi: " + seatList +
+                        ", TTL: " + ttlSeconds + "s");
+                System.out.println("Provider: Kursi " + seatList + " di-hold sebagai " + hold.holdId);
+            } else {
+                reply.setPerformative(ACLMessage.REFUSE);
+                reply.setContent("Hold gagal! Kursi tidak tersedia atau sudah terpesan. " +
+                        "Silakan pilih kursi lain.");
+            }
+
+            sendReply(reply);
+
+            EnhancedLoggerUtil.logMessage(getLocalName(), msg.getSender().getLocalName(),
+                    ACLMessage.getPerformative(reply.getPerformative()),
+                    msg.getConversationId(), reply.getContent());
+        }
+
+        private void handleConfirmHoldRequest(ACLMessage msg, ContentCodec request) {
+            String holdId = request.get("HoldId", "");
+            SeatHold hold = holds.get(holdId);
+
+            ACLMessage reply = msg.createReply();
+            reply.setInReplyTo(msg.getReplyWith());
+            if (hold != null && hold.state.compareAndSet(SeatHold.HELD, SeatHold.CONFIRMED)) {
+                holdWheel.cancel(hold.timeout);
+                holds.remove(holdId);
+
+                long transactionNumber;
+                saleLock.readLock().lock();
+                try {
+                    hold.inventory.markSold(hold.seats);
+                    transactionNumber = transactionCounter.incrementAndGet();
+                    journalAndWait(BookingJournal.CONFIRM_HOLD, transactionNumber, hold.holdNumber, hold.showKey, hold.seats);
+                } catch (IOException e) {
+                    // Tanpa record konfirmasi, hold akan dilepas saat recovery; samakan state di memori
+                    hold.inventory.cancelSale(hold.seats);
+                    sendFailureResponse(msg, "Konfirmasi hold tidak dapat disimpan: " + e.getMessage());
+                    return;
+                } finally {
+                    saleLock.readLock().unlock();
+                }
+
+                String transactionId = transactionId(transactionNumber);
+                reply.setPerformative(ACLMessage.CONFIRM);
+                reply.setContent("Booking berhasil! Transaction ID: " + transactionId +
+                        ", Kursi: " + hold.seatList + ", Hold ID: " + holdId);
+                System.out.println("Provider: Hold " + holdId + " dikonfirmasi menjadi " + transactionId);
+            } else {
+                reply.setPerformative(ACLMessage.DISCONFIRM);
+                reply.setContent("Booking gagal! Hold " + holdId + " tidak ditemukan atau sudah kedaluwarsa. " +
+                        "Silakan pilih kursi lain.");
+            }
+
+            sendReply(reply);
+
+            EnhancedLoggerUtil.logMessage(getLocalName(), msg.getSender().getLocalName(),
+                    ACLMessage.getPerformative(reply.getPerformative()),
+                    msg.getConversationId(), reply.getContent());
+        }
+
+        private void handleReleaseHoldRequest(ACLMessage msg, ContentCodec request) {
+            String holdId = request.get("HoldId", "");
+            SeatHold hold = holds.get(holdId);
+
+            if (hold == null || !hold.state.compareAndSet(SeatHold.HELD, SeatHold.RELEASED)) {
+                sendFailureResponse(msg, "Hold " + holdId + " tidak ditemukan atau sudah tidak aktif");
+                return;
+            }
+
+            holdWheel.cancel(hold.timeout);
+            holds.remove(holdId);
+            hold.inventory.release(hold.seats);
+            try {
+                journalAndWait(BookingJournal.RELEASE, hold.holdNumber, 0, hold.showKey, hold.seats);
+            } catch (IOException e) {
+                sendFailureResponse(msg, "Pelepasan hold tidak dapat disimpan: " + e.getMessage());
+                return;
+            }
+
+            ACLMessage reply = msg.createReply();
+            reply.setPerformative(ACLMessage.INFORM);
+            reply.setInReplyTo(msg.getReplyWith());
+            reply.setContent("Hold " + holdId + " dilepas, Kursi: " + hold.seatList);
+            sendReply(reply);
+
+            EnhancedLoggerUtil.logMessage(getLocalName(), msg.getSender().getLocalName(),
+                    "INFORM", msg.getConversationId(), reply.getContent());
         }
 
         private void sendFailureResponse(ACLMessage originalMsg, String reason) {
@@ -270,7 +1060,7 @@ public class EnhancedProviderAgent extends Agent {
             reply.setContent("Error: " + reason);
             reply.setInReplyTo(originalMsg.getReplyWith());
 
-            send(reply);
+            sendReply(reply);
 
             EnhancedLoggerUtil.logMessage(getLocalName(), originalMsg.getSender().getLocalName(),
                     "FAILURE", originalMsg.getConversationId(), "Error: " + reason);
@@ -278,83 +1068,253 @@ public class EnhancedProviderAgent extends Agent {
     }
 
 
-    private String generateInfoResponse(String movieTitle, String date, String time, String seatClass, int ticketCount) {
+    /**
+     * @param ifVersion versi yang sudah dimiliki customer (opsional); jika masih terkini,
+     *                  daftar kursi tidak dikirim ulang
+     */
+    String generateInfoResponse(String movieTitle, String date, String time, String seatClass, int ticketCount,
+                                        String ifVersion) {
+        return generateInfoResponse(getShowInventory(movieTitle, date, time), movieTitle, date, seatClass, ifVersion);
+    }
+
+    String generateInfoResponse(SeatInventory inventory, String movieTitle, String date, String seatClass,
+                                String ifVersion) {
         StringBuilder response = new StringBuilder();
         response.append("Movie: ").append(movieTitle).append(", ");
         response.append("Date: ").append(date).append(", ");
+
+        // Versi dan daftar kursi berasal dari view yang sama
+        SeatView view = inventory.view();
+        String version = versionToken(view.getVersion());
+        if (version.equals(ifVersion)) {
+            return response.append("Ketersediaan tidak berubah, Versi: ").append(version).toString();
+        }
         response.append("Showtimes: 10:00, 13:00, 16:00, 19:00, 22:00, ");
 
         // Get available seats for requested class
         response.append("Available ").append(seatClass).append(" seats: ");
 
-        seatLock.readLock().lock();
+        int classOrdinal = SeatInventory.classOrdinal(seatClass);
+        int availableCount = classOrdinal >= 0 ? view.appendAvailable(response, classOrdinal) : 0;
+        response.append(", Total available: ").append(availableCount);
+        response.append(", Versi: ").append(version);
+
+        return response.toString();
+    }
+
+    // "<epoch>.<versi inventaris>"; customer memperlakukannya sebagai token opak
+    String versionToken(long version) {
+        return versionEpoch + "." + version;
+    }
+
+    /**
+     * @return transaction ID, atau null jika kursi tidak valid / sudah terpesan
+     * @throws IOException jika booking tidak dapat ditulis ke journal (kursi sudah dikembalikan)
+     */
+    String processBooking(String showKey, SeatInventory inventory, int[] seatIndices) throws IOException {
+        if (seatIndices == null) return null;
+
+        // Availability check and booking happen atomically inside the inventory
+        if (!inventory.book(seatIndices)) return null;
+        return commitBooking(showKey, inventory, seatIndices);
+    }
+
+    /**
+     * Booking massal "BATCH_BOOKING:item|item|...", setiap item berformat sama dengan
+     * parameter BOOKING (Film, Date, Time, Seats atau Seats=BEST+Count, Class, opsional Ref).
+     *
+     * Semua item diklaim dan di-append ke journal dalam satu lintasan, lalu hanya record
+     * terakhir yang ditunggu durable, sehingga satu batch cukup satu fsync. Item yang gagal
+     * tidak membatalkan item lain; jika journal gagal, semua kursi batch ini dikembalikan.
+     *
+     * @return "BATCH_RESULT:Items=n,Booked=m|Item=1,Status=OK,Transaction=...,Seats=A1;A2|Item=2,Status=FAILED,Reason=..."
+     * @throws IllegalArgumentException jika batch kosong atau melebihi {@link #MAX_BATCH_ITEMS}
+     * @throws IOException jika batch tidak dapat ditulis ke journal
+     */
+    String processBatch(String content) throws IOException {
+        int start = content.indexOf(':') + 1;
+        int separators = 0;
+        for (int i = start; i < content.length(); i++) {
+            if (content.charAt(i) == BATCH_ITEM_SEPARATOR) separators++;
+        }
+        if (start == 0 || start == content.length()) throw new IllegalArgumentException("Batch booking kosong");
+        if (separators >= MAX_BATCH_ITEMS) {
+            throw new IllegalArgumentException("Batch booking maksimal " + MAX_BATCH_ITEMS + " item");
+        }
+
+        ContentCodec item = ContentCodec.parser();
+        StringBuilder results = new StringBuilder(64 * (separators + 1));
+        List<SeatInventory> claimedInventories = new ArrayList<>();
+        List<int[]> claimedSeats = new ArrayList<>();
+        int items = 0;
+        long lastSeq = 0;
+        saleLock.readLock().lock();
         try {
-            int availableCount = 0;
-            for (String seatId : seats.keySet()) {
-                SeatInfo seat = seats.get(seatId);
-                if (seat.available && seat.seatClass.equals(seatClass)) {
-                    if (availableCount > 0) response.append(", ");
-                    response.append(seatId).append("(").append(seat.price).append(")");
-                    availableCount++;
+            for (int pos = start; pos <= content.length(); ) {
+                int end = content.indexOf(BATCH_ITEM_SEPARATOR, pos);
+                if (end < 0) end = content.length();
+                if (end > pos) {
+                    item.parseParams(content, pos, end);
+                    results.append(BATCH_ITEM_SEPARATOR).append("Item=").append(++items);
+                    if (item.has("Ref")) item.appendValue(results.append(",Ref="), "Ref");
+
+                    String showKey = item.showKey();
+                    SeatInventory inventory = null;
+                    int[] seats = null;
+                    String failure = null;
+                    int owner = shardFor(showKey, shardCount);
+                    if (!item.has("Film")) {
+                        failure = "Format item tidak valid";
+                    } else if (owner != shardIndex) {
+                        failure = "Pertunjukan dimiliki oleh " + shardName(owner, shardCount);
+                    } else {
+                        inventory = getShowInventory(showKey);
+                        if (item.valueEquals("Seats", BEST_AVAILABLE)) {
+                            int count = item.getInt("Count", 0);
+                            if (count <= 0 || count > MAX_BLOCK_SIZE) {
+                                failure = "Count harus 1-" + MAX_BLOCK_SIZE;
+                            } else {
+                                seats = inventory.bookBestBlock(SeatInventory.classOrdinal(item.get("Class", "")), count);
+                            }
+                        } else {
+                            seats = item.seatIndices("Seats", inventory);
+                            if (seats != null && !inventory.book(seats)) seats = null;
+                        }
+                        if (failure == null && seats == null) failure = "Kursi tidak tersedia";
+                    }
+
+                    if (failure != null) {
+                        results.append(",Status=FAILED,Reason=").append(failure);
+                    } else {
+                        // Sama seperti commitBooking: tandai terjual sebelum append
+                        inventory.markSold(seats);
+                        claimedInventories.add(inventory);
+                        claimedSeats.add(seats);
+                        long transactionNumber = transactionCounter.incrementAndGet();
+                        if (journal != null) {
+                            lastSeq = journal.append(BookingJournal.BOOK, transactionNumber, 0, showKey, seats);
+                        }
+                        results.append(",Status=OK,Transaction=").append(transactionId(transactionNumber)).append(",Seats=");
+                        for (int i = 0; i < seats.length; i++) {
+                            if (i > 0) results.append(';');
+                            inventory.appendSeatId(results, seats[i]);
+                        }
+                    }
                 }
+                pos = end + 1;
             }
-            response.append(", Total available: ").append(availableCount);
+            if (lastSeq > 0) journal.awaitDurable(lastSeq);
+        } catch (IOException e) {
+            for (int i = 0; i < claimedSeats.size(); i++) {
+                claimedInventories.get(i).cancelSale(claimedSeats.get(i));
+            }
+            throw e;
         } finally {
-            seatLock.readLock().unlock();
+            saleLock.readLock().unlock();
         }
 
-        return response.toString();
+        StringBuilder reply = new StringBuilder(results.length() + 48);
+        reply.append("BATCH_RESULT:Items=").append(items).append(",Booked=").append(claimedSeats.size());
+        return reply.append(results).toString();
     }
 
-    private boolean processBooking(String[] requestedSeats, String seatClass) {
-        List<SeatInfo> lockedSeats = new ArrayList<>();
+    /**
+     * Menyimpan booking atas kursi yang sudah diklaim dengan book().
+     */
+    private String commitBooking(String showKey, SeatInventory inventory, int[] seatIndices) throws IOException {
+        // Microbatch sudah memegang read lock sampai commit
+        saleLock.readLock().lock();
         try {
-            // Double-check availability before booking
-            for (String seatId : requestedSeats) {
-                SeatInfo seat = seats.get(seatId);
-                if (seat == null) return false;
-
-                seat.lock.lock();
-                lockedSeats.add(seat);
-
-                if (!seat.available) return false;
+            // Tandai terjual sebelum journal append agar snapshot yang berjalan bersamaan tetap konsisten
+            inventory.markSold(seatIndices);
+            long transactionNumber = transactionCounter.incrementAndGet();
+            if (microbatch != null) {
+                microbatch.addBooking(transactionNumber, showKey, inventory, seatIndices);
+                return transactionId(transactionNumber);
             }
-
-            // Book all requested seats
-            for (SeatInfo seat : lockedSeats) {
-                seat.available = false;
+            try {
+                journalAndWait(BookingJournal.BOOK, transactionNumber, 0, showKey, seatIndices);
+            } catch (IOException e) {
+                inventory.cancelSale(seatIndices);
+                throw e;
             }
-
-            return true;
+            return transactionId(transactionNumber);
         } finally {
-            for (SeatInfo seat : lockedSeats) {
-                seat.lock.unlock();
-            }
+            saleLock.readLock().unlock();
         }
     }
 
-    private String findAlternativeSeats() {
-        seatLock.readLock().lock();
+    // Nomor transaksi dihitung per shard; prefix shard membuat ID tetap unik di seluruh bioskop
+    private String transactionId(long transactionNumber) {
+        return shardCount > 1 ? "TXN_" + shardIndex + "_" + transactionNumber : "TXN_" + transactionNumber;
+    }
+
+    /**
+     * Konten DISCONFIRM booking beserta ketersediaan kelas saat keputusan diambil, mis.
+     * "Booking gagal! ... Tersedia: B4;B5;B6, Total tersedia: 3, Kelas: Regular, Versi: m2k1x9.42".
+     *
+     * @param version token untuk versi {@code view}
+     */
+    static String conflictContent(String reason, SeatView view, int classOrdinal, String version) {
+        StringBuilder content = new StringBuilder(128 + CONFLICT_SEAT_LIMIT * 4);
+        content.append(reason);
+        if (classOrdinal >= 0) {
+            content.append(" Tersedia: ");
+            int available = view.appendAvailableSeatIds(content, classOrdinal, CONFLICT_SEAT_LIMIT);
+            content.append(", Total tersedia: ").append(available);
+            content.append(", Kelas: ").append(SeatInventory.CLASS_NAMES[classOrdinal]);
+        }
+        return content.append(classOrdinal >= 0 ? ", Versi: " : " Versi: ").append(version).toString();
+    }
+
+    // "A1,A2,A3" untuk balasan ke customer
+    private static String seatList(SeatInventory inventory, int[] seats) {
+        StringBuilder sb = new StringBuilder(seats.length * 4);
+        for (int i = 0; i < seats.length; i++) {
+            if (i > 0) sb.append(',');
+            inventory.appendSeatId(sb, seats[i]);
+        }
+        return sb.toString();
+    }
+
+    private SeatHold createHold(String showKey, SeatInventory inventory, int[] seatIndices, String seatList,
+                                int ttlSeconds) throws IOException {
+        if (seatIndices == null || !inventory.book(seatIndices)) return null;
+
+        SeatHold hold = new SeatHold(holdCounter.incrementAndGet(), showKey, inventory, seatIndices, seatList);
         try {
-            StringBuilder alternatives = new StringBuilder();
-            int count = 0;
-
-            for (String seatId : seats.keySet()) {
-                SeatInfo seat = seats.get(seatId);
-                if (seat.available) {
-                    if (count > 0) alternatives.append(", ");
-                    alternatives.append(seatId).append("(").append(seat.seatClass).append(")");
-                    count++;
-                    if (count >= 5) break; // Limit to 5 alternatives
+            journalAndWait(BookingJournal.HOLD, hold.holdNumber, 0, showKey, seatIndices);
+        } catch (IOException e) {
+            inventory.release(seatIndices);
+            throw e;
+        }
+        holds.put(hold.holdId, hold);
+        hold.timeout = holdWheel.schedule(hold, System.currentTimeMillis() + ttlSeconds * 1000L);
+        return hold;
+    }
+
+    private void expireHold(SeatHold hold) {
+        if (hold.state.compareAndSet(SeatHold.HELD, SeatHold.EXPIRED)) {
+            holds.remove(hold.holdId);
+            hold.inventory.release(hold.seats);
+            if (journal != null) {
+                try {
+                    // Tidak perlu menunggu fsync: hold yang belum dilepas juga dilepas saat recovery
+                    journal.append(BookingJournal.RELEASE, hold.holdNumber, 0, hold.showKey, hold.seats);
+                } catch (IOException e) {
+                    System.err.println("Provider: Gagal mencatat kedaluwarsa " + hold.holdId + ": " + e.getMessage());
                 }
             }
-
-            return alternatives.toString();
-        } finally {
-            seatLock.readLock().unlock();
+            System.out.println("Provider: Hold " + hold.holdId + " kedaluwarsa, kursi " + hold.seatList + " tersedia lagi");
         }
     }
 
+    static String findAlternativeSeats(SeatInventory inventory) {
+        StringBuilder alternatives = new StringBuilder();
+        inventory.view().appendAlternatives(alternatives, 5); // Limit to 5 alternatives
+        return alternatives.toString();
+    }
+
     private class PeriodicSeatCheckBehaviour extends CyclicBehaviour {
         private long lastCheck = System.currentTimeMillis();
         private static final long CHECK_INTERVAL = 10000; // 10 seconds
@@ -370,16 +1330,76 @@ public class EnhancedProviderAgent extends Agent {
         }
 
         private void performSeatCheck() {
-            seatLock.readLock().lock();
-            try {
-                int availableCount = 0;
-                for (SeatInfo seat : seats.values()) {
-                    if (seat.available) availableCount++;
-                }
-                System.out.println("Provider: Seat check - " + availableCount + " kursi tersedia dari " + seats.size() + " total");
-            } finally {
-                seatLock.readLock().unlock();
+            int availableCount = 0;
+            int totalCount = 0;
+            for (SeatInventory inventory : shows.values()) {
+                availableCount += inventory.view().countAvailable();
+                totalCount += inventory.getSeatCount();
+            }
+            System.out.println("Provider: Seat check - " + availableCount + " kursi tersedia dari " + totalCount +
+                    " total (" + shows.size() + " pertunjukan)");
+        }
+    }
+
+    private class HoldExpiryBehaviour extends TickerBehaviour {
+        HoldExpiryBehaviour() {
+            super(EnhancedProviderAgent.this, HOLD_TICK_MS);
+        }
+
+        @Override
+        protected void onTick() {
+            holdWheel.advance(System.currentTimeMillis(), EnhancedProviderAgent.this::expireHold);
+        }
+    }
+
+    /**
+     * Mempublikasikan word kursi yang berubah per pertunjukan ke topic-nya. Perubahan
+     * dalam satu interval digabung menjadi satu delta, sehingga booking beruntun
+     * pada pertunjukan yang sama tidak menghasilkan satu pesan per booking.
+     */
+    private class SeatDeltaBehaviour extends TickerBehaviour {
+        private final StringBuilder words = new StringBuilder(64);
+        // AID topic per pertunjukan; dibuat sekali, bukan di setiap tick
+        private final Map<String, AID> topics = new HashMap<>();
+
+        SeatDeltaBehaviour() {
+            super(EnhancedProviderAgent.this, DELTA_INTERVAL_MS);
+        }
+
+        @Override
+        protected void onTick() {
+            for (Map.Entry<String, SeatInventory> show : shows.entrySet()) {
+                words.setLength(0);
+                long version = show.getValue().drainDelta(words);
+                if (version < 0) continue;
+
+                AID topic = topics.computeIfAbsent(show.getKey(), key -> topicHelper.createTopic(seatTopicName(key)));
+                ACLMessage delta = new ACLMessage(ACLMessage.INFORM);
+                delta.addReceiver(topic);
+                delta.setContent(seatDeltaContent(show.getKey(), version, false, words));
+                sendNow(delta);
             }
         }
     }
+
+    private class SnapshotBehaviour extends TickerBehaviour {
+        SnapshotBehaviour() {
+            super(EnhancedProviderAgent.this, SNAPSHOT_INTERVAL_MS);
+        }
+
+        @Override
+        protected void onTick() {
+            if (!snapshotRunning.compareAndSet(false, true)) return;
+            snapshotExecutor.execute(() -> {
+                try {
+                    takeSnapshot();
+                } catch (IOException e) {
+                    System.err.println("Provider: Gagal menulis snapshot: " + e.getMessage());
+                    EnhancedLoggerUtil.logError(getLocalName(), "SYSTEM", "Snapshot failed: " + e.getMessage(), "system");
+                } finally {
+                    snapshotRunning.set(false);
+                }
+            });
+        }
+    }
 }
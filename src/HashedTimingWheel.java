@@ -0,0 +1,139 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel untuk kedaluwarsa hold kursi.
+ *
+ * Setiap timeout dimasukkan ke bucket (deadline / tickMs) mod wheelSize dan
+ * menyimpan jumlah putaran yang masih tersisa. Menjadwalkan dan membatalkan
+ * timeout adalah O(1) (bucket berupa doubly linked list), dan setiap tick
+ * hanya memproses satu bucket, jadi biaya per hold yang kedaluwarsa tetap
+ * mendekati O(1) tanpa timer per hold maupun scan seluruh hold.
+ *
+ * Wheel tidak punya thread sendiri; pemilik memanggil {@link #advance} secara
+ * berkala (di provider melalui HoldExpiryBehaviour).
+ */
+public class HashedTimingWheel<T> {
+
+    public static final class Timeout<T> {
+        private final T task;
+        private final long deadline;
+        private long remainingRounds;
+        private int bucket = -1;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(T task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public T getTask() {
+            return task;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+    }
+
+    private final long tickMs;
+    private final int mask;
+    private final Timeout<T>[] heads;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMs, int wheelSize, long startTimeMs) {
+        if (tickMs <= 0) throw new IllegalArgumentException("tickMs harus > 0");
+        int n = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMs = tickMs;
+        this.mask = n - 1;
+        this.heads = (Timeout<T>[]) new Timeout<?>[n];
+        this.currentTick = startTimeMs / tickMs;
+    }
+
+    /**
+     * Menjadwalkan task agar kedaluwarsa pada {@code deadlineMs}.
+     */
+    public synchronized Timeout<T> schedule(T task, long deadlineMs) {
+        Timeout<T> timeout = new Timeout<>(task, deadlineMs);
+        // Dibulatkan ke atas agar tidak pernah kedaluwarsa lebih awal;
+        // deadline yang sudah lewat diproses pada tick berikutnya
+        long tick = Math.max((deadlineMs + tickMs - 1) / tickMs, currentTick + 1);
+        timeout.remainingRounds = (tick - currentTick - 1) / heads.length;
+        link(timeout, (int) (tick & mask));
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Membatalkan timeout yang belum kedaluwarsa.
+     *
+     * @return true jika timeout masih terjadwal dan berhasil dibatalkan
+     */
+    public synchronized boolean cancel(Timeout<T> timeout) {
+        if (timeout == null || timeout.bucket < 0) return false;
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /**
+     * Memajukan wheel sampai {@code nowMs} dan memanggil {@code onExpire} untuk
+     * setiap task yang kedaluwarsa. Callback dijalankan di luar lock wheel.
+     *
+     * @return jumlah task yang kedaluwarsa
+     */
+    public int advance(long nowMs, Consumer<T> onExpire) {
+        List<T> expired = new ArrayList<>();
+        synchronized (this) {
+            long targetTick = nowMs / tickMs;
+            while (currentTick < targetTick) {
+                currentTick++;
+                int bucket = (int) (currentTick & mask);
+                Timeout<T> timeout = heads[bucket];
+                while (timeout != null) {
+                    Timeout<T> next = timeout.next;
+                    if (timeout.remainingRounds <= 0) {
+                        unlink(timeout);
+                        size--;
+                        expired.add(timeout.task);
+                    } else {
+                        timeout.remainingRounds--;
+                    }
+                    timeout = next;
+                }
+            }
+        }
+        for (T task : expired) {
+            onExpire.accept(task);
+        }
+        return expired.size();
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void link(Timeout<T> timeout, int bucket) {
+        timeout.bucket = bucket;
+        timeout.prev = null;
+        timeout.next = heads[bucket];
+        if (heads[bucket] != null) heads[bucket].prev = timeout;
+        heads[bucket] = timeout;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            heads[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) timeout.next.prev = timeout.prev;
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+    }
+}
@@ -0,0 +1,159 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot biner dari seluruh inventaris provider.
+ *
+ * Berisi bitmap kursi terjual per pertunjukan, counter transaksi dan hold,
+ * serta nomor segment journal pertama yang harus di-replay setelah snapshot
+ * dimuat. File ditulis ke file sementara, di-fsync, lalu di-rename secara
+ * atomik sehingga snapshot lama tetap utuh jika penulisan terputus; direktori
+ * di-fsync setelah rename agar snapshot baru tetap ada setelah crash, sebelum
+ * segment journal yang dicakupnya dihapus.
+ *
+ * Format: [int magic][int versi][long segment replay][long transaksi][long hold]
+ * [int jumlah show] lalu per show [UTF key][int jumlah kursi][int jumlah word]
+ * [long word...], diakhiri [long crc32].
+ */
+public class InventorySnapshot {
+    private static final int MAGIC = 0x424B534E; // "BKSN"
+    private static final int VERSION = 1;
+
+    public final long replayFromSegment;
+    public final long transactionCounter;
+    public final long holdCounter;
+    public final Map<String, long[]> soldWords;
+    public final Map<String, Integer> seatCounts;
+
+    private InventorySnapshot(long replayFromSegment, long transactionCounter, long holdCounter,
+                              Map<String, long[]> soldWords, Map<String, Integer> seatCounts) {
+        this.replayFromSegment = replayFromSegment;
+        this.transactionCounter = transactionCounter;
+        this.holdCounter = holdCounter;
+        this.soldWords = soldWords;
+        this.seatCounts = seatCounts;
+    }
+
+    /**
+     * Menyalin bitmap kursi terjual setiap inventaris word per word. Pemanggil menentukan
+     * titik salin yang konsisten (provider: di bawah write lock penjualan).
+     */
+    public static InventorySnapshot capture(long replayFromSegment, long transactionCounter, long holdCounter,
+                                            Map<String, SeatInventory> shows) {
+        Map<String, long[]> soldWords = new LinkedHashMap<>();
+        Map<String, Integer> seatCounts = new LinkedHashMap<>();
+        for (Map.Entry<String, SeatInventory> entry : shows.entrySet()) {
+            soldWords.put(entry.getKey(), entry.getValue().copySoldWords());
+            seatCounts.put(entry.getKey(), entry.getValue().getSeatCount());
+        }
+        return new InventorySnapshot(replayFromSegment, transactionCounter, holdCounter, soldWords, seatCounts);
+    }
+
+    /**
+     * Menulis snapshot ke {@code file} lewat file sementara dan rename atomik.
+     *
+     * @return ukuran file snapshot dalam byte
+     */
+    public long write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        File temp = new File(parent, file.getName() + ".tmp");
+
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fileOut = new FileOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileOut, crc)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(replayFromSegment);
+            out.writeLong(transactionCounter);
+            out.writeLong(holdCounter);
+
+            out.writeInt(soldWords.size());
+            for (Map.Entry<String, long[]> entry : soldWords.entrySet()) {
+                long[] words = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(seatCounts.get(entry.getKey()));
+                out.writeInt(words.length);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            }
+            out.flush();
+            new DataOutputStream(fileOut).writeLong(crc.getValue());
+            fileOut.getFD().sync();
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(parent);
+        return file.length();
+    }
+
+    // Rename atau file baru durable setelah entry direktori di-fsync; juga dipakai BookingJournal
+    static void syncDirectory(File directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            // Platform yang tidak bisa membuka direktori sebagai channel (mis. Windows) tidak mendukung fsync direktori
+            return;
+        }
+        try {
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return snapshot, atau null jika file tidak ada
+     * @throws IOException jika file rusak atau versinya tidak dikenal
+     */
+    public static InventorySnapshot read(File file) throws IOException {
+        if (!file.exists()) return null;
+
+        byte[] data = Files.readAllBytes(file.toPath());
+        if (data.length < 8) throw new IOException("Snapshot terpotong: " + file);
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 8);
+        long stored = ByteBuffer.wrap(data, data.length - 8, 8).getLong();
+        if (stored != crc.getValue()) throw new IOException("Checksum snapshot tidak cocok: " + file);
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 0, data.length - 8))) {
+            if (in.readInt() != MAGIC) throw new IOException("Bukan file snapshot: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Versi snapshot tidak dikenal: " + version);
+
+            long replayFromSegment = in.readLong();
+            long transactionCounter = in.readLong();
+            long holdCounter = in.readLong();
+            int showCount = in.readInt();
+
+            Map<String, long[]> soldWords = new LinkedHashMap<>();
+            Map<String, Integer> seatCounts = new LinkedHashMap<>();
+            for (int i = 0; i < showCount; i++) {
+                String key = in.readUTF();
+                seatCounts.put(key, in.readInt());
+                long[] words = new long[in.readInt()];
+                for (int w = 0; w < words.length; w++) {
+                    words[w] = in.readLong();
+                }
+                soldWords.put(key, words);
+            }
+
+            return new InventorySnapshot(replayFromSegment, transactionCounter, holdCounter, soldWords, seatCounts);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Histogram latensi log-linear dengan ukuran tetap (mirip HdrHistogram).
+ *
+ * Nilai (mikrodetik) di bawah 64 disimpan persis; di atasnya setiap pangkat dua
+ * dibagi 64 sub-bucket, sehingga galat relatif maksimal sekitar 1,6% untuk
+ * rentang nilai berapa pun. {@link #record} hanya menaikkan satu counter, jadi
+ * cukup murah untuk setiap balasan pada load test. Tidak thread-safe: setiap
+ * pencatat memakai histogram sendiri lalu digabung dengan {@link #add}.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BUCKET_BITS) * SUB_BUCKETS];
+    private long totalCount;
+    private long sum;
+    private long max;
+
+    public void record(long micros) {
+        if (micros < 0) micros = 0;
+        counts[bucketOf(micros)]++;
+        totalCount++;
+        sum += micros;
+        if (micros > max) max = micros;
+    }
+
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Nilai tertinggi yang ekuivalen dengan bucket persentil {@code percentile}
+     * (0-100), dibatasi nilai maksimum yang tercatat; 0 jika histogram kosong.
+     */
+    public long percentile(double percentile) {
+        if (totalCount == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(max, highestEquivalent(i));
+        }
+        return max;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long highestEquivalent(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return low + (1L << shift) - 1;
+    }
+}
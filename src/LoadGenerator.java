@@ -0,0 +1,291 @@
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.wrapper.AgentContainer;
+import jade.wrapper.AgentController;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load generator headless untuk provider: menjalankan provider (atau shard-shardnya)
+ * dan beberapa driver agent di satu container, mengirim campuran REQUEST_INFO dan
+ * BOOKING dengan laju target, lalu melaporkan throughput dan persentil latensi.
+ *
+ * Beban bersifat open-loop: jadwal kirim setiap driver tetap (start + k * periode)
+ * dan tidak menunggu balasan, sehingga provider yang melambat tidak ikut menurunkan
+ * laju. Latensi diukur dari waktu kirim yang dijadwalkan, bukan waktu kirim aktual,
+ * agar antrian di sisi pengirim tetap terhitung (tanpa coordinated omission).
+ *
+ * Customer disimulasikan, bukan satu agent per customer: setiap driver agent
+ * mewakili sebagian {@code load.customers} customer virtual (conversation-id dan
+ * RequestId berbeda), sehingga ribuan customer tidak membutuhkan ribuan thread.
+ *
+ * Konfigurasi lewat system property (nilai default dalam kurung):
+ * load.rate (500 request/detik), load.durationSec (20), load.warmupSec (5),
+ * load.customers (1000), load.drivers (4), load.bookingPercent (20),
+ * load.shows (200), load.drainMs (5000), load.maxP99Ms (0 = tanpa batas),
+ * load.quiet (true, log konsol provider disembunyikan).
+ * Property booking.* (shard, worker, journal) berlaku seperti biasa; jika
+ * booking.journal.dir tidak diset, journal ditulis ke direktori sementara.
+ *
+ * Exit code 2 jika p99 melebihi load.maxP99Ms atau ada request yang tidak dijawab.
+ */
+public class LoadGenerator {
+    static final int INFO = 0;
+    static final int BOOKING = 1;
+    static final String[] KIND_NAMES = {"info", "booking"};
+    private static final String DATE = "2025-01-20";
+    private static final String[] TIMES = {"10:00", "13:00", "16:00", "19:00", "22:00"};
+
+    /** Parameter satu driver; semua driver berbagi start time yang sama */
+    static final class Config {
+        int driverIndex;
+        double ratePerSecond;
+        long startNanos;
+        long warmupNanos;
+        long durationNanos;
+        long drainNanos;
+        int customers;
+        int customerOffset;
+        int bookingPercent;
+        int shows;
+        int shardCount;
+        CountDownLatch done;
+    }
+
+    /**
+     * Mengirim request sesuai jadwal dan mencatat latensi balasan. Pengiriman dan
+     * penerimaan sama-sama berjalan di thread agent, jadi state tidak perlu sinkronisasi.
+     */
+    static class DriverAgent extends Agent {
+        private final Config config;
+        private final Random random;
+        private final AID[] providers;
+        // reply-with -> {waktu kirim terjadwal (ns), jenis request}
+        private final Map<String, long[]> outstanding = new HashMap<>();
+        final LatencyHistogram[] histograms = {new LatencyHistogram(), new LatencyHistogram()};
+        final Map<String, Integer> outcomes = new HashMap<>();
+        long sent;
+        long measuredSent;
+        long answered;
+        long unanswered;
+        private long sequence;
+
+        DriverAgent(Config config) {
+            this.config = config;
+            this.random = new Random(config.driverIndex + 1);
+            providers = new AID[config.shardCount];
+            for (int i = 0; i < providers.length; i++) {
+                providers[i] = new AID(EnhancedProviderAgent.shardName(i, config.shardCount), AID.ISLOCALNAME);
+            }
+        }
+
+        @Override
+        protected void setup() {
+            addBehaviour(new CyclicBehaviour(this) {
+                private boolean finished;
+
+                @Override
+                public void action() {
+                    if (finished) return;
+                    long now = System.nanoTime();
+                    sendDue(now);
+                    ACLMessage reply;
+                    while ((reply = receive()) != null) {
+                        recordReply(reply, System.nanoTime());
+                    }
+
+                    long sendEnd = config.startNanos + config.durationNanos;
+                    if (now >= sendEnd && (outstanding.isEmpty() || now >= sendEnd + config.drainNanos)) {
+                        unanswered = outstanding.size();
+                        finished = true;
+                        config.done.countDown();
+                        return;
+                    }
+                    // Bangun pada jadwal kirim berikutnya atau saat balasan datang
+                    long next = now < sendEnd ? scheduledNanos(sent) : sendEnd + config.drainNanos;
+                    long waitMs = TimeUnit.NANOSECONDS.toMillis(next - System.nanoTime());
+                    if (waitMs > 0) block(waitMs);
+                }
+            });
+        }
+
+        private long scheduledNanos(long index) {
+            return config.startNanos + (long) (index * 1e9 / config.ratePerSecond);
+        }
+
+        private void sendDue(long now) {
+            long sendEnd = config.startNanos + config.durationNanos;
+            while (true) {
+                long scheduled = scheduledNanos(sent);
+                if (scheduled > now || scheduled >= sendEnd) return;
+                sendRequest(scheduled, random.nextInt(100) < config.bookingPercent ? BOOKING : INFO);
+            }
+        }
+
+        private void sendRequest(long scheduled, int kind) {
+            int customer = config.customerOffset + random.nextInt(config.customers);
+            String film = "Load " + random.nextInt(config.shows);
+            String time = TIMES[random.nextInt(TIMES.length)];
+            String seatClass = SeatInventory.CLASS_NAMES[random.nextInt(SeatInventory.CLASS_NAMES.length)];
+            String replyWith = getLocalName() + "-" + (++sequence);
+
+            StringBuilder content = ContentCodec.begin(new StringBuilder(96), kind == BOOKING ? "BOOKING" : "REQUEST_INFO");
+            ContentCodec.param(content, "Film", film);
+            ContentCodec.param(content, "Date", DATE);
+            ContentCodec.param(content, "Time", time);
+            if (kind == BOOKING) {
+                ContentCodec.param(content, "Seats", "BEST");
+                ContentCodec.param(content, "Count", 1);
+                ContentCodec.param(content, "Class", seatClass);
+                ContentCodec.param(content, "RequestId", "c" + customer + "-" + sequence);
+            } else {
+                ContentCodec.param(content, "Class", seatClass);
+                ContentCodec.param(content, "Tickets", 1);
+            }
+
+            ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+            msg.addReceiver(providers[EnhancedProviderAgent.shardFor(
+                    EnhancedProviderAgent.showKey(film, DATE, time), providers.length)]);
+            msg.setConversationId("load_customer_" + customer);
+            msg.setReplyWith(replyWith);
+            msg.setContent(content.toString());
+            outstanding.put(replyWith, new long[]{scheduled, kind});
+            send(msg);
+            sent++;
+            if (scheduled >= config.startNanos + config.warmupNanos) measuredSent++;
+        }
+
+        private void recordReply(ACLMessage reply, long receivedNanos) {
+            long[] request = reply.getInReplyTo() != null ? outstanding.remove(reply.getInReplyTo()) : null;
+            if (request == null) return;
+            answered++;
+            if (request[0] < config.startNanos + config.warmupNanos) return;
+            histograms[(int) request[1]].record(TimeUnit.NANOSECONDS.toMicros(receivedNanos - request[0]));
+            outcomes.merge(ACLMessage.getPerformative(reply.getPerformative()), 1, Integer::sum);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        double rate = Double.parseDouble(System.getProperty("load.rate", "500"));
+        int durationSec = Integer.getInteger("load.durationSec", 20);
+        int warmupSec = Integer.getInteger("load.warmupSec", 5);
+        int customers = Math.max(1, Integer.getInteger("load.customers", 1000));
+        int drivers = Math.max(1, Math.min(customers, Integer.getInteger("load.drivers", 4)));
+        int bookingPercent = Math.max(0, Math.min(100, Integer.getInteger("load.bookingPercent", 20)));
+        int shows = Math.max(1, Integer.getInteger("load.shows", 200));
+        long drainMs = Long.getLong("load.drainMs", 5000L);
+        long maxP99Ms = Long.getLong("load.maxP99Ms", 0L);
+        int shardCount = Math.max(1, Integer.getInteger("booking.provider.shards", 1));
+
+        PrintStream report = System.out;
+        if (Boolean.parseBoolean(System.getProperty("load.quiet", "true"))) {
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                }
+            }));
+        }
+        if (System.getProperty("booking.journal.dir") == null) {
+            File journalDir = Files.createTempDirectory("booking-load").toFile();
+            System.setProperty("booking.journal.dir", journalDir.getPath());
+            report.println("Load: journal di " + journalDir);
+        }
+
+        Runtime rt = Runtime.instance();
+        rt.setCloseVM(false);
+        Profile profile = new ProfileImpl();
+        profile.setParameter(Profile.GUI, "false");
+        AgentContainer container = rt.createMainContainer(profile);
+
+        for (int i = 0; i < shardCount; i++) {
+            container.createNewAgent(EnhancedProviderAgent.shardName(i, shardCount),
+                    EnhancedProviderAgent.class.getName(), new Object[]{i, shardCount}).start();
+        }
+        // Beri provider waktu memulihkan journal sebelum beban dimulai
+        Thread.sleep(1000);
+
+        CountDownLatch done = new CountDownLatch(drivers);
+        long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+        DriverAgent[] agents = new DriverAgent[drivers];
+        for (int d = 0; d < drivers; d++) {
+            Config config = new Config();
+            config.driverIndex = d;
+            config.ratePerSecond = rate / drivers;
+            config.startNanos = startNanos;
+            config.warmupNanos = TimeUnit.SECONDS.toNanos(warmupSec);
+            config.durationNanos = TimeUnit.SECONDS.toNanos(warmupSec + durationSec);
+            config.drainNanos = TimeUnit.MILLISECONDS.toNanos(drainMs);
+            config.customerOffset = (int) ((long) customers * d / drivers);
+            config.customers = (int) ((long) customers * (d + 1) / drivers) - config.customerOffset;
+            config.bookingPercent = bookingPercent;
+            config.shows = shows;
+            config.shardCount = shardCount;
+            config.done = done;
+            agents[d] = new DriverAgent(config);
+            AgentController controller = container.acceptNewAgent("load-driver-" + d, agents[d]);
+            controller.start();
+        }
+
+        report.printf("Load: %.0f request/detik, %d detik (+%d detik warmup), %d driver, %d customer virtual, "
+                        + "%d%% booking, %d pertunjukan, %d shard provider%n",
+                rate, durationSec, warmupSec, drivers, customers, bookingPercent, shows, shardCount);
+        done.await();
+
+        LatencyHistogram[] histograms = {new LatencyHistogram(), new LatencyHistogram()};
+        LatencyHistogram all = new LatencyHistogram();
+        Map<String, Integer> outcomes = new HashMap<>();
+        long sent = 0, measuredSent = 0, answered = 0, unanswered = 0;
+        for (DriverAgent agent : agents) {
+            for (int kind = 0; kind < histograms.length; kind++) {
+                histograms[kind].add(agent.histograms[kind]);
+                all.add(agent.histograms[kind]);
+            }
+            agent.outcomes.forEach((name, count) -> outcomes.merge(name, count, Integer::sum));
+            sent += agent.sent;
+            measuredSent += agent.measuredSent;
+            answered += agent.answered;
+            unanswered += agent.unanswered;
+        }
+
+        report.printf("Load: %,d request dikirim, %,d dijawab, %,d tidak dijawab; hasil (setelah warmup) %s%n",
+                sent, answered, unanswered, outcomes);
+        report.printf("Load: throughput %,.1f balasan/detik (dikirim %,.1f request/detik)%n",
+                all.getCount() / (double) durationSec, measuredSent / (double) durationSec);
+        report.printf("%-10s %10s %10s %10s %10s %10s %10s %10s%n",
+                "latensi ms", "jumlah", "mean", "p50", "p90", "p99", "p99.9", "max");
+        for (int kind = 0; kind < histograms.length; kind++) {
+            printRow(report, KIND_NAMES[kind], histograms[kind]);
+        }
+        printRow(report, "semua", all);
+
+        container.kill();
+        boolean regression = unanswered > 0 || (maxP99Ms > 0 && all.percentile(99) > maxP99Ms * 1000);
+        if (regression) {
+            report.println("Load: GAGAL - p99 melebihi " + maxP99Ms + " ms atau ada request yang tidak dijawab");
+        }
+        System.exit(regression ? 2 : 0);
+    }
+
+    private static void printRow(PrintStream out, String name, LatencyHistogram histogram) {
+        out.printf("%-10s %,10d %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n", name, histogram.getCount(),
+                histogram.getMean() / 1000.0, histogram.percentile(50) / 1000.0, histogram.percentile(90) / 1000.0,
+                histogram.percentile(99) / 1000.0, histogram.percentile(99.9) / 1000.0, histogram.getMax() / 1000.0);
+    }
+}
@@ -1,11 +1,27 @@
+import jade.content.abs.AbsAgentAction;
+import jade.content.abs.AbsContentElement;
+import jade.content.abs.AbsObject;
+import jade.content.abs.AbsPredicate;
+import jade.content.abs.AbsPrimitive;
 import jade.content.onto.BasicOntology;
 import jade.content.onto.Ontology;
 import jade.content.onto.OntologyException;
 import jade.content.schema.AgentActionSchema;
 import jade.content.schema.ConceptSchema;
+import jade.content.schema.ObjectSchema;
 import jade.content.schema.PredicateSchema;
 import jade.content.schema.PrimitiveSchema;
+import jade.lang.acl.ACLMessage;
 
+/**
+ * Ontologi pesan booking.
+ *
+ * Request (MovieRequest, BookingRequest, AlternativeRequest) adalah agent action
+ * dan balasan (BookingResponse) adalah predicate, sehingga bisa dikirim sebagai
+ * konten bertipe lewat ContentManager. Setiap slot request punya padanan key di
+ * protokol string "VERB:Key=Value"; {@link #toAction} dan {@link #toContent}
+ * mengonversi dua arah sehingga provider tetap punya satu jalur handler.
+ */
 public class MovieBookingOntology extends Ontology {
     public static final String ONTOLOGY_NAME = "Movie-Booking-Ontology";
     
@@ -29,6 +45,21 @@ public class MovieBookingOntology extends Ontology {
     public static final String ALTERNATIVE_REQUEST = "AlternativeRequest";
     public static final String SEAT_AVAILABILITY = "SeatAvailability";
     
+    // Verb protokol string dan padanan slot ↔ key untuk setiap agent action
+    private static final String[] ACTION_TYPES = {MOVIE_REQUEST, BOOKING_REQUEST, ALTERNATIVE_REQUEST};
+    private static final String[] ACTION_VERBS = {"REQUEST_INFO", "BOOKING", "ALTERNATIVE"};
+    private static final String[][] ACTION_SLOTS = {
+            {"movieTitle", "date", "preferredTime", "seatClass", "ticketCount", "ifVersion"},
+            {"movieTitle", "date", "selectedTime", "selectedSeats", "ticketCount", "seatClass", "requestId", "ifVersion"},
+            {"seatClass", "movieTitle", "date", "preferredTime", "preferredSeats"}
+    };
+    private static final String[][] ACTION_KEYS = {
+            {"Film", "Date", "Time", "Class", "Tickets", "IfVersion"},
+            {"Film", "Date", "Time", "Seats", "Count", "Class", "RequestId", "IfVersion"},
+            {"Class", "Film", "Date", "Time", "Seats"}
+    };
+    private static final String INTEGER_SLOT = "ticketCount";
+
     private static Ontology instance = new MovieBookingOntology();
     
     public static Ontology getInstance() {
@@ -39,17 +70,18 @@ public class MovieBookingOntology extends Ontology {
         super(ONTOLOGY_NAME, BasicOntology.getInstance());
         
         try {
-            // MovieRequest Schema
-            ConceptSchema cs = new ConceptSchema(MOVIE_REQUEST);
-            cs.add("movieTitle", (PrimitiveSchema) getSchema(BasicOntology.STRING));
-            cs.add("date", (PrimitiveSchema) getSchema(BasicOntology.STRING));
-            cs.add("preferredTime", (PrimitiveSchema) getSchema(BasicOntology.STRING));
-            cs.add("seatClass", (PrimitiveSchema) getSchema(BasicOntology.STRING));
-            cs.add("ticketCount", (PrimitiveSchema) getSchema(BasicOntology.INTEGER));
-            add(cs);
+            // Request schemas (semua slot opsional, sama seperti key di protokol string)
+            for (int i = 0; i < ACTION_TYPES.length; i++) {
+                AgentActionSchema as = new AgentActionSchema(ACTION_TYPES[i]);
+                for (String slot : ACTION_SLOTS[i]) {
+                    String type = INTEGER_SLOT.equals(slot) ? BasicOntology.INTEGER : BasicOntology.STRING;
+                    as.add(slot, (PrimitiveSchema) getSchema(type), ObjectSchema.OPTIONAL);
+                }
+                add(as);
+            }
             
             // SeatInfo Schema
-            cs = new ConceptSchema(SEAT_INFO);
+            ConceptSchema cs = new ConceptSchema(SEAT_INFO);
             cs.add("seatId", (PrimitiveSchema) getSchema(BasicOntology.STRING));
             cs.add("price", (PrimitiveSchema) getSchema(BasicOntology.INTEGER));
             cs.add("available", (PrimitiveSchema) getSchema(BasicOntology.BOOLEAN));
@@ -62,24 +94,12 @@ public class MovieBookingOntology extends Ontology {
             cs.add("prices", (PrimitiveSchema) getSchema(BasicOntology.STRING));
             add(cs);
             
-            // BookingRequest Schema
-            cs = new ConceptSchema(BOOKING_REQUEST);
-            cs.add("selectedTime", (PrimitiveSchema) getSchema(BasicOntology.STRING));
-            cs.add("selectedSeats", (PrimitiveSchema) getSchema(BasicOntology.STRING));
-            add(cs);
-            
-            // BookingResponse Schema
-            cs = new ConceptSchema(BOOKING_RESPONSE);
-            cs.add("success", (PrimitiveSchema) getSchema(BasicOntology.BOOLEAN));
-            cs.add("message", (PrimitiveSchema) getSchema(BasicOntology.STRING));
-            cs.add("transactionId", (PrimitiveSchema) getSchema(BasicOntology.STRING));
-            add(cs);
-            
-            // AlternativeRequest Schema
-            cs = new ConceptSchema(ALTERNATIVE_REQUEST);
-            cs.add("seatClass", (PrimitiveSchema) getSchema(BasicOntology.STRING));
-            cs.add("preferredSeats", (PrimitiveSchema) getSchema(BasicOntology.STRING));
-            add(cs);
+            // BookingResponse Schema (balasan untuk semua request bertipe)
+            PredicateSchema ps = new PredicateSchema(BOOKING_RESPONSE);
+            ps.add("success", (PrimitiveSchema) getSchema(BasicOntology.BOOLEAN));
+            ps.add("message", (PrimitiveSchema) getSchema(BasicOntology.STRING), ObjectSchema.OPTIONAL);
+            ps.add("transactionId", (PrimitiveSchema) getSchema(BasicOntology.STRING), ObjectSchema.OPTIONAL);
+            add(ps);
             
             // SeatAvailability Schema
             cs = new ConceptSchema(SEAT_AVAILABILITY);
@@ -92,4 +112,66 @@ public class MovieBookingOntology extends Ontology {
             oe.printStackTrace();
         }
     }
+
+    /**
+     * Mengubah request protokol string menjadi agent action.
+     *
+     * @return action, atau null jika verb tidak punya schema (mis. HOLD)
+     */
+    public static AbsAgentAction toAction(ContentCodec request) {
+        for (int i = 0; i < ACTION_VERBS.length; i++) {
+            if (!request.hasVerb(ACTION_VERBS[i])) continue;
+            AbsAgentAction action = new AbsAgentAction(ACTION_TYPES[i]);
+            for (int s = 0; s < ACTION_SLOTS[i].length; s++) {
+                String key = ACTION_KEYS[i][s];
+                if (!request.has(key)) continue;
+                if (INTEGER_SLOT.equals(ACTION_SLOTS[i][s])) {
+                    // Nilai bukan angka diperlakukan sama seperti key yang tidak ada
+                    int value = request.getInt(key, Integer.MIN_VALUE);
+                    if (value != Integer.MIN_VALUE) action.set(ACTION_SLOTS[i][s], value);
+                } else {
+                    action.set(ACTION_SLOTS[i][s], request.get(key, ""));
+                }
+            }
+            return action;
+        }
+        return null;
+    }
+
+    /**
+     * Mengubah konten bertipe kembali ke bentuk string: agent action menjadi
+     * "VERB:Key=Value,...", BookingResponse menjadi teks pesannya.
+     *
+     * @return konten string, atau null jika tipe tidak dikenal
+     */
+    public static String toContent(AbsContentElement element) {
+        String type = element.getTypeName();
+        if (BOOKING_RESPONSE.equals(type)) {
+            AbsObject message = element.getAbsObject("message");
+            return message != null ? ((AbsPrimitive) message).getString() : "";
+        }
+        for (int i = 0; i < ACTION_TYPES.length; i++) {
+            if (!ACTION_TYPES[i].equals(type)) continue;
+            StringBuilder content = ContentCodec.begin(new StringBuilder(96), ACTION_VERBS[i]);
+            for (int s = 0; s < ACTION_SLOTS[i].length; s++) {
+                AbsObject value = element.getAbsObject(ACTION_SLOTS[i][s]);
+                if (value != null) ContentCodec.param(content, ACTION_KEYS[i][s], ((AbsPrimitive) value).getObject().toString());
+            }
+            return content.toString();
+        }
+        return null;
+    }
+
+    /**
+     * Balasan bertipe untuk teks balasan provider. CONFIRM, INFORM dan AGREE dianggap berhasil.
+     */
+    public static AbsPredicate toResponse(int performative, String message) {
+        AbsPredicate response = new AbsPredicate(BOOKING_RESPONSE);
+        response.set("success", performative == ACLMessage.CONFIRM || performative == ACLMessage.INFORM
+                || performative == ACLMessage.AGREE);
+        response.set("message", message);
+        String transactionId = ContentCodec.valueAfter(message, "Transaction ID:", ',');
+        if (!transactionId.isEmpty()) response.set("transactionId", transactionId);
+        return response;
+    }
 }
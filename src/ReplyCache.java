@@ -0,0 +1,105 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache balasan booking per idempotency key, dibatasi jumlah entry dan umur.
+ *
+ * Request pertama dengan sebuah key mendaftarkan entry "in-flight" lewat
+ * {@link #begin}; setelah balasan final diketahui, {@link #complete} menyimpan
+ * performative dan kontennya. Duplikat berikutnya dijawab dari cache tanpa
+ * menyentuh inventaris. Jika pemrosesan gagal karena hal sementara (mis.
+ * journal), {@link #abandon} menghapus entry agar retry dieksekusi ulang.
+ *
+ * Entry disimpan dalam urutan masuk, jadi entry paling tua selalu di kepala
+ * map dan eviksi karena umur maupun kapasitas cukup memotong dari depan.
+ * Entry yang masih pending dilewati: membuangnya membuat retry dieksekusi
+ * ulang selagi request asli berjalan. Karena itu ukuran cache bisa sementara
+ * melebihi kapasitas sebanyak request yang sedang diproses.
+ */
+public class ReplyCache {
+
+    public static final class Entry {
+        private final long createdAt;
+        private int performative = -1;
+        private String content;
+
+        private Entry(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        /** @return true jika request asli masih diproses */
+        public synchronized boolean isPending() {
+            return performative < 0;
+        }
+
+        public synchronized int getPerformative() {
+            return performative;
+        }
+
+        public synchronized String getContent() {
+            return content;
+        }
+    }
+
+    private final int capacity;
+    private final long ttlMs;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private long hits;
+
+    public ReplyCache(int capacity, long ttlMs) {
+        this.capacity = capacity;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * @return null jika key baru (caller memproses request lalu memanggil complete/abandon),
+     *         atau entry yang sudah ada, mungkin masih pending
+     */
+    public synchronized Entry begin(String key, long now) {
+        evict(now);
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            hits++;
+            return existing;
+        }
+        entries.put(key, new Entry(now));
+        return null;
+    }
+
+    public synchronized void complete(String key, int performative, String content) {
+        Entry entry = entries.get(key);
+        if (entry == null) return;
+        synchronized (entry) {
+            entry.performative = performative;
+            entry.content = content;
+        }
+    }
+
+    public synchronized void abandon(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isPending()) entries.remove(key);
+    }
+
+    public synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    private void evict(long now) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            if (entries.size() < capacity && now - eldest.createdAt < ttlMs) break;
+            if (eldest.isPending()) continue;
+            iterator.remove();
+        }
+    }
+}
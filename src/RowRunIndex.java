@@ -0,0 +1,300 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Indeks run kursi kosong berurutan per baris untuk pencarian blok kursi bersebelahan.
+ *
+ * Setiap baris punya segment tree kecil di atas potongan 32 kursi. Setiap node
+ * menyimpan panjang run kosong di awal (prefix), di akhir (suffix), run terpanjang
+ * (max) dan jumlah kursi yang dicakup. Root langsung menjawab apakah sebuah baris
+ * muat N kursi berdampingan, dan posisi blok ditemukan dengan satu turunan pohon
+ * (O(log panjang baris)) ditambah scan bit dari paling banyak dua potongan.
+ *
+ * Bitmap di SeatInventory tetap menjadi sumber kebenaran. Jalur booking hanya
+ * menandai potongan yang berubah sebagai dirty (satu operasi atomik, tanpa lock);
+ * pencarian menghitung ulang potongan dirty dari bitmap di bawah lock baris
+ * sebelum membaca pohon. Hasil pencarian hanyalah kandidat yang tetap harus
+ * diklaim dengan book().
+ */
+public class RowRunIndex {
+    static final int CHUNK_SHIFT = 5;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    private static final int PREFIX = 0;
+    private static final int SUFFIX = 1;
+    private static final int MAX = 2;
+    private static final int LENGTH = 3;
+    private static final int FIELDS = 4;
+
+    private final SeatInventory inventory;
+    private final int[] rowStart;
+    private final int[] rowLength;
+    private final int[] leafCapacity;
+    private final int[] chunkBase;
+    private final int[][] trees;
+
+    // Potongan yang berubah sejak terakhir dihitung ulang (bit per potongan) dan penanda per baris
+    private final AtomicLongArray dirtyChunks;
+    private final AtomicIntegerArray dirtyRows;
+
+    /**
+     * Semua potongan dimulai dalam keadaan dirty, sehingga perubahan yang terjadi
+     * sebelum indeks dipasang tetap terbaca saat pencarian pertama.
+     */
+    RowRunIndex(SeatInventory inventory, int[] rowStart, int[] rowLength) {
+        this.inventory = inventory;
+        this.rowStart = rowStart;
+        this.rowLength = rowLength;
+        this.leafCapacity = new int[rowStart.length];
+        this.chunkBase = new int[rowStart.length];
+        this.trees = new int[rowStart.length][];
+
+        int chunks = 0;
+        for (int row = 0; row < rowStart.length; row++) {
+            int leaves = Math.max(1, (rowLength[row] + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+            int capacity = Integer.highestOneBit(leaves);
+            if (capacity < leaves) capacity <<= 1;
+            leafCapacity[row] = capacity;
+            chunkBase[row] = chunks;
+            chunks += leaves;
+            trees[row] = new int[2 * capacity * FIELDS];
+        }
+
+        long[] dirty = new long[(chunks + 63) >>> 6];
+        Arrays.fill(dirty, -1L);
+        dirtyChunks = new AtomicLongArray(dirty);
+        int[] rows = new int[rowStart.length];
+        Arrays.fill(rows, 1);
+        dirtyRows = new AtomicIntegerArray(rows);
+    }
+
+    /**
+     * Menandai potongan baris yang kursinya berubah di satu word bitmap.
+     */
+    void onChanged(int wordIndex, long changedBits, int firstRow) {
+        int row = firstRow;
+        while (changedBits != 0) {
+            int seat = (wordIndex << 6) + Long.numberOfTrailingZeros(changedBits);
+            while (seat >= rowStart[row] + rowLength[row]) row++;
+            int chunk = (seat - rowStart[row]) >>> CHUNK_SHIFT;
+            markDirty(row, chunk);
+
+            // Lewati kursi lain di potongan yang sama
+            int chunkEnd = rowStart[row] + Math.min((chunk + 1) << CHUNK_SHIFT, rowLength[row]);
+            int bit = chunkEnd - (wordIndex << 6);
+            if (bit >= 64) return;
+            changedBits &= -1L << bit;
+        }
+    }
+
+    // Bit potongan dipasang sebelum penanda baris; refresh menghapus penanda baris lebih dulu
+    private void markDirty(int row, int chunk) {
+        int id = chunkBase[row] + chunk;
+        int wordIndex = id >>> 6;
+        long bit = 1L << id;
+        while (true) {
+            long current = dirtyChunks.get(wordIndex);
+            if ((current & bit) != 0 || dirtyChunks.compareAndSet(wordIndex, current, current | bit)) break;
+        }
+        if (dirtyRows.get(row) == 0) dirtyRows.set(row, 1);
+    }
+
+    // Dipanggil di bawah lock baris. Bit dirty baris diambil per word dan hanya potongan dirty
+    // beserta leluhurnya yang dihitung ulang; node yang dilewati beberapa potongan dirty
+    // dihitung sekali, oleh potongan dirty terakhir di bawahnya.
+    private void refresh(int row, int[] tree) {
+        if (dirtyRows.get(row) == 0) return;
+        dirtyRows.set(row, 0);
+
+        int capacity = leafCapacity[row];
+        int first = chunkBase[row];
+        int last = first + Math.max(1, (rowLength[row] + CHUNK_SIZE - 1) >>> CHUNK_SHIFT) - 1;
+        int pending = 0;
+        for (int w = first >>> 6; w <= last >>> 6; w++) {
+            long mask = -1L;
+            if (w == first >>> 6) mask &= -1L << first;
+            if (w == last >>> 6) mask &= -1L >>> (63 - (last & 63));
+            long claimed;
+            while (true) {
+                long current = dirtyChunks.get(w);
+                claimed = current & mask;
+                if (claimed == 0 || dirtyChunks.compareAndSet(w, current, current & ~claimed)) break;
+            }
+            for (; claimed != 0; claimed &= claimed - 1) {
+                int leaf = capacity + (w << 6) + Long.numberOfTrailingZeros(claimed) - first;
+                setLeaf(row, leaf - capacity);
+                // Leluhur bersama dengan potongan dirty berikutnya ditunda sampai potongan itu
+                if (pending != 0) combineAncestors(tree, pending, pending >>> (32 - Integer.numberOfLeadingZeros(pending ^ leaf)));
+                pending = leaf;
+            }
+        }
+        if (pending != 0) combineAncestors(tree, pending, 0);
+    }
+
+    // Menghitung ulang leluhur node di bawah stop (0 = sampai root)
+    private static void combineAncestors(int[] tree, int node, int stop) {
+        for (node >>>= 1; node > stop; node >>>= 1) {
+            combine(tree, node);
+        }
+    }
+
+    public int longestRun(int row) {
+        int[] tree = trees[row];
+        synchronized (tree) {
+            refresh(row, tree);
+            return tree[FIELDS + MAX];
+        }
+    }
+
+    /**
+     * Mencari blok {@code count} kursi kosong di baris yang paling dekat dengan tengah baris.
+     *
+     * @return offset kursi pertama di dalam baris, atau -1 jika tidak muat
+     */
+    public int findCentered(int row, int count) {
+        int length = rowLength[row];
+        if (count <= 0 || count > length) return -1;
+        int[] tree = trees[row];
+        synchronized (tree) {
+            refresh(row, tree);
+            if (tree[FIELDS + MAX] < count) return -1;
+            int ideal = (length - count) / 2;
+            int right = firstFit(row, tree, count, ideal);
+            int left = lastFit(row, tree, count, ideal + count - 1);
+            if (left >= 0) left = left - count + 1;
+            if (left < 0) return right;
+            if (right < 0) return left;
+            return ideal - left <= right - ideal ? left : right;
+        }
+    }
+
+    /**
+     * @return offset awal blok paling kiri dengan awal >= from, atau -1
+     */
+    private int firstFit(int row, int[] tree, int count, int from) {
+        int[] carry = {0};
+        return firstFit(row, tree, 1, 0, leafCapacity[row], count, from >>> CHUNK_SHIFT, from, carry);
+    }
+
+    private int firstFit(int row, int[] tree, int node, int lo, int hi, int count, int fromLeaf, int from, int[] carry) {
+        if (hi <= fromLeaf) return -1;
+        int base = node * FIELDS;
+        int length = tree[base + LENGTH];
+        if (length == 0) return -1;
+
+        if (lo > fromLeaf) {
+            int nodeStart = lo << CHUNK_SHIFT;
+            if (carry[0] + tree[base + PREFIX] >= count) return nodeStart - carry[0];
+            if (tree[base + MAX] < count) {
+                carry[0] = tree[base + PREFIX] == length ? carry[0] + length : tree[base + SUFFIX];
+                return -1;
+            }
+        }
+
+        if (hi - lo == 1) {
+            int chunkStart = lo << CHUNK_SHIFT;
+            long bits = chunkBits(row, lo);
+            for (int i = Math.max(0, from - chunkStart); i < length; i++) {
+                if ((bits & (1L << i)) != 0) {
+                    if (++carry[0] >= count) return chunkStart + i - count + 1;
+                } else {
+                    carry[0] = 0;
+                }
+            }
+            return -1;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        int result = firstFit(row, tree, 2 * node, lo, mid, count, fromLeaf, from, carry);
+        if (result >= 0) return result;
+        return firstFit(row, tree, 2 * node + 1, mid, hi, count, fromLeaf, from, carry);
+    }
+
+    /**
+     * Cerminan {@link #firstFit}: offset akhir blok paling kanan dengan akhir <= to, atau -1.
+     */
+    private int lastFit(int row, int[] tree, int count, int to) {
+        int[] carry = {0};
+        return lastFit(row, tree, 1, 0, leafCapacity[row], count, to >>> CHUNK_SHIFT, to, carry);
+    }
+
+    private int lastFit(int row, int[] tree, int node, int lo, int hi, int count, int toLeaf, int to, int[] carry) {
+        if (lo > toLeaf) return -1;
+        int base = node * FIELDS;
+        int length = tree[base + LENGTH];
+        if (length == 0) return -1;
+
+        if (hi - 1 < toLeaf) {
+            int nodeEnd = (lo << CHUNK_SHIFT) + length - 1;
+            if (carry[0] + tree[base + SUFFIX] >= count) return nodeEnd + carry[0];
+            if (tree[base + MAX] < count) {
+                carry[0] = tree[base + SUFFIX] == length ? carry[0] + length : tree[base + PREFIX];
+                return -1;
+            }
+        }
+
+        if (hi - lo == 1) {
+            int chunkStart = lo << CHUNK_SHIFT;
+            long bits = chunkBits(row, lo);
+            for (int i = Math.min(length - 1, to - chunkStart); i >= 0; i--) {
+                if ((bits & (1L << i)) != 0) {
+                    if (++carry[0] >= count) return chunkStart + i + count - 1;
+                } else {
+                    carry[0] = 0;
+                }
+            }
+            return -1;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        int result = lastFit(row, tree, 2 * node + 1, mid, hi, count, toLeaf, to, carry);
+        if (result >= 0) return result;
+        return lastFit(row, tree, 2 * node, lo, mid, count, toLeaf, to, carry);
+    }
+
+    private long chunkBits(int row, int chunk) {
+        int offset = chunk << CHUNK_SHIFT;
+        return inventory.availableRange(rowStart[row] + offset, Math.min(CHUNK_SIZE, rowLength[row] - offset));
+    }
+
+    // Node daun selalu dihitung ulang dari bitmap, sehingga update yang berlomba tetap konvergen
+    private void setLeaf(int row, int chunk) {
+        int length = Math.min(CHUNK_SIZE, rowLength[row] - (chunk << CHUNK_SHIFT));
+        long bits = chunkBits(row, chunk);
+        int base = (leafCapacity[row] + chunk) * FIELDS;
+        int[] tree = trees[row];
+
+        int prefix = Math.min(Long.numberOfTrailingZeros(~bits), length);
+        int suffix = Math.min(Long.numberOfLeadingZeros(~(bits << (64 - length))), length);
+        int max = 0;
+        for (long run = bits; run != 0; run &= run >>> 1) max++;
+
+        tree[base + PREFIX] = prefix;
+        tree[base + SUFFIX] = suffix;
+        tree[base + MAX] = max;
+        tree[base + LENGTH] = length;
+    }
+
+    private static void combine(int[] tree, int node) {
+        int base = node * FIELDS;
+        int left = 2 * node * FIELDS;
+        int right = left + FIELDS;
+        int leftLength = tree[left + LENGTH];
+        int rightLength = tree[right + LENGTH];
+
+        tree[base + PREFIX] = tree[left + PREFIX] == leftLength ? leftLength + tree[right + PREFIX] : tree[left + PREFIX];
+        tree[base + SUFFIX] = tree[right + SUFFIX] == rightLength ? rightLength + tree[left + SUFFIX] : tree[right + SUFFIX];
+        tree[base + MAX] = Math.max(Math.max(tree[left + MAX], tree[right + MAX]), tree[left + SUFFIX] + tree[right + PREFIX]);
+        tree[base + LENGTH] = leftLength + rightLength;
+    }
+
+    public long estimateFootprintBytes() {
+        long bytes = 3 * (16 + 4L * leafCapacity.length) + 16 + 4L * trees.length
+                + 16 + 16 + 8L * dirtyChunks.length();
+        for (int[] tree : trees) {
+            bytes += 16 + 4L * tree.length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,780 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Inventaris kursi yang dikemas dalam array primitif.
+ *
+ * Setiap kursi diwakili oleh sebuah indeks integer (row-major). Ketersediaan
+ * disimpan sebagai bitset (1 = tersedia), sedangkan harga dan kelas kursi
+ * disimpan di array paralel int[] dan byte[]. Dengan begitu satu kursi hanya
+ * membutuhkan sekitar 5 byte + 1 bit, bukan satu objek SeatInfo lengkap
+ * dengan lock, String kelas dan timestamp.
+ *
+ * Klaim kursi bersifat lock-free: bitset berupa AtomicLongArray dan setiap
+ * word diklaim dengan compare-and-set. Booking beberapa kursi dilakukan
+ * all-or-nothing; jika salah satu word gagal, word yang sudah diklaim
+ * dikembalikan (rollback) sebelum booking dinyatakan gagal.
+ *
+ * Bitmap kedua ({@code soldBits}) mencatat kursi yang sudah terjual permanen,
+ * untuk membedakannya dari kursi yang sedang di-hold. Hanya bitmap ini yang
+ * disimpan di snapshot; hold tidak bertahan setelah restart.
+ *
+ * Untuk query info, setiap kelas punya counter kursi tersedia dan ringkasan
+ * word (satu bit per word bitmap yang mungkin berisi kursi bebas kelas itu).
+ * Keduanya diperbarui dari selisih bit setiap CAS pada bitmap ketersediaan,
+ * sehingga jumlah per kelas O(1) dan daftar kursi hanya menyentuh word yang
+ * memang berisi kursi bebas, tanpa scan seluruh studio.
+ *
+ * Geometri studio: baris diurutkan dari depan ke belakang dan kursi dinomori
+ * dari kiri ke kanan. {@link RowRunIndex} mengindeks run kursi kosong per baris
+ * untuk mencari blok kursi bersebelahan terbaik (baris tengah dari bagian kelas,
+ * posisi paling dekat ke tengah baris).
+ *
+ * Subscriber availability tidak membaca inventaris ini langsung: setiap CAS
+ * menandai word-nya di bitmap {@code changedWords}, dan provider secara berkala
+ * mengambil word yang berubah sebagai delta berversi ({@link #drainDelta}).
+ * Delta berisi nilai word utuh, bukan selisih, sehingga aman diterapkan ulang.
+ *
+ * Terpisah dari versi delta, {@link #getVersion} naik pada setiap perubahan
+ * ketersediaan. Klien yang menyimpan versi bersama state yang dibacanya bisa
+ * memeriksa apakah state itu masih terkini dengan satu perbandingan.
+ *
+ * Query daftar dan jumlah kursi untuk klien dibaca dari {@link #view()}: salinan
+ * immutable yang divalidasi seperti seqlock. Setiap operasi tulis menaikkan counter
+ * {@code activeWriters} selama berjalan (termasuk booking multi-word dan rollback-nya);
+ * pembaca menyalin word, counter dan ringkasan kelas lalu menerima salinan hanya jika
+ * tidak ada penulis aktif dan versi tidak berubah selama penyalinan. Selama versi tetap
+ * view terakhir dipakai ulang tanpa menyalin. Pembaca yang terus kalah dari penulis
+ * berhenti mencoba setelah beberapa kali dan menahan penulis baru sebentar lewat
+ * {@code viewLock}; di luar itu penulis tidak pernah menunggu pembaca.
+ */
+public class SeatInventory {
+    public static final String[] CLASS_NAMES = {"VIP", "Regular", "Economy"};
+    public static final int CLASS_VIP = 0;
+    public static final int CLASS_REGULAR = 1;
+    public static final int CLASS_ECONOMY = 2;
+
+    private final int[] rowStart;
+    private final int[] rowLength;
+    private final byte[] rowClass;
+
+    private final AtomicLongArray availableBits;
+    private final AtomicLongArray soldBits;
+    private final int[] prices;
+    private final byte[] classOrdinals;
+    private final int seatCount;
+
+    // Indeks ketersediaan per kelas
+    private final long[][] classWordMasks;
+    private final AtomicLongArray[] classSummaries;
+    private final AtomicIntegerArray classAvailable;
+
+    // Baris per kelas, diurutkan dari yang paling diminati
+    private final int[][] classRowPreference;
+    // Dibuat saat pencarian blok pertama; show yang tidak pernah memakainya tidak membayar memorinya
+    private volatile RowRunIndex runIndex;
+
+    // Delta ketersediaan untuk subscriber topic: satu bit per word yang berubah sejak delta terakhir
+    private final AtomicLongArray changedWords;
+    private final Object deltaLock = new Object();
+    private long deltaVersion;
+
+    // Naik setiap kali word ketersediaan berubah
+    private final AtomicLong version = new AtomicLong();
+    // Jumlah operasi tulis yang sedang berjalan; view hanya diterima jika 0 sebelum dan sesudah menyalin
+    private final AtomicInteger activeWriters = new AtomicInteger();
+    private volatile SeatView lastView;
+    // Dipegang pembaca yang gagal VIEW_ATTEMPTS kali; penulis baru menunggu selama flag terpasang
+    private final Object viewLock = new Object();
+    private volatile boolean viewWaiting;
+    private static final int VIEW_ATTEMPTS = 16;
+
+    /**
+     * @param rowLengths jumlah kursi di setiap baris (baris 0 = "A", 1 = "B", ...)
+     * @param rowClasses ordinal kelas untuk setiap baris
+     * @param classPrices harga per kelas, diindeks dengan ordinal kelas
+     */
+    public SeatInventory(int[] rowLengths, int[] rowClasses, int[] classPrices) {
+        if (rowLengths.length != rowClasses.length) {
+            throw new IllegalArgumentException("rowLengths dan rowClasses harus sama panjang");
+        }
+
+        int rows = rowLengths.length;
+        rowStart = new int[rows];
+        rowLength = new int[rows];
+        rowClass = new byte[rows];
+
+        int total = 0;
+        for (int r = 0; r < rows; r++) {
+            rowStart[r] = total;
+            rowLength[r] = rowLengths[r];
+            rowClass[r] = (byte) rowClasses[r];
+            total += rowLengths[r];
+        }
+        seatCount = total;
+
+        long[] bits = new long[(total + 63) >>> 6];
+        prices = new int[total];
+        classOrdinals = new byte[total];
+
+        for (int r = 0; r < rows; r++) {
+            for (int i = rowStart[r], end = rowStart[r] + rowLength[r]; i < end; i++) {
+                classOrdinals[i] = rowClass[r];
+                prices[i] = classPrices[rowClass[r]];
+                bits[i >>> 6] |= 1L << i;
+            }
+        }
+        availableBits = new AtomicLongArray(bits);
+        soldBits = new AtomicLongArray(bits.length);
+
+        classWordMasks = new long[CLASS_NAMES.length][bits.length];
+        classSummaries = new AtomicLongArray[CLASS_NAMES.length];
+        classAvailable = new AtomicIntegerArray(CLASS_NAMES.length);
+        for (int i = 0; i < total; i++) {
+            classWordMasks[classOrdinals[i]][i >>> 6] |= 1L << i;
+            classAvailable.incrementAndGet(classOrdinals[i]);
+        }
+        for (int c = 0; c < CLASS_NAMES.length; c++) {
+            long[] summary = new long[(bits.length + 63) >>> 6];
+            for (int w = 0; w < bits.length; w++) {
+                if (classWordMasks[c][w] != 0) summary[w >>> 6] |= 1L << w;
+            }
+            classSummaries[c] = new AtomicLongArray(summary);
+        }
+        changedWords = new AtomicLongArray((bits.length + 63) >>> 6);
+
+        classRowPreference = new int[CLASS_NAMES.length][];
+        for (int c = 0; c < CLASS_NAMES.length; c++) {
+            classRowPreference[c] = preferredRows(c);
+        }
+    }
+
+    // Baris tengah dari bagian kelas lebih dulu, lalu melebar ke depan dan belakang
+    private int[] preferredRows(int classOrdinal) {
+        int count = 0;
+        for (byte cls : rowClass) {
+            if (cls == classOrdinal) count++;
+        }
+        int[] rows = new int[count];
+        int n = 0;
+        for (int r = 0; r < rowClass.length; r++) {
+            if (rowClass[r] == classOrdinal) rows[n++] = r;
+        }
+
+        int[] ordered = new int[count];
+        int center = (count - 1) / 2;
+        for (int i = 0, lo = center, hi = center + 1; i < count; i++) {
+            boolean takeHigh = lo < 0 || (hi < count && hi - center <= center - lo);
+            ordered[i] = takeHigh ? rows[hi++] : rows[lo--];
+        }
+        return ordered;
+    }
+
+    /**
+     * Layout default provider: A1-A3 VIP, B1-B4 Regular, C1-C5 Economy.
+     */
+    public static SeatInventory createDefault() {
+        return new SeatInventory(
+                new int[]{3, 4, 5},
+                new int[]{CLASS_VIP, CLASS_REGULAR, CLASS_ECONOMY},
+                new int[]{150000, 100000, 75000});
+    }
+
+    public static int classOrdinal(String seatClass) {
+        for (int i = 0; i < CLASS_NAMES.length; i++) {
+            if (CLASS_NAMES[i].equals(seatClass)) return i;
+        }
+        return -1;
+    }
+
+    public int getSeatCount() {
+        return seatCount;
+    }
+
+    public int getRowCount() {
+        return rowStart.length;
+    }
+
+    public int getPrice(int seat) {
+        return prices[seat];
+    }
+
+    public int getClassOrdinal(int seat) {
+        return classOrdinals[seat];
+    }
+
+    /**
+     * Mengubah ID kursi seperti "A1" atau "AB12" menjadi indeks kursi.
+     *
+     * @return indeks kursi, atau -1 jika ID tidak valid
+     */
+    public int indexOf(CharSequence seatId) {
+        int len = seatId.length();
+        int pos = 0;
+        int row = 0;
+        while (pos < len) {
+            char c = seatId.charAt(pos);
+            if (c < 'A' || c > 'Z') break;
+            row = row * 26 + (c - 'A' + 1);
+            if (row > rowStart.length) return -1;
+            pos++;
+        }
+        if (pos == 0 || pos == len) return -1;
+        row--;
+
+        int number = 0;
+        while (pos < len) {
+            char c = seatId.charAt(pos);
+            if (c < '0' || c > '9') return -1;
+            number = number * 10 + (c - '0');
+            if (number > 100000) return -1;
+            pos++;
+        }
+
+        if (row >= rowStart.length || number < 1 || number > rowLength[row]) return -1;
+        return rowStart[row] + number - 1;
+    }
+
+    public String seatId(int seat) {
+        StringBuilder sb = new StringBuilder(6);
+        appendSeatId(sb, seat);
+        return sb.toString();
+    }
+
+    public void appendSeatId(StringBuilder sb, int seat) {
+        int row = rowOf(seat);
+        appendRowName(sb, row);
+        sb.append(seat - rowStart[row] + 1);
+    }
+
+    private static void appendRowName(StringBuilder sb, int row) {
+        int n = row + 1;
+        int mark = sb.length();
+        while (n > 0) {
+            n--;
+            sb.insert(mark, (char) ('A' + n % 26));
+            n /= 26;
+        }
+    }
+
+    private int rowOf(int seat) {
+        int lo = 0, hi = rowStart.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (rowStart[mid] <= seat) lo = mid; else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    public boolean isAvailable(int seat) {
+        return (availableBits.get(seat >>> 6) & (1L << seat)) != 0;
+    }
+
+    // Bit ketersediaan untuk maksimal 64 kursi mulai dari {@code seat}, bit 0 = kursi pertama
+    long availableRange(int seat, int length) {
+        if (length <= 0) return 0;
+        int wordIndex = seat >>> 6;
+        int shift = seat & 63;
+        long bits = availableBits.get(wordIndex) >>> shift;
+        if (shift + length > 64) bits |= availableBits.get(wordIndex + 1) << (64 - shift);
+        return length == 64 ? bits : bits & ((1L << length) - 1);
+    }
+
+    public int getRowStart(int row) {
+        return rowStart[row];
+    }
+
+    public int getRowLength(int row) {
+        return rowLength[row];
+    }
+
+    int getRowClass(int row) {
+        return rowClass[row];
+    }
+
+    int[] getPreferredRows(int classOrdinal) {
+        return classRowPreference[classOrdinal].clone();
+    }
+
+    /**
+     * Mencari {@code count} kursi kosong bersebelahan terbaik di kelas tertentu.
+     *
+     * Baris dicoba sesuai urutan preferensi; root segment tree setiap baris
+     * menjawab dalam O(1) apakah blok muat, dan posisi di baris dicari dalam
+     * O(log panjang baris). Hasil hanyalah kandidat sampai diklaim dengan {@link #book}.
+     *
+     * @return indeks kursi berurutan, atau null jika tidak ada baris yang muat
+     */
+    public int[] findBestBlock(int classOrdinal, int count) {
+        if (classOrdinal < 0 || classOrdinal >= CLASS_NAMES.length || count <= 0) return null;
+        RowRunIndex index = runIndex();
+        for (int row : classRowPreference[classOrdinal]) {
+            int offset = index.findCentered(row, count);
+            if (offset < 0) continue;
+            int[] seats = new int[count];
+            for (int i = 0; i < count; i++) seats[i] = rowStart[row] + offset + i;
+            return seats;
+        }
+        return null;
+    }
+
+    private RowRunIndex runIndex() {
+        RowRunIndex index = runIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = runIndex;
+                if (index == null) {
+                    index = new RowRunIndex(this, rowStart, rowLength);
+                    runIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Mencari lalu membooking blok bersebelahan terbaik; jika blok direbut thread
+     * lain di antara pencarian dan CAS, pencarian diulang.
+     *
+     * @return kursi yang berhasil dibooking, atau null jika tidak ada blok yang muat
+     */
+    public int[] bookBestBlock(int classOrdinal, int count) {
+        for (int attempt = 0; attempt < 16; attempt++) {
+            int[] seats = findBestBlock(classOrdinal, count);
+            if (seats == null) return null;
+            if (book(seats)) return seats;
+        }
+        return null;
+    }
+
+    /**
+     * Membooking semua kursi yang diminta secara all-or-nothing tanpa lock.
+     *
+     * Kursi diurutkan lalu dikelompokkan per word 64-bit; setiap word diklaim
+     * dengan satu CAS (urutan word menaik). Jika ada kursi yang sudah tidak
+     * tersedia, word yang sudah diklaim dikembalikan.
+     *
+     * @return false jika ada indeks yang tidak valid, duplikat, atau kursi sudah terpesan
+     */
+    public boolean book(int[] seats) {
+        if (seats.length == 0) return false;
+
+        int[] sorted = seats.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] < 0 || sorted[i] >= seatCount) return false;
+            if (i > 0 && sorted[i] == sorted[i - 1]) return false;
+        }
+
+        beginWrite();
+        try {
+            int i = 0;
+            while (i < sorted.length) {
+                int wordIndex = sorted[i] >>> 6;
+                long mask = 0;
+                while (i < sorted.length && (sorted[i] >>> 6) == wordIndex) {
+                    mask |= 1L << sorted[i];
+                    i++;
+                }
+
+                if (!claimWord(wordIndex, mask)) {
+                    rollback(sorted, wordIndex);
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Mengembalikan kursi yang sebelumnya di-hold atau dibooking menjadi tersedia.
+     * Kursi yang sudah ditandai terjual tidak ikut dilepas.
+     */
+    public void release(int[] seats) {
+        beginWrite();
+        try {
+            for (int seat : seats) {
+                if (seat < 0 || seat >= seatCount) continue;
+                releaseWord(seat >>> 6, 1L << seat);
+            }
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Menandai kursi sebagai terjual permanen (sekaligus tidak tersedia). Idempotent.
+     */
+    public void markSold(int[] seats) {
+        beginWrite();
+        try {
+            for (int seat : seats) {
+                if (seat < 0 || seat >= seatCount) continue;
+                orWord(soldBits, seat >>> 6, 1L << seat);
+                clearAvailable(seat >>> 6, 1L << seat);
+            }
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Membatalkan {@link #markSold} dan mengembalikan kursi menjadi tersedia,
+     * dipakai jika booking gagal disimpan ke journal.
+     */
+    public void cancelSale(int[] seats) {
+        for (int seat : seats) {
+            if (seat < 0 || seat >= seatCount) continue;
+            andWord(soldBits, seat >>> 6, ~(1L << seat));
+        }
+        release(seats);
+    }
+
+    /**
+     * Menandai kursi tidak tersedia tanpa memeriksa status sebelumnya (replay hold dari journal).
+     */
+    public void reserve(int[] seats) {
+        beginWrite();
+        try {
+            for (int seat : seats) {
+                if (seat < 0 || seat >= seatCount) continue;
+                clearAvailable(seat >>> 6, 1L << seat);
+            }
+        } finally {
+            endWrite();
+        }
+    }
+
+    public boolean isSold(int seat) {
+        return (soldBits.get(seat >>> 6) & (1L << seat)) != 0;
+    }
+
+    /**
+     * Salinan bitmap kursi terjual untuk snapshot. Setiap word dibaca secara
+     * atomik, tetapi salinan tidak konsisten antar-word; replay journal setelah
+     * snapshot bersifat idempotent sehingga hal ini aman.
+     */
+    public long[] copySoldWords() {
+        long[] words = new long[soldBits.length()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = soldBits.get(i);
+        }
+        return words;
+    }
+
+    /**
+     * Memulihkan kursi terjual dari snapshot.
+     */
+    public void restoreSold(long[] words) {
+        if (words.length != soldBits.length()) {
+            throw new IllegalArgumentException("Ukuran snapshot tidak cocok dengan layout kursi");
+        }
+        beginWrite();
+        try {
+            for (int i = 0; i < words.length; i++) {
+                orWord(soldBits, i, words[i]);
+                clearAvailable(i, words[i]);
+            }
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Menandai awal operasi tulis untuk validasi {@link #view()}; tidak boleh bersarang.
+     * Jika pembaca sedang menahan penulis, tanda dilepas lagi dan penulis menunggu di
+     * {@code viewLock}. Flag dibaca setelah counter naik dan pembaca memasang flag sebelum
+     * membaca counter, sehingga salah satunya pasti melihat yang lain.
+     */
+    private void beginWrite() {
+        while (true) {
+            activeWriters.incrementAndGet();
+            if (!viewWaiting) return;
+            activeWriters.decrementAndGet();
+            synchronized (viewLock) {
+                // Pembaca selesai menyalin saat lock dilepas
+            }
+        }
+    }
+
+    private void endWrite() {
+        activeWriters.decrementAndGet();
+    }
+
+    private boolean claimWord(int wordIndex, long mask) {
+        while (true) {
+            long current = availableBits.get(wordIndex);
+            if ((current & mask) != mask) return false;
+            if (availableBits.compareAndSet(wordIndex, current, current & ~mask)) {
+                onAvailableChanged(wordIndex, current, current & ~mask);
+                return true;
+            }
+        }
+    }
+
+    private void releaseWord(int wordIndex, long mask) {
+        mask &= ~soldBits.get(wordIndex);
+        while (true) {
+            long current = availableBits.get(wordIndex);
+            if ((current & mask) == mask) return;
+            if (availableBits.compareAndSet(wordIndex, current, current | mask)) {
+                onAvailableChanged(wordIndex, current, current | mask);
+                return;
+            }
+        }
+    }
+
+    private void clearAvailable(int wordIndex, long mask) {
+        while (true) {
+            long current = availableBits.get(wordIndex);
+            if ((current & mask) == 0) return;
+            if (availableBits.compareAndSet(wordIndex, current, current & ~mask)) {
+                onAvailableChanged(wordIndex, current, current & ~mask);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Memperbarui counter dan ringkasan per kelas setelah CAS berhasil pada word ketersediaan.
+     *
+     * Ringkasan adalah petunjuk konservatif: bit dipasang setelah kursi dilepas,
+     * dan setelah bit dihapus word dibaca ulang sehingga pelepasan yang
+     * bersamaan tidak pernah hilang dari ringkasan.
+     */
+    private void onAvailableChanged(int wordIndex, long before, long after) {
+        long freed = after & ~before;
+        long taken = before & ~after;
+        RowRunIndex index = runIndex;
+        if (index != null) index.onChanged(wordIndex, freed | taken, rowOf(wordIndex << 6));
+        // Ditandai setelah CAS: drain yang membaca word sebelum tanda ini akan membacanya lagi di delta berikutnya
+        orWord(changedWords, wordIndex >>> 6, 1L << wordIndex);
+        for (int c = 0; c < CLASS_NAMES.length; c++) {
+            long classMask = classWordMasks[c][wordIndex];
+            int delta = Long.bitCount(freed & classMask) - Long.bitCount(taken & classMask);
+            if (delta == 0) continue;
+            classAvailable.addAndGet(c, delta);
+
+            AtomicLongArray summary = classSummaries[c];
+            long summaryBit = 1L << wordIndex;
+            if (delta > 0) {
+                orWord(summary, wordIndex >>> 6, summaryBit);
+            } else if ((after & classMask) == 0) {
+                andWord(summary, wordIndex >>> 6, ~summaryBit);
+                if ((availableBits.get(wordIndex) & classMask) != 0) orWord(summary, wordIndex >>> 6, summaryBit);
+            }
+        }
+        // Dinaikkan terakhir: pembaca yang melihat versi baru juga melihat state dan indeksnya
+        version.incrementAndGet();
+    }
+
+    private static void orWord(AtomicLongArray bits, int wordIndex, long mask) {
+        while (true) {
+            long current = bits.get(wordIndex);
+            if ((current & mask) == mask || bits.compareAndSet(wordIndex, current, current | mask)) return;
+        }
+    }
+
+    private static void andWord(AtomicLongArray bits, int wordIndex, long mask) {
+        while (true) {
+            long current = bits.get(wordIndex);
+            if ((current & ~mask) == 0 || bits.compareAndSet(wordIndex, current, current & mask)) return;
+        }
+    }
+
+    // Kembalikan semua word sebelum failedWord yang sudah diklaim oleh book()
+    private void rollback(int[] sorted, int failedWord) {
+        int i = 0;
+        while (i < sorted.length && (sorted[i] >>> 6) < failedWord) {
+            int wordIndex = sorted[i] >>> 6;
+            long mask = 0;
+            while (i < sorted.length && (sorted[i] >>> 6) == wordIndex) {
+                mask |= 1L << sorted[i];
+                i++;
+            }
+            releaseWord(wordIndex, mask);
+        }
+    }
+
+    /**
+     * Versi ketersediaan, naik setiap kali ada kursi yang berubah status. Baca versi
+     * sebelum membaca state: state yang dibaca setelahnya minimal sebaru versi itu, dan
+     * jika versi masih sama, belum ada perubahan sejak versi itu dibaca. Booking yang
+     * gagal dan di-rollback juga menaikkan versi (konservatif).
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Salinan ketersediaan yang konsisten pada satu titik waktu.
+     *
+     * Jika versi belum berubah sejak view terakhir, view itu dikembalikan tanpa menyalin
+     * dan tanpa alokasi; buffer salinan baru dibuat saat cache pertama kali meleset.
+     * Jika penulis aktif atau versi berubah selama penyalinan, salinan dibuang dan diulang
+     * tanpa lock; setelah {@code VIEW_ATTEMPTS} percobaan gagal, penulis baru ditahan
+     * sampai penulis yang sedang berjalan selesai, lalu salinan diambil sekali lagi.
+     */
+    public SeatView view() {
+        long[] words = null;
+        int[] counts = null;
+        long[][] summaries = null;
+        for (int attempt = 0; attempt < VIEW_ATTEMPTS; attempt++) {
+            if (attempt > 0) Thread.yield();
+            long before = version.get();
+            SeatView cached = lastView;
+            if (cached != null && cached.getVersion() == before) return cached;
+            if (activeWriters.get() != 0) continue;
+            if (words == null) {
+                words = new long[availableBits.length()];
+                counts = new int[CLASS_NAMES.length];
+                summaries = new long[CLASS_NAMES.length][classSummaries[0].length()];
+            }
+            copyState(words, counts, summaries);
+            if (activeWriters.get() != 0 || version.get() != before) continue;
+            return publishView(before, words, counts, summaries, cached);
+        }
+
+        synchronized (viewLock) {
+            viewWaiting = true;
+            try {
+                while (activeWriters.get() != 0) Thread.yield();
+                long current = version.get();
+                SeatView cached = lastView;
+                if (cached != null && cached.getVersion() == current) return cached;
+                if (words == null) {
+                    words = new long[availableBits.length()];
+                    counts = new int[CLASS_NAMES.length];
+                    summaries = new long[CLASS_NAMES.length][classSummaries[0].length()];
+                }
+                copyState(words, counts, summaries);
+                return publishView(current, words, counts, summaries, cached);
+            } finally {
+                viewWaiting = false;
+            }
+        }
+    }
+
+    private void copyState(long[] words, int[] counts, long[][] summaries) {
+        for (int w = 0; w < words.length; w++) {
+            words[w] = availableBits.get(w);
+        }
+        for (int c = 0; c < counts.length; c++) {
+            counts[c] = classAvailable.get(c);
+            for (int s = 0; s < summaries[c].length; s++) {
+                summaries[c][s] = classSummaries[c].get(s);
+            }
+        }
+    }
+
+    private SeatView publishView(long version, long[] words, int[] counts, long[][] summaries, SeatView previous) {
+        SeatView view = new SeatView(this, version, words, counts, summaries, previous);
+        lastView = view;
+        return view;
+    }
+
+    public int countAvailable() {
+        int count = 0;
+        for (int c = 0; c < CLASS_NAMES.length; c++) {
+            count += classAvailable.get(c);
+        }
+        return count;
+    }
+
+    public int countAvailable(int classOrdinal) {
+        return classAvailable.get(classOrdinal);
+    }
+
+    long classMask(int wordIndex, int classSet) {
+        long mask = 0;
+        for (int c = 0; c < CLASS_NAMES.length; c++) {
+            if ((classSet & (1 << c)) != 0) mask |= classWordMasks[c][wordIndex];
+        }
+        return mask;
+    }
+
+    /**
+     * Menulis word ketersediaan yang berubah sejak delta sebelumnya sebagai
+     * "indeks:hex;indeks:hex" lalu menaikkan versi delta.
+     *
+     * @return versi delta, atau -1 jika tidak ada perubahan (tidak ada yang ditulis)
+     */
+    public long drainDelta(StringBuilder sb) {
+        synchronized (deltaLock) {
+            boolean changed = false;
+            for (int s = 0; s < changedWords.length(); s++) {
+                if (changedWords.get(s) == 0) continue;
+                long summary = changedWords.getAndSet(s, 0);
+                while (summary != 0) {
+                    int wordIndex = (s << 6) + Long.numberOfTrailingZeros(summary);
+                    summary &= summary - 1;
+                    appendWord(sb, wordIndex, changed);
+                    changed = true;
+                }
+            }
+            return changed ? ++deltaVersion : -1;
+        }
+    }
+
+    /**
+     * Menulis seluruh word ketersediaan (snapshot untuk subscriber baru) dengan format yang sama
+     * seperti {@link #drainDelta}. Delta dengan versi lebih besar dari nilai kembalian
+     * dapat diterapkan langsung di atas snapshot ini.
+     *
+     * @return versi delta terakhir yang sudah tercakup
+     */
+    public long appendSnapshot(StringBuilder sb) {
+        synchronized (deltaLock) {
+            for (int w = 0; w < availableBits.length(); w++) {
+                appendWord(sb, w, w > 0);
+            }
+            return deltaVersion;
+        }
+    }
+
+    private void appendWord(StringBuilder sb, int wordIndex, boolean separator) {
+        if (separator) sb.append(';');
+        sb.append(wordIndex).append(':').append(Long.toHexString(availableBits.get(wordIndex)));
+    }
+
+    /**
+     * Menimpa satu word ketersediaan dengan nilai dari provider (replika di sisi subscriber).
+     * Counter dan indeks per kelas ikut diperbarui; bit di luar kursi yang ada diabaikan.
+     */
+    public void overwriteAvailableWord(int wordIndex, long bits) {
+        if (wordIndex < 0 || wordIndex >= availableBits.length()) return;
+        bits &= classMask(wordIndex, (1 << CLASS_NAMES.length) - 1);
+        beginWrite();
+        try {
+            while (true) {
+                long current = availableBits.get(wordIndex);
+                if (current == bits) return;
+                if (availableBits.compareAndSet(wordIndex, current, bits)) {
+                    onAvailableChanged(wordIndex, current, bits);
+                    return;
+                }
+            }
+        } finally {
+            endWrite();
+        }
+    }
+
+    /**
+     * Perkiraan ukuran heap (byte) untuk array-array inventaris ini (termasuk objek AtomicLongArray),
+     * memakai header array 16 byte dan referensi terkompresi.
+     */
+    public long estimateFootprintBytes() {
+        int classes = CLASS_NAMES.length;
+        return 2 * (16 + 16 + 8L * availableBits.length())
+                + 16 + 4L * classes + classes * (16 + 8L * availableBits.length())
+                + (classes + 1) * (16 + 16 + 8L * classSummaries[0].length()) + 16 + 16 + 4L * classes
+                + 16 + 4L * prices.length + (runIndex != null ? runIndex.estimateFootprintBytes() : 0)
+                + 16 + classOrdinals.length
+                + 3 * 16 + 8L * rowStart.length + rowClass.length;
+    }
+}
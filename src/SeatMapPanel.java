@@ -0,0 +1,226 @@
+import javax.swing.JComponent;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+
+/**
+ * Peta kursi grafis untuk studio besar.
+ *
+ * State kursi disimpan sebagai word bitmap ketersediaan (format sama dengan
+ * {@link SeatInventory}, bit 1 = tersedia) plus mask kelas per word, tanpa objek
+ * per kursi. {@link #paintComponent} hanya menggambar baris dan kursi yang
+ * berpotongan dengan clip, sehingga biaya paint mengikuti ukuran viewport, bukan
+ * ukuran studio. {@link #updateWord} membandingkan word lama dan baru lalu hanya
+ * me-repaint sel kursi yang berubah.
+ *
+ * Semua method harus dipanggil di EDT.
+ */
+public class SeatMapPanel extends JComponent implements Scrollable {
+    static final int CELL = 18;
+    static final int SEAT = 14;
+    static final int LABEL_WIDTH = 28;
+    static final int MARGIN = 6;
+
+    static final Color AVAILABLE = new Color(46, 160, 67);
+    static final Color TAKEN = new Color(200, 60, 60);
+    private static final Color OTHER_AVAILABLE = new Color(205, 232, 210);
+    private static final Color OTHER_TAKEN = new Color(236, 206, 206);
+
+    private final SeatInventory layout;
+    private final String[] rowNames;
+    private final long[][] classWordMasks;
+    private final int maxRowLength;
+
+    private final long[] words;
+    private boolean loaded;
+    private int classFilter = -1;
+    // Jumlah kursi yang digambar pada paint terakhir (untuk test dan diagnosa)
+    int lastPaintedSeats;
+
+    public SeatMapPanel(SeatInventory layout) {
+        this.layout = layout;
+        int wordCount = (layout.getSeatCount() + 63) >>> 6;
+        words = new long[wordCount];
+        classWordMasks = new long[SeatInventory.CLASS_NAMES.length][wordCount];
+        for (int seat = 0; seat < layout.getSeatCount(); seat++) {
+            classWordMasks[layout.getClassOrdinal(seat)][seat >>> 6] |= 1L << seat;
+        }
+
+        rowNames = new String[layout.getRowCount()];
+        int longest = 0;
+        for (int row = 0; row < rowNames.length; row++) {
+            String firstSeat = layout.seatId(layout.getRowStart(row));
+            rowNames[row] = firstSeat.substring(0, firstSeat.length() - 1);
+            longest = Math.max(longest, layout.getRowLength(row));
+        }
+        maxRowLength = longest;
+
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        // Mendaftarkan komponen ke ToolTipManager; teks dihitung per posisi mouse
+        setToolTipText("");
+    }
+
+    /**
+     * Mengganti seluruh state (pindah pertunjukan). {@code null} berarti data belum diterima.
+     */
+    public void setWords(long[] source) {
+        loaded = source != null;
+        if (loaded) {
+            System.arraycopy(source, 0, words, 0, Math.min(source.length, words.length));
+        }
+        repaint();
+    }
+
+    /**
+     * Menerapkan satu word dari replika dan me-repaint hanya kursi yang berubah.
+     *
+     * @return jumlah kursi yang berubah
+     */
+    public int updateWord(int wordIndex, long bits) {
+        if (!loaded || wordIndex < 0 || wordIndex >= words.length) return 0;
+        long changed = words[wordIndex] ^ bits;
+        words[wordIndex] = bits;
+        int count = 0;
+        while (changed != 0) {
+            int seat = (wordIndex << 6) + Long.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+            if (seat >= layout.getSeatCount()) break;
+            Rectangle cell = seatBounds(seat);
+            repaint(cell.x, cell.y, cell.width, cell.height);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Kelas yang ditonjolkan; kursi kelas lain digambar pudar. -1 = semua kelas.
+     */
+    public void setClassFilter(int classOrdinal) {
+        if (classFilter == classOrdinal) return;
+        classFilter = classOrdinal;
+        repaint();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int countAvailable(int classOrdinal) {
+        int count = 0;
+        for (int w = 0; w < words.length; w++) {
+            count += Long.bitCount(words[w] & classWordMasks[classOrdinal][w]);
+        }
+        return count;
+    }
+
+    public int countSeats(int classOrdinal) {
+        int count = 0;
+        for (long mask : classWordMasks[classOrdinal]) {
+            count += Long.bitCount(mask);
+        }
+        return count;
+    }
+
+    Rectangle seatBounds(int seat) {
+        int row = rowOf(seat);
+        int offset = seat - layout.getRowStart(row);
+        return new Rectangle(LABEL_WIDTH + offset * CELL, MARGIN + row * CELL, SEAT, SEAT);
+    }
+
+    private int rowOf(int seat) {
+        int lo = 0;
+        int hi = layout.getRowCount() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (layout.getRowStart(mid) <= seat) lo = mid; else hi = mid - 1;
+        }
+        return lo;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        lastPaintedSeats = 0;
+        if (!loaded) {
+            g.setColor(Color.GRAY);
+            g.drawString("Menunggu data ketersediaan kursi...", LABEL_WIDTH, MARGIN + CELL);
+            return;
+        }
+
+        int firstRow = Math.max(0, (clip.y - MARGIN) / CELL);
+        int lastRow = Math.min(layout.getRowCount() - 1, (clip.y + clip.height - MARGIN) / CELL);
+        int firstColumn = Math.max(0, (clip.x - LABEL_WIDTH) / CELL);
+        int lastColumn = (clip.x + clip.width - LABEL_WIDTH) / CELL;
+        for (int row = firstRow; row <= lastRow; row++) {
+            int y = MARGIN + row * CELL;
+            if (clip.x < LABEL_WIDTH) {
+                g.setColor(Color.DARK_GRAY);
+                g.drawString(rowNames[row], 4, y + SEAT - 2);
+            }
+            int rowStart = layout.getRowStart(row);
+            int end = Math.min(layout.getRowLength(row) - 1, lastColumn);
+            for (int offset = firstColumn; offset <= end; offset++) {
+                int seat = rowStart + offset;
+                boolean available = (words[seat >>> 6] & (1L << seat)) != 0;
+                boolean highlighted = classFilter < 0 || layout.getClassOrdinal(seat) == classFilter;
+                g.setColor(highlighted ? (available ? AVAILABLE : TAKEN) : (available ? OTHER_AVAILABLE : OTHER_TAKEN));
+                g.fillRect(LABEL_WIDTH + offset * CELL, y, SEAT, SEAT);
+                lastPaintedSeats++;
+            }
+        }
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent event) {
+        int row = (event.getY() - MARGIN) / CELL;
+        int offset = (event.getX() - LABEL_WIDTH) / CELL;
+        if (!loaded || event.getX() < LABEL_WIDTH || event.getY() < MARGIN
+                || row >= layout.getRowCount() || offset >= layout.getRowLength(row)) {
+            return null;
+        }
+        int seat = layout.getRowStart(row) + offset;
+        boolean available = (words[seat >>> 6] & (1L << seat)) != 0;
+        return layout.seatId(seat) + " (" + SeatInventory.CLASS_NAMES[layout.getClassOrdinal(seat)] + ", Rp "
+                + layout.getPrice(seat) + ") - " + (available ? "tersedia" : "terisi");
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(LABEL_WIDTH + maxRowLength * CELL + MARGIN, 2 * MARGIN + layout.getRowCount() * CELL);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension preferred = getPreferredSize();
+        return new Dimension(Math.min(preferred.width, 640), Math.min(preferred.height, 12 * CELL));
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return CELL;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        int visible = orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+        return Math.max(CELL, visible - CELL);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+}
@@ -0,0 +1,156 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replika ketersediaan kursi satu pertunjukan di sisi subscriber (customer/GUI),
+ * disinkronkan dari pesan SEAT_DELTA yang dipublikasikan provider di topic pertunjukan.
+ *
+ * Setiap delta membawa versi berurutan dan nilai utuh word bitmap yang berubah.
+ * Replika mulai dari snapshot ({@code Full=true}); delta dengan versi berikutnya
+ * diterapkan, delta lama diabaikan, dan lompatan versi berarti ada delta yang
+ * hilang sehingga subscriber harus meminta snapshot baru. Delta yang datang
+ * sebelum snapshot disimpan sementara lalu diterapkan di atas snapshot.
+ *
+ * Layout kursi diasumsikan sama dengan provider ({@link SeatInventory#createDefault()}).
+ * Tampilan (GUI) bisa mengikuti replika lewat {@link Listener} tanpa membaca ulang
+ * seluruh state: hanya word yang diterapkan yang diteruskan.
+ */
+public class SeatReplica {
+    /**
+     * Dipanggil di thread yang menerapkan delta untuk setiap word yang diterapkan,
+     * termasuk word snapshot. Implementasi tidak boleh memblokir.
+     */
+    public interface Listener {
+        void onSeatWord(String showKey, int wordIndex, long bits);
+    }
+
+    public static final int APPLIED = 0;
+    public static final int STALE = 1;
+    public static final int GAP = 2;
+
+    private static final int MAX_BUFFERED_DELTAS = 64;
+
+    private final String showKey;
+    private final SeatInventory seats = SeatInventory.createDefault();
+    // -1 sampai snapshot pertama diterima
+    private long version = -1;
+    private final List<String> buffered = new ArrayList<>();
+    private final List<Long> bufferedVersions = new ArrayList<>();
+    private volatile Listener listener;
+
+    public SeatReplica(String showKey) {
+        this.showKey = showKey;
+    }
+
+    public String getShowKey() {
+        return showKey;
+    }
+
+    /**
+     * Memasang listener; jika replika sudah sinkron, listener langsung menerima semua word saat ini.
+     */
+    public synchronized void setListener(Listener listener) {
+        this.listener = listener;
+        if (listener == null || version < 0) return;
+        for (int first = 0; first < seats.getSeatCount(); first += 64) {
+            listener.onSeatWord(showKey, first >>> 6, seats.availableRange(first, Math.min(64, seats.getSeatCount() - first)));
+        }
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized boolean isSynced() {
+        return version >= 0;
+    }
+
+    /**
+     * Menerapkan SEAT_DELTA yang sudah di-parse.
+     *
+     * @return {@link #APPLIED}, {@link #STALE} (sudah tercakup atau disimpan sambil menunggu
+     *         snapshot), atau {@link #GAP} jika subscriber perlu meminta snapshot baru
+     */
+    public synchronized int apply(ContentCodec delta) {
+        long deltaVersion = delta.getLong("Version", -1);
+        String words = delta.get("Words", "");
+        if (delta.valueEquals("Full", "true")) {
+            if (deltaVersion < version) return STALE;
+            applyWords(words);
+            version = deltaVersion;
+            replayBuffered();
+            return APPLIED;
+        }
+        if (version < 0) {
+            // Belum ada snapshot: simpan untuk diterapkan setelahnya
+            if (buffered.size() == MAX_BUFFERED_DELTAS) {
+                buffered.remove(0);
+                bufferedVersions.remove(0);
+            }
+            buffered.add(words);
+            bufferedVersions.add(deltaVersion);
+            return STALE;
+        }
+        if (deltaVersion <= version) return STALE;
+        if (deltaVersion != version + 1) {
+            version = -1;
+            return GAP;
+        }
+        applyWords(words);
+        version = deltaVersion;
+        return APPLIED;
+    }
+
+    private void replayBuffered() {
+        for (int i = 0; i < buffered.size(); i++) {
+            long bufferedVersion = bufferedVersions.get(i);
+            if (bufferedVersion <= version) continue;
+            if (bufferedVersion != version + 1) break;
+            applyWords(buffered.get(i));
+            version = bufferedVersion;
+        }
+        buffered.clear();
+        bufferedVersions.clear();
+    }
+
+    // "indeks:hex;indeks:hex"
+    private void applyWords(String words) {
+        Listener listener = this.listener;
+        int pos = 0;
+        while (pos < words.length()) {
+            int end = words.indexOf(';', pos);
+            if (end < 0) end = words.length();
+            int colon = words.indexOf(':', pos);
+            if (colon > pos && colon < end) {
+                try {
+                    int wordIndex = Integer.parseInt(words.substring(pos, colon));
+                    long bits = Long.parseUnsignedLong(words.substring(colon + 1, end), 16);
+                    seats.overwriteAvailableWord(wordIndex, bits);
+                    if (listener != null) listener.onSeatWord(showKey, wordIndex, bits);
+                } catch (NumberFormatException e) {
+                    // Word rusak dilewati; delta berikutnya menimpa nilainya
+                }
+            }
+            pos = end + 1;
+        }
+    }
+
+    /**
+     * @return jumlah kursi tersedia di kelas tersebut, atau -1 jika replika belum sinkron
+     */
+    public synchronized int countAvailable(int classOrdinal) {
+        return version < 0 ? -1 : seats.countAvailable(classOrdinal);
+    }
+
+    public synchronized boolean isAvailable(int seat) {
+        return seats.isAvailable(seat);
+    }
+
+    /**
+     * Layout kursi replika (ID kursi, baris, kelas). Status ketersediaan dibaca lewat
+     * {@link #isAvailable} agar konsisten dengan versi replika.
+     */
+    public SeatInventory getLayout() {
+        return seats;
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Salinan ketersediaan satu pertunjukan yang tidak berubah, diambil pada satu titik waktu
+ * lewat {@link SeatInventory#view()}.
+ *
+ * Semua query di view membaca array biasa milik view sendiri, sehingga daftar kursi,
+ * jumlah per kelas dan {@link #getVersion()} selalu saling konsisten (booking beberapa
+ * kursi tidak pernah terlihat setengah jadi) dan query panjang tidak menahan booking.
+ * View boleh dibagikan antar-thread tanpa sinkronisasi.
+ *
+ * Selain word ketersediaan, view membawa counter dan ringkasan word per kelas dari
+ * inventaris (disalin pada titik waktu yang sama), sehingga daftar kursi tetap hanya
+ * menyentuh word yang berisi kursi bebas. Run kursi kosong terpanjang per baris
+ * diturunkan dari view sebelumnya: hanya baris yang word-nya berubah yang dihitung ulang.
+ */
+public final class SeatView {
+    private final SeatInventory layout;
+    private final long version;
+    private final long[] words;
+    private final int[] classAvailable;
+    private final long[][] classSummaries;
+    private final int[] rowLongestRun;
+
+    /**
+     * @param previous view sebelumnya dari inventaris yang sama (boleh null); run per baris
+     *                 yang word-nya tidak berubah diambil dari sini
+     */
+    SeatView(SeatInventory layout, long version, long[] words, int[] classAvailable, long[][] classSummaries,
+             SeatView previous) {
+        this.layout = layout;
+        this.version = version;
+        this.words = words;
+        this.classAvailable = classAvailable;
+        this.classSummaries = classSummaries;
+
+        int rows = layout.getRowCount();
+        if (previous == null) {
+            rowLongestRun = new int[rows];
+            for (int row = 0; row < rows; row++) rowLongestRun[row] = longestRun(row);
+        } else {
+            rowLongestRun = previous.rowLongestRun.clone();
+            int row = 0;
+            int computed = -1;
+            for (int w = 0; w < words.length; w++) {
+                if (words[w] == previous.words[w]) continue;
+                int first = w << 6;
+                int last = Math.min(layout.getSeatCount(), first + 64) - 1;
+                while (row < rows && layout.getRowStart(row) + layout.getRowLength(row) <= first) row++;
+                for (int r = Math.max(row, computed + 1); r < rows && layout.getRowStart(r) <= last; r++) {
+                    rowLongestRun[r] = longestRun(r);
+                    computed = r;
+                }
+            }
+        }
+    }
+
+    /** Versi inventaris ({@link SeatInventory#getVersion()}) yang sesuai dengan isi view ini */
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isAvailable(int seat) {
+        return seat >= 0 && seat < layout.getSeatCount() && (words[seat >>> 6] & (1L << seat)) != 0;
+    }
+
+    public int countAvailable(int classOrdinal) {
+        return classAvailable[classOrdinal];
+    }
+
+    public int countAvailable() {
+        int count = 0;
+        for (int available : classAvailable) count += available;
+        return count;
+    }
+
+    /**
+     * Menulis daftar kursi tersedia untuk satu kelas dengan format "A1(150000), A2(150000)".
+     *
+     * @return jumlah kursi yang ditulis
+     */
+    public int appendAvailable(StringBuilder sb, int classOrdinal) {
+        int count = 0;
+        for (int seat = nextAvailable(0, 1 << classOrdinal); seat >= 0; seat = nextAvailable(seat + 1, 1 << classOrdinal)) {
+            if (count > 0) sb.append(", ");
+            layout.appendSeatId(sb, seat);
+            sb.append('(').append(layout.getPrice(seat)).append(')');
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Menulis maksimal {@code limit} kursi tersedia satu kelas dengan format "A1;A2;A3"
+     * (pemisah yang sama dengan parameter Seats).
+     *
+     * @return jumlah seluruh kursi tersedia di kelas tersebut, bisa lebih dari yang ditulis
+     */
+    public int appendAvailableSeatIds(StringBuilder sb, int classOrdinal, int limit) {
+        int written = 0;
+        for (int seat = nextAvailable(0, 1 << classOrdinal); seat >= 0 && written < limit; seat = nextAvailable(seat + 1, 1 << classOrdinal)) {
+            if (written > 0) sb.append(';');
+            layout.appendSeatId(sb, seat);
+            written++;
+        }
+        return classAvailable[classOrdinal];
+    }
+
+    /**
+     * Menulis maksimal {@code limit} kursi tersedia dari semua kelas dengan format "A1(VIP), B2(Regular)".
+     *
+     * @return jumlah kursi yang ditulis
+     */
+    public int appendAlternatives(StringBuilder sb, int limit) {
+        int allClasses = (1 << SeatInventory.CLASS_NAMES.length) - 1;
+        int count = 0;
+        for (int seat = nextAvailable(0, allClasses); seat >= 0 && count < limit; seat = nextAvailable(seat + 1, allClasses)) {
+            if (count > 0) sb.append(", ");
+            layout.appendSeatId(sb, seat);
+            sb.append('(').append(SeatInventory.CLASS_NAMES[layout.getClassOrdinal(seat)]).append(')');
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Apakah ada {@code count} kursi kosong bersebelahan dalam satu baris kelas tersebut,
+     * dijawab dari run terpanjang per baris tanpa membaca bit kursi.
+     * Hanya indikasi; kursi tetap harus diklaim di inventaris.
+     */
+    public boolean hasBlock(int classOrdinal, int count) {
+        if (count <= 0 || count > classAvailable[classOrdinal]) return false;
+        for (int row = 0; row < rowLongestRun.length; row++) {
+            if (rowLongestRun[row] >= count && layout.getRowClass(row) == classOrdinal) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Kursi tersedia berikutnya mulai dari {@code from} untuk kelas-kelas di {@code classSet}
+     * (bit per ordinal kelas). Word yang tidak ada di ringkasan kelas dilewati tanpa dibaca.
+     */
+    private int nextAvailable(int from, int classSet) {
+        int seatCount = layout.getSeatCount();
+        if (from >= seatCount) return -1;
+        int firstWord = from >>> 6;
+        int summaryIndex = firstWord >>> 6;
+        long summary = summaryWord(summaryIndex, classSet) & (-1L << firstWord);
+        while (true) {
+            while (summary != 0) {
+                int wordIndex = (summaryIndex << 6) + Long.numberOfTrailingZeros(summary);
+                summary &= summary - 1;
+
+                long word = words[wordIndex] & layout.classMask(wordIndex, classSet);
+                if (wordIndex == firstWord) word &= -1L << from;
+                if (word != 0) {
+                    int seat = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                    return seat < seatCount ? seat : -1;
+                }
+            }
+            if (++summaryIndex == classSummaries[0].length) return -1;
+            summary = summaryWord(summaryIndex, classSet);
+        }
+    }
+
+    private long summaryWord(int summaryIndex, int classSet) {
+        long summary = 0;
+        for (int c = 0; c < classSummaries.length; c++) {
+            if ((classSet & (1 << c)) != 0) summary |= classSummaries[c][summaryIndex];
+        }
+        return summary;
+    }
+
+    // Run kursi kosong terpanjang di satu baris, dibaca per potongan 64 kursi
+    private int longestRun(int row) {
+        int start = layout.getRowStart(row);
+        int end = start + layout.getRowLength(row);
+        int best = 0;
+        int carry = 0;
+        for (int seat = start; seat < end; ) {
+            int length = Math.min(64 - (seat & 63), end - seat);
+            long bits = words[seat >>> 6] >>> (seat & 63);
+            if (length < 64) bits &= (1L << length) - 1;
+
+            int prefix = Math.min(Long.numberOfTrailingZeros(~bits), length);
+            if (prefix == length) {
+                carry += length;
+            } else {
+                best = Math.max(best, carry + prefix);
+                int inner = 0;
+                for (long run = bits; run != 0; run &= run >>> 1) inner++;
+                best = Math.max(best, inner);
+                carry = Long.numberOfLeadingZeros(~(bits << (64 - length)));
+            }
+            seat += length;
+        }
+        return Math.max(best, carry);
+    }
+}
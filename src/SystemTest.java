@@ -4,6 +4,25 @@ import jade.wrapper.AgentContainer;
 import jade.wrapper.AgentController;
 import jade.wrapper.StaleProxyException;
 import jade.core.Runtime;
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Test class untuk memverifikasi sistem multi-agent
@@ -16,6 +35,32 @@ public class SystemTest {
         System.out.println("Starting system test...");
         
         try {
+            // Inventory tests (tanpa JADE runtime)
+            testSeatInventory();
+            testInventoryMemory();
+            testConcurrentBooking();
+            testAvailabilityIndex();
+            testBestAvailableBlock();
+            testHoldExpiryWheel();
+            testJournalRecovery();
+            testSnapshotCompaction();
+            testJournalGroupCommit();
+            testContentCodec();
+            testTypedContent();
+            testBatchBooking();
+            testMicrobatch();
+            testWorkerPool();
+            testShowIsolation();
+            testShardOwnership();
+            testConflictAvailability();
+            testAvailabilityVersion();
+            testSeatViews();
+            testReplyCache();
+            testBookingFutures();
+            testSeatDeltas();
+            testSeatMapPanel();
+            testLatencyHistogram();
+
             // Test 1: Basic JADE Runtime
             testJADERuntime();
             
@@ -107,6 +152,1900 @@ public class SystemTest {
         container.kill();
     }
     
+    private static void testSeatInventory() throws Exception {
+        System.out.println("Testing Seat Inventory...");
+
+        SeatInventory inventory = SeatInventory.createDefault();
+        if (inventory.getSeatCount() != 12) {
+            throw new Exception("Default inventory should have 12 seats, got " + inventory.getSeatCount());
+        }
+        if (inventory.indexOf("A1") != 0 || inventory.indexOf("C5") != 11 || inventory.indexOf("A4") != -1) {
+            throw new Exception("Seat ID mapping is wrong");
+        }
+        if (!"B3".equals(inventory.seatId(inventory.indexOf("B3")))) {
+            throw new Exception("Seat ID round trip failed");
+        }
+
+        int a1 = inventory.indexOf("A1");
+        int a2 = inventory.indexOf("A2");
+        if (!inventory.book(new int[]{a1, a2})) {
+            throw new Exception("Booking free seats should succeed");
+        }
+        if (inventory.book(new int[]{inventory.indexOf("A3"), a2})) {
+            throw new Exception("Booking an already booked seat should fail");
+        }
+        if (!inventory.isAvailable(inventory.indexOf("A3"))) {
+            throw new Exception("Failed booking must not claim any seat");
+        }
+        if (inventory.countAvailable(SeatInventory.CLASS_VIP) != 1 || inventory.countAvailable() != 10) {
+            throw new Exception("Available counts are wrong after booking");
+        }
+
+        StringBuilder listing = new StringBuilder();
+        inventory.view().appendAvailable(listing, SeatInventory.CLASS_VIP);
+        if (!"A3(150000)".equals(listing.toString())) {
+            throw new Exception("Unexpected VIP listing: " + listing);
+        }
+
+        // Rollback harus mengembalikan word yang sudah diklaim jika word berikutnya gagal
+        SeatInventory wide = new SeatInventory(new int[]{100, 100},
+                new int[]{SeatInventory.CLASS_REGULAR, SeatInventory.CLASS_ECONOMY}, new int[]{150000, 100000, 75000});
+        if (!wide.book(new int[]{150})) {
+            throw new Exception("Booking a single free seat should succeed");
+        }
+        if (wide.book(new int[]{150, 5}) || !wide.isAvailable(5) || wide.countAvailable() != 199) {
+            throw new Exception("Partial multi-word booking was not rolled back");
+        }
+
+        System.out.println("✓ Seat Inventory test passed");
+    }
+
+    /**
+     * Membandingkan pemakaian heap layout lama (ConcurrentHashMap<String, SeatInfo>)
+     * dengan SeatInventory untuk banyak showtime dengan auditorium besar.
+     */
+    private static void testInventoryMemory() throws Exception {
+        System.out.println("Testing Inventory Memory Footprint...");
+
+        final int shows = 100;
+        final int rows = 40;
+        final int seatsPerRow = 50;
+
+        int[] rowLengths = new int[rows];
+        int[] rowClasses = new int[rows];
+        for (int r = 0; r < rows; r++) {
+            rowLengths[r] = seatsPerRow;
+            rowClasses[r] = r < 5 ? SeatInventory.CLASS_VIP : (r < 25 ? SeatInventory.CLASS_REGULAR : SeatInventory.CLASS_ECONOMY);
+        }
+        int[] classPrices = {150000, 100000, 75000};
+
+        long before = usedHeap();
+        Object[] legacy = new Object[shows];
+        for (int s = 0; s < shows; s++) {
+            SeatInventory names = new SeatInventory(rowLengths, rowClasses, classPrices);
+            ConcurrentHashMap<String, LegacySeatInfo> map = new ConcurrentHashMap<>();
+            for (int seat = 0; seat < names.getSeatCount(); seat++) {
+                map.put(names.seatId(seat), new LegacySeatInfo(true, classPrices[rowClasses[seat / seatsPerRow]],
+                        new String(SeatInventory.CLASS_NAMES[rowClasses[seat / seatsPerRow]])));
+            }
+            legacy[s] = map;
+        }
+        long legacyBytes = usedHeap() - before;
+
+        before = usedHeap();
+        SeatInventory[] compact = new SeatInventory[shows];
+        for (int s = 0; s < shows; s++) {
+            compact[s] = new SeatInventory(rowLengths, rowClasses, classPrices);
+        }
+        long compactBytes = usedHeap() - before;
+
+        int totalSeats = shows * rows * seatsPerRow;
+        System.out.printf("  %d shows x %d seats (%d seats total)%n", shows, rows * seatsPerRow, totalSeats);
+        System.out.printf("  ConcurrentHashMap<String, SeatInfo>: %,d bytes (%.1f bytes/seat)%n",
+                legacyBytes, (double) legacyBytes / totalSeats);
+        System.out.printf("  SeatInventory                     : %,d bytes (%.1f bytes/seat, estimate %,d)%n",
+                compactBytes, (double) compactBytes / totalSeats, compact[0].estimateFootprintBytes() * shows);
+
+        if (legacy.length != compact.length || compactBytes >= legacyBytes) {
+            throw new Exception("SeatInventory should use less heap than the map layout");
+        }
+
+        System.out.println("✓ Inventory Memory test passed");
+    }
+
+    /**
+     * Stress test klaim kursi CAS: setiap thread membooking 1-4 kursi acak di area
+     * panas, memverifikasi kepemilikan eksklusif, lalu melepasnya kembali.
+     * Mencetak throughput untuk jumlah thread yang bertambah.
+     */
+    private static void testConcurrentBooking() throws Exception {
+        System.out.println("Testing Concurrent CAS Booking...");
+
+        final int hotSeats = 256;
+        final long durationMs = 300;
+        int maxThreads = Math.max(8, java.lang.Runtime.getRuntime().availableProcessors());
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            final SeatInventory inventory = new SeatInventory(new int[]{hotSeats / 2, hotSeats / 2},
+                    new int[]{SeatInventory.CLASS_REGULAR, SeatInventory.CLASS_REGULAR}, new int[]{100000, 100000, 75000});
+            final AtomicIntegerArray owner = new AtomicIntegerArray(hotSeats);
+            final AtomicBoolean doubleBooked = new AtomicBoolean(false);
+            final AtomicBoolean running = new AtomicBoolean(true);
+            final AtomicLong successes = new AtomicLong();
+            final AtomicLong attempts = new AtomicLong();
+            final CountDownLatch start = new CountDownLatch(1);
+            Thread[] workers = new Thread[threads];
+
+            for (int t = 0; t < threads; t++) {
+                final int id = t + 1;
+                workers[t] = new Thread(() -> {
+                    Random rnd = new Random(id);
+                    long localAttempts = 0, localSuccesses = 0;
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    while (running.get()) {
+                        int n = 1 + rnd.nextInt(4);
+                        int[] seats = new int[n];
+                        int first = rnd.nextInt(hotSeats - n);
+                        for (int k = 0; k < n; k++) seats[k] = first + k;
+
+                        localAttempts++;
+                        if (inventory.book(seats)) {
+                            localSuccesses++;
+                            for (int seat : seats) {
+                                if (!owner.compareAndSet(seat, 0, id)) doubleBooked.set(true);
+                            }
+                            for (int seat : seats) owner.set(seat, 0);
+                            inventory.release(seats);
+                        }
+                    }
+                    attempts.addAndGet(localAttempts);
+                    successes.addAndGet(localSuccesses);
+                });
+                workers[t].start();
+            }
+
+            start.countDown();
+            Thread.sleep(durationMs);
+            running.set(false);
+            for (Thread worker : workers) worker.join();
+
+            if (doubleBooked.get()) {
+                throw new Exception("Seat was booked twice with " + threads + " threads");
+            }
+            if (inventory.countAvailable() != hotSeats || inventory.countAvailable(SeatInventory.CLASS_REGULAR) != hotSeats) {
+                throw new Exception("Seats leaked after stress run: " + inventory.countAvailable() + "/" + hotSeats);
+            }
+            StringBuilder listing = new StringBuilder();
+            if (inventory.view().appendAvailable(listing, SeatInventory.CLASS_REGULAR) != hotSeats) {
+                throw new Exception("Class summary lost free seats after stress run");
+            }
+
+            System.out.printf("  %2d thread(s): %,12d booking attempts/s, %,12d successful bookings/s%n",
+                    threads, attempts.get() * 1000 / durationMs, successes.get() * 1000 / durationMs);
+        }
+
+        System.out.println("✓ Concurrent CAS Booking test passed");
+    }
+
+    /**
+     * Counter dan ringkasan per kelas harus selalu sama dengan bitmap, dan query
+     * info pada studio besar yang hampir penuh tidak boleh men-scan semua kursi.
+     */
+    private static void testAvailabilityIndex() throws Exception {
+        System.out.println("Testing Per-Class Availability Index...");
+
+        // Panjang baris sengaja tidak kelipatan 64 agar kelas bercampur dalam satu word
+        int[] rowLengths = new int[60];
+        int[] rowClasses = new int[60];
+        for (int r = 0; r < rowLengths.length; r++) {
+            rowLengths[r] = 37 + r % 11;
+            rowClasses[r] = r < 10 ? SeatInventory.CLASS_VIP : r < 35 ? SeatInventory.CLASS_REGULAR : SeatInventory.CLASS_ECONOMY;
+        }
+        SeatInventory inventory = new SeatInventory(rowLengths, rowClasses, new int[]{150000, 100000, 75000});
+        Random random = new Random(11);
+        for (int op = 0; op < 20000; op++) {
+            int[] seats = {random.nextInt(inventory.getSeatCount()), random.nextInt(inventory.getSeatCount())};
+            switch (random.nextInt(4)) {
+                case 0: inventory.book(seats); break;
+                case 1: inventory.release(seats); break;
+                case 2: inventory.markSold(new int[]{seats[0]}); break;
+                default: if (inventory.book(new int[]{seats[0]})) inventory.release(new int[]{seats[0]}); break;
+            }
+        }
+
+        for (int c = 0; c < SeatInventory.CLASS_NAMES.length; c++) {
+            StringBuilder expected = new StringBuilder();
+            int expectedCount = 0;
+            for (int seat = 0; seat < inventory.getSeatCount(); seat++) {
+                if (!inventory.isAvailable(seat) || inventory.getClassOrdinal(seat) != c) continue;
+                if (expectedCount++ > 0) expected.append(", ");
+                expected.append(inventory.seatId(seat)).append('(').append(inventory.getPrice(seat)).append(')');
+            }
+            StringBuilder listing = new StringBuilder();
+            int listed = inventory.view().appendAvailable(listing, c);
+            if (inventory.countAvailable(c) != expectedCount || listed != expectedCount
+                    || !expected.toString().equals(listing.toString())) {
+                throw new Exception("Index for " + SeatInventory.CLASS_NAMES[c] + " diverged: counter " +
+                        inventory.countAvailable(c) + ", listed " + listed + ", bitmap " + expectedCount);
+            }
+        }
+
+        // Studio 100k kursi yang tinggal 20 kursi VIP: bandingkan dengan scan penuh
+        SeatInventory hall = new SeatInventory(new int[]{50000, 50000},
+                new int[]{SeatInventory.CLASS_VIP, SeatInventory.CLASS_REGULAR}, new int[]{150000, 100000, 75000});
+        int[] all = new int[hall.getSeatCount()];
+        for (int i = 0; i < all.length; i++) all[i] = i;
+        hall.markSold(all);
+        for (int i = 0; i < 20; i++) hall.cancelSale(new int[]{random.nextInt(50000)});
+
+        int rounds = 2000;
+        long begin = System.nanoTime();
+        int sink = 0;
+        for (int i = 0; i < rounds; i++) {
+            sink += hall.view().appendAvailable(new StringBuilder(), SeatInventory.CLASS_VIP) + hall.countAvailable();
+        }
+        long indexedNs = (System.nanoTime() - begin) / rounds;
+        begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            for (int seat = 0; seat < hall.getSeatCount(); seat++) {
+                if (hall.isAvailable(seat) && hall.getClassOrdinal(seat) == SeatInventory.CLASS_VIP) sink++;
+            }
+        }
+        long scanNs = (System.nanoTime() - begin) / rounds;
+        if (sink == 0 || hall.countAvailable(SeatInventory.CLASS_VIP) != hall.countAvailable()) {
+            throw new Exception("Unexpected availability in near-full hall");
+        }
+
+        System.out.printf("  100k-seat hall, %d VIP seats left: indexed info query %,d ns vs full scan %,d ns%n",
+                hall.countAvailable(), indexedNs, scanNs);
+        System.out.println("✓ Per-Class Availability Index test passed");
+    }
+
+    /**
+     * Blok kursi bersebelahan dari segment tree harus sama dengan pencarian brute force:
+     * baris pertama (urutan preferensi) yang muat, posisi paling dekat ke tengah baris.
+     */
+    private static void testBestAvailableBlock() throws Exception {
+        System.out.println("Testing Best-Available Contiguous Seats...");
+
+        int[] rowLengths = new int[24];
+        int[] rowClasses = new int[24];
+        for (int r = 0; r < rowLengths.length; r++) {
+            rowLengths[r] = 20 + (r * 7) % 61;
+            rowClasses[r] = r < 4 ? SeatInventory.CLASS_VIP : r < 16 ? SeatInventory.CLASS_REGULAR : SeatInventory.CLASS_ECONOMY;
+        }
+        SeatInventory inventory = new SeatInventory(rowLengths, rowClasses, new int[]{150000, 100000, 75000});
+        Random random = new Random(5);
+        int checks = 0;
+        for (int round = 0; round < 400; round++) {
+            for (int k = 0; k < 40; k++) {
+                int seat = random.nextInt(inventory.getSeatCount());
+                if (random.nextInt(3) == 0) inventory.release(new int[]{seat}); else inventory.book(new int[]{seat});
+            }
+            int cls = random.nextInt(3);
+            int count = 1 + random.nextInt(8);
+            int[] block = inventory.findBestBlock(cls, count);
+            int[] expected = bruteForceBestBlock(inventory, cls, count);
+            if (!Arrays.equals(block, expected)) {
+                throw new Exception("Best block for " + count + " " + SeatInventory.CLASS_NAMES[cls] + " seats: " +
+                        Arrays.toString(block) + ", expected " + Arrays.toString(expected));
+            }
+            checks++;
+        }
+
+        // Baris panjang: pohon beberapa tingkat dan bit dirty yang melintasi batas word,
+        // dengan beberapa potongan dirty per refresh
+        SeatInventory wide = new SeatInventory(new int[]{1000, 2500, 700}, new int[]{0, 0, 0}, new int[]{150000, 100000, 75000});
+        for (int round = 0; round < 300; round++) {
+            for (int k = 0; k < 1 + random.nextInt(30); k++) {
+                int seat = random.nextInt(wide.getSeatCount());
+                if (random.nextInt(3) == 0) wide.release(new int[]{seat}); else wide.book(new int[]{seat});
+            }
+            int count = 1 + random.nextInt(8);
+            int[] block = wide.findBestBlock(SeatInventory.CLASS_VIP, count);
+            int[] expected = bruteForceBestBlock(wide, SeatInventory.CLASS_VIP, count);
+            if (!Arrays.equals(block, expected)) {
+                throw new Exception("Best block in wide rows for " + count + " seats: " +
+                        Arrays.toString(block) + ", expected " + Arrays.toString(expected));
+            }
+            checks++;
+        }
+
+        // Rombongan di studio yang baru dibuka duduk di tengah baris tengah
+        SeatInventory fresh = SeatInventory.createDefault();
+        int[] group = fresh.bookBestBlock(SeatInventory.CLASS_ECONOMY, 3);
+        if (group == null || !"C2".equals(fresh.seatId(group[0])) || !"C4".equals(fresh.seatId(group[2]))) {
+            throw new Exception("Unexpected best block in default layout: " + Arrays.toString(group));
+        }
+        if (fresh.bookBestBlock(SeatInventory.CLASS_ECONOMY, 3) != null) {
+            throw new Exception("C1 and C5 are not adjacent and must not form a block of 3");
+        }
+
+        // Beberapa rombongan berebut blok secara bersamaan sampai studio penuh; indeks harus tetap sinkron
+        final SeatInventory contested = new SeatInventory(rowLengths, rowClasses, new int[]{150000, 100000, 75000});
+        final AtomicIntegerArray owner = new AtomicIntegerArray(contested.getSeatCount());
+        final AtomicBoolean overlap = new AtomicBoolean(false);
+        Thread[] groups = new Thread[4];
+        for (int t = 0; t < groups.length; t++) {
+            final int id = t + 1;
+            groups[t] = new Thread(() -> {
+                Random rnd = new Random(id);
+                int misses = 0;
+                while (misses < 20) {
+                    int[] seats = contested.bookBestBlock(rnd.nextInt(3), 1 + rnd.nextInt(4));
+                    if (seats == null) {
+                        misses++;
+                        continue;
+                    }
+                    for (int seat : seats) {
+                        if (!owner.compareAndSet(seat, 0, id)) overlap.set(true);
+                    }
+                }
+            });
+            groups[t].start();
+        }
+        for (Thread worker : groups) worker.join();
+        if (overlap.get()) throw new Exception("Two groups received the same seat");
+        for (int c = 0; c < SeatInventory.CLASS_NAMES.length; c++) {
+            if (!Arrays.equals(contested.findBestBlock(c, 1), bruteForceBestBlock(contested, c, 1))) {
+                throw new Exception("Run index out of sync after concurrent group bookings");
+            }
+        }
+
+        // Studio besar yang hampir penuh: segment tree vs scan seluruh kursi kelas
+        int[] hallRows = new int[200];
+        int[] hallClasses = new int[200];
+        Arrays.fill(hallRows, 500);
+        SeatInventory hall = new SeatInventory(hallRows, hallClasses, new int[]{150000, 100000, 75000});
+        for (int seat = 0; seat < hall.getSeatCount(); seat += 3) hall.book(new int[]{seat});
+        int lastRow = hall.getPreferredRows(SeatInventory.CLASS_VIP)[199];
+        hall.release(new int[]{hall.getRowStart(lastRow) + 3, hall.getRowStart(lastRow) + 4, hall.getRowStart(lastRow) + 5});
+
+        int rounds = 500;
+        long begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            if (hall.findBestBlock(SeatInventory.CLASS_VIP, 3) == null) throw new Exception("Block not found");
+        }
+        long indexedNs = (System.nanoTime() - begin) / rounds;
+        begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            if (bruteForceBestBlock(hall, SeatInventory.CLASS_VIP, 3) == null) throw new Exception("Block not found");
+        }
+        long scanNs = (System.nanoTime() - begin) / rounds;
+
+        System.out.printf("  %d randomized checks matched brute force; 100k-seat hall: %,d ns indexed vs %,d ns scan%n",
+                checks, indexedNs, scanNs);
+        System.out.println("✓ Best-Available Contiguous Seats test passed");
+    }
+
+    private static int[] bruteForceBestBlock(SeatInventory inventory, int cls, int count) {
+        for (int row : inventory.getPreferredRows(cls)) {
+            int length = inventory.getRowLength(row);
+            int ideal = (length - count) / 2;
+            int best = -1;
+            for (int start = 0; start + count <= length; start++) {
+                boolean free = true;
+                for (int i = 0; i < count && free; i++) free = inventory.isAvailable(inventory.getRowStart(row) + start + i);
+                if (!free) continue;
+                // Seri: posisi kiri menang, sama seperti RowRunIndex
+                if (best < 0 || Math.abs(start - ideal) < Math.abs(best - ideal)) best = start;
+            }
+            if (best < 0) continue;
+            int[] seats = new int[count];
+            for (int i = 0; i < count; i++) seats[i] = inventory.getRowStart(row) + best + i;
+            return seats;
+        }
+        return null;
+    }
+
+    /**
+     * Memverifikasi timing wheel untuk hold: urutan kedaluwarsa, pembatalan, dan
+     * biaya per hold saat 100k hold kedaluwarsa dalam satu menit.
+     */
+    private static void testHoldExpiryWheel() throws Exception {
+        System.out.println("Testing Hold Expiry Timing Wheel...");
+
+        final long start = 1_000_000L;
+        HashedTimingWheel<Integer> wheel = new HashedTimingWheel<>(100, 1024, start);
+        final int holdCount = 100_000;
+        List<HashedTimingWheel.Timeout<Integer>> timeouts = new ArrayList<>(holdCount);
+        for (int i = 0; i < holdCount; i++) {
+            // Tersebar dalam 60 detik, sebagian melewati satu putaran penuh wheel (102.4 s)
+            long ttl = (i % 2 == 0) ? (i % 60_000) : 150_000 + (i % 1000);
+            timeouts.add(wheel.schedule(i, start + ttl));
+        }
+
+        int cancelled = 0;
+        for (int i = 1; i < holdCount; i += 10) {
+            if (wheel.cancel(timeouts.get(i))) cancelled++;
+        }
+        if (wheel.cancel(timeouts.get(1))) {
+            throw new Exception("Cancelling twice should return false");
+        }
+
+        final long[] lastDeadline = {0};
+        final int[] expiredEarlyOrLate = {0};
+        final long[] now = {start};
+        long begin = System.nanoTime();
+        int expired = 0;
+        for (now[0] = start; now[0] <= start + 160_000; now[0] += 100) {
+            expired += wheel.advance(now[0], id -> {
+                long deadline = timeouts.get(id).getDeadline();
+                if (deadline > now[0] || now[0] - deadline > 200) expiredEarlyOrLate[0]++;
+                lastDeadline[0] = Math.max(lastDeadline[0], deadline);
+            });
+        }
+        long elapsedNs = System.nanoTime() - begin;
+
+        if (expired != holdCount - cancelled || wheel.size() != 0) {
+            throw new Exception("Expected " + (holdCount - cancelled) + " expirations, got " + expired);
+        }
+        if (expiredEarlyOrLate[0] != 0) {
+            throw new Exception(expiredEarlyOrLate[0] + " holds expired outside their tick");
+        }
+
+        System.out.printf("  %,d holds expired, %,d cancelled, %.1f ns per expiry (incl. empty ticks)%n",
+                expired, cancelled, (double) elapsedNs / expired);
+        System.out.println("✓ Hold Expiry Timing Wheel test passed");
+    }
+
+    private static void testJournalRecovery() throws Exception {
+        System.out.println("Testing Booking Journal Recovery...");
+
+        File dir = createTempDir("booking-test");
+        File file = new File(dir, "segment-00000001.journal");
+        final String show = EnhancedProviderAgent.showKey("Dune", "2025-01-20", "21:00");
+
+        try (BookingJournal journal = BookingJournal.open(dir, 1, new BookingJournal.Config(), (t, id, ref, k, seats) -> { })) {
+            journal.append(BookingJournal.BOOK, 1, 0, show, new int[]{0, 1});
+            journal.append(BookingJournal.HOLD, 1, 0, show, new int[]{5});
+            journal.append(BookingJournal.CONFIRM_HOLD, 2, 1, show, new int[]{5});
+            journal.append(BookingJournal.HOLD, 2, 0, show, new int[]{7});
+            journal.awaitDurable(journal.append(BookingJournal.RELEASE, 2, 0, show, new int[]{7}));
+        }
+
+        // Simulasikan crash di tengah penulisan record
+        long validLength = file.length();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(new byte[]{0, 0, 0, 40, 1, 2, 3});
+        }
+
+        final SeatInventory recovered = SeatInventory.createDefault();
+        final List<String> replayed = new ArrayList<>();
+        BookingJournal.open(dir, 1, new BookingJournal.Config(), (type, id, ref, key, seats) -> {
+            replayed.add(type + ":" + id + ":" + ref + ":" + Arrays.toString(seats));
+            if (!show.equals(key)) throw new IllegalStateException("Unexpected show key " + key);
+            if (type == BookingJournal.BOOK || type == BookingJournal.HOLD) recovered.book(seats);
+            if (type == BookingJournal.RELEASE) recovered.release(seats);
+        }).close();
+        if (file.length() != validLength) {
+            throw new Exception("Torn record was not truncated");
+        }
+
+        if (replayed.size() != 5 || !"3:2:1:[5]".equals(replayed.get(2))) {
+            throw new Exception("Unexpected replay: " + replayed);
+        }
+        if (recovered.isAvailable(0) || recovered.isAvailable(1) || recovered.isAvailable(5) || !recovered.isAvailable(7)) {
+            throw new Exception("Recovered inventory does not match journal");
+        }
+
+        // Journal yang tidak dapat dibuka menghentikan provider, bukan berjalan tanpa journal
+        File blocked = new File(dir, "blocked");
+        Files.write(blocked.toPath(), new byte[]{1});
+        if (new EnhancedProviderAgent().recoverInventory(blocked)) {
+            throw new Exception("Provider started without a usable journal");
+        }
+
+        System.out.println("✓ Booking Journal Recovery test passed");
+    }
+
+    /**
+     * Snapshot diambil saat booking berjalan, segment lama dihapus, dan recovery
+     * dari snapshot + sisa journal harus menghasilkan inventaris yang sama.
+     */
+    private static void testSnapshotCompaction() throws Exception {
+        System.out.println("Testing Snapshot and Journal Compaction...");
+
+        File dir = createTempDir("booking-snapshot");
+        File snapshotFile = new File(dir, "snapshot.bin");
+        final String show = EnhancedProviderAgent.showKey("Dune", "2025-01-20", "21:00");
+        final Map<String, SeatInventory> shows = new ConcurrentHashMap<>();
+        final SeatInventory live = new SeatInventory(new int[]{100, 100, 100, 100, 100},
+                new int[]{0, 1, 1, 2, 2}, new int[]{150000, 100000, 75000});
+        shows.put(show, live);
+
+        final AtomicLong txn = new AtomicLong();
+        final AtomicBoolean stop = new AtomicBoolean(false);
+        final Exception[] error = {null};
+        try (final BookingJournal journal = BookingJournal.open(dir, 1, new BookingJournal.Config(), (t, id, ref, k, seats) -> { })) {
+            // Booking berjalan terus selama snapshot diambil, dengan urutan yang sama seperti provider
+            Thread booker = new Thread(() -> {
+                Random random = new Random(7);
+                try {
+                    while (!stop.get()) {
+                        int[] seats = {random.nextInt(live.getSeatCount())};
+                        if (!live.book(seats)) continue;
+                        live.markSold(seats);
+                        journal.append(BookingJournal.BOOK, txn.incrementAndGet(), 0, show, seats);
+                    }
+                } catch (Exception e) {
+                    error[0] = e;
+                }
+            });
+            booker.start();
+            Thread.sleep(20);
+
+            long replayFrom = journal.rotate();
+            InventorySnapshot.capture(replayFrom, txn.get(), 0, shows).write(snapshotFile);
+            journal.deleteSegmentsBefore(replayFrom);
+            Thread.sleep(20);
+            stop.set(true);
+            booker.join();
+            journal.awaitDurable(journal.append(BookingJournal.RELEASE, 0, 0, show, new int[0]));
+
+            if (new File(dir, "segment-00000001.journal").exists()) {
+                throw new Exception("Compacted segment was not deleted");
+            }
+        }
+        if (error[0] != null) throw error[0];
+
+        InventorySnapshot snapshot = InventorySnapshot.read(snapshotFile);
+        final SeatInventory recovered = new SeatInventory(new int[]{100, 100, 100, 100, 100},
+                new int[]{0, 1, 1, 2, 2}, new int[]{150000, 100000, 75000});
+        recovered.restoreSold(snapshot.soldWords.get(show));
+        final int[] tail = {0};
+        // Replay terjadi saat open
+        BookingJournal.open(dir, snapshot.replayFromSegment, new BookingJournal.Config(),
+                (type, id, ref, key, seats) -> {
+                    if (type == BookingJournal.BOOK) {
+                        recovered.markSold(seats);
+                        tail[0]++;
+                    }
+                }).close();
+
+        for (int i = 0; i < live.getSeatCount(); i++) {
+            if (live.isAvailable(i) != recovered.isAvailable(i)) {
+                throw new Exception("Seat " + live.seatId(i) + " differs after snapshot recovery");
+            }
+        }
+
+        // Snapshot yang rusak harus ditolak, bukan dimuat sebagian
+        byte[] data = Files.readAllBytes(snapshotFile.toPath());
+        data[data.length / 2] ^= 0x5A;
+        Files.write(snapshotFile.toPath(), data);
+        try {
+            InventorySnapshot.read(snapshotFile);
+            throw new Exception("Corrupt snapshot was accepted");
+        } catch (IOException expected) {
+            // ok
+        }
+        // Segment 1 sudah dihapus: tanpa snapshot yang valid provider menolak berjalan
+        // daripada me-replay sisa journal di atas inventaris kosong
+        if (new EnhancedProviderAgent().recoverInventory(dir)) {
+            throw new Exception("Provider recovered from a corrupt snapshot with a compacted journal");
+        }
+        if (!snapshotFile.delete() || new EnhancedProviderAgent().recoverInventory(dir)) {
+            throw new Exception("Provider recovered without a snapshot from a compacted journal");
+        }
+        // Layout di snapshot (500 kursi) berbeda dengan layout provider (12 kursi): kursi terjual
+        // sebelum snapshot tidak ada lagi di journal, jadi provider menolak berjalan
+        InventorySnapshot.capture(snapshot.replayFromSegment, snapshot.transactionCounter, 0, shows).write(snapshotFile);
+        if (new EnhancedProviderAgent().recoverInventory(dir)) {
+            throw new Exception("Provider recovered a show whose seat layout differs from the snapshot");
+        }
+
+        System.out.printf("  %,d seats sold, %,d replayed from journal tail, snapshot at %,d transactions%n",
+                live.getSeatCount() - live.countAvailable(), tail[0], snapshot.transactionCounter);
+        System.out.println("✓ Snapshot and Journal Compaction test passed");
+    }
+
+    /**
+     * Mengukur latency dan throughput journal untuk fsync per record dibandingkan group commit.
+     */
+    private static void testJournalGroupCommit() throws Exception {
+        System.out.println("Testing Journal Group Commit...");
+
+        runJournalBenchmark("fsync per record, 1 thread   ", 1, 0, 400);
+        runJournalBenchmark("group commit, 8 threads      ", 8, 0, 400);
+        runJournalBenchmark("group commit 2ms, 8 threads  ", 8, 2, 400);
+        runJournalBenchmark("group commit, 32 threads     ", 32, 0, 200);
+
+        System.out.println("✓ Journal Group Commit test passed");
+    }
+
+    private static void runJournalBenchmark(String label, int threads, long windowMs, int perThread) throws Exception {
+        File dir = createTempDir("booking-bench");
+        BookingJournal.Config config = new BookingJournal.Config();
+        config.groupCommitWindowMs = windowMs;
+
+        final long[] latencies = new long[threads * perThread];
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        final Exception[] error = {null};
+        long elapsedNs;
+        long flushes;
+
+        try (final BookingJournal journal = BookingJournal.open(dir, 1, config, (t, id, ref, k, seats) -> { })) {
+            for (int t = 0; t < threads; t++) {
+                final int base = t * perThread;
+                workers[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < perThread; i++) {
+                            long begin = System.nanoTime();
+                            journal.awaitDurable(journal.append(BookingJournal.BOOK, base + i, 0, "Dune|2025-01-20|21:00",
+                                    new int[]{i % 2000, (i + 1) % 2000}));
+                            latencies[base + i] = System.nanoTime() - begin;
+                        }
+                    } catch (Exception e) {
+                        error[0] = e;
+                    }
+                });
+                workers[t].start();
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Thread worker : workers) worker.join();
+            elapsedNs = System.nanoTime() - begin;
+            flushes = journal.getFlushCount();
+        }
+        if (error[0] != null) throw error[0];
+
+        Arrays.sort(latencies);
+        int records = latencies.length;
+        System.out.printf("  %s: %,9d records/s, p50 %7.3f ms, p99 %7.3f ms, %.1f records/fsync%n",
+                label, records * 1_000_000_000L / elapsedNs,
+                latencies[records / 2] / 1e6, latencies[(int) (records * 0.99)] / 1e6,
+                (double) records / flushes);
+    }
+
+    private static File createTempDir(String prefix) throws IOException {
+        final File dir = Files.createTempDirectory(prefix).toFile();
+        java.lang.Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File f : files) f.delete();
+            }
+            dir.delete();
+        }));
+        return dir;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        java.lang.Runtime rt = java.lang.Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /**
+     * Parser konten harus menghasilkan nilai yang sama dengan rantai split lama,
+     * dan jalur parse tidak boleh mengalokasikan objek per pesan.
+     */
+    private static void testContentCodec() throws Exception {
+        System.out.println("Testing Content Codec...");
+
+        String[] samples = {
+                "BOOKING:Film=Avengers: Endgame,Date=2024-01-15,Time=19:00,Seats=A1;A2,Class=VIP,Count=2",
+                "REQUEST_INFO:Film=Inception,Date=2024-01-15,Time=13:00,Class=Regular,Tickets=3",
+                "HOLD: Film = Inception , Seats=B1;B2; ,TTL=abc,Time=,Date=x=y",
+                "BOOKING:Film=A,Film=B,,Count=-7,Class= ",
+                "REQUEST_INFO:Tickets=99999999999,Class",
+                "NO_PARAMS:",
+                "garbage"
+        };
+        String[] keys = {"Film", "Date", "Time", "Seats", "Class", "Count", "Tickets", "TTL", "Missing"};
+        SeatInventory inventory = SeatInventory.createDefault();
+        for (String sample : samples) {
+            Map<String, String> expected = splitParams(sample);
+            ContentCodec codec = ContentCodec.parser().parse(sample);
+            if (codec.isValid() != sample.contains(":")) throw new Exception("Verb detection differs: " + sample);
+            for (String key : keys) {
+                String value = codec.get(key, null);
+                if (value == null ? expected.containsKey(key) : !value.equals(expected.get(key))) {
+                    throw new Exception("Codec differs from split for " + key + " in " + sample +
+                            ": " + value + " vs " + expected.get(key));
+                }
+                int expectedInt;
+                try {
+                    expectedInt = expected.containsKey(key) ? Integer.parseInt(expected.get(key)) : -1;
+                } catch (NumberFormatException e) {
+                    expectedInt = -1;
+                }
+                if (codec.getInt(key, -1) != expectedInt) throw new Exception("getInt differs for " + key + " in " + sample);
+            }
+        }
+
+        ContentCodec booking = ContentCodec.parser().parse(samples[0]);
+        if (!booking.hasVerb("BOOKING") || booking.hasVerb("BOOK") || booking.hasVerb("REQUEST_INFO")) {
+            throw new Exception("Verb matching is wrong");
+        }
+        if (!"Avengers: Endgame|2024-01-15|19:00".equals(booking.showKey())) {
+            throw new Exception("Show key is wrong: " + booking.showKey());
+        }
+        if (!Arrays.equals(booking.seatIndices("Seats", inventory), new int[]{0, 1})) {
+            throw new Exception("Seat indices are wrong");
+        }
+        if (ContentCodec.parser().parse("HOLD:Seats=B1;B2;").seatIndices("Seats", inventory).length != 2
+                || ContentCodec.parser().parse("HOLD:Seats=B1;Z9").seatIndices("Seats", inventory) != null) {
+            throw new Exception("Seat list edge cases are wrong");
+        }
+
+        StringBuilder encoded = ContentCodec.begin(new StringBuilder(), "BOOKING");
+        ContentCodec.param(encoded, "Film", "Inception");
+        ContentCodec.param(encoded, "Count", 4);
+        if (!"BOOKING:Film=Inception,Count=4".equals(encoded.toString())) {
+            throw new Exception("Encoding is wrong: " + encoded);
+        }
+        if (!"TXN_3".equals(ContentCodec.valueAfter("Booking berhasil! Transaction ID: TXN_3, Kursi: A1", "Transaction ID:", ','))) {
+            throw new Exception("Reply field extraction is wrong");
+        }
+
+        // Jalur booking tipikal: split lama vs codec (parse + field numerik + daftar kursi)
+        String message = "BOOKING:Film=Inception,Date=2024-01-15,Time=19:00,Seats=A1;A2;A3,Class=VIP,Count=3";
+        int rounds = 200000;
+        long sink = 0;
+        for (int i = 0; i < rounds; i++) {
+            sink += splitParams(message).size() + parseWithCodec(message, inventory);
+        }
+
+        long splitBytes = allocatedBytes();
+        long begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            Map<String, String> params = splitParams(message);
+            sink += Integer.parseInt(params.get("Count")) + params.get("Seats").split(";").length;
+        }
+        long splitNs = System.nanoTime() - begin;
+        splitBytes = allocatedBytes() - splitBytes;
+
+        long codecBytes = allocatedBytes();
+        begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink += parseWithCodec(message, inventory);
+        }
+        long codecNs = System.nanoTime() - begin;
+        codecBytes = allocatedBytes() - codecBytes;
+
+        long parseBytes = allocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            ContentCodec codec = ContentCodec.parser().parse(message);
+            sink += codec.getInt("Count", 0) + (codec.valueEquals("Seats", "BEST") ? 1 : 0);
+        }
+        parseBytes = allocatedBytes() - parseBytes;
+
+        if (sink == 0) throw new Exception("Benchmark was optimized away");
+        if (parseBytes >= 0 && parseBytes / rounds > 8) {
+            throw new Exception("Codec parse allocates " + parseBytes / rounds + " bytes per message");
+        }
+
+        System.out.printf("  split: %,d msg/s, %s/msg; codec: %,d msg/s, %s/msg (parse only: %s/msg)%n",
+                rounds * 1_000_000_000L / Math.max(1, splitNs), bytesPerOp(splitBytes, rounds),
+                rounds * 1_000_000_000L / Math.max(1, codecNs), bytesPerOp(codecBytes, rounds),
+                bytesPerOp(parseBytes, rounds));
+        System.out.println("✓ Content Codec test passed");
+    }
+
+    /**
+     * Request dan balasan bertipe harus kembali utuh lewat codec biner dan LEAP,
+     * lalu dibandingkan dengan protokol string untuk biaya encode/decode dan ukuran.
+     */
+    private static void testTypedContent() throws Exception {
+        System.out.println("Testing Typed Content (ontology codecs)...");
+
+        jade.content.ContentManager manager = new jade.content.ContentManager();
+        jade.content.lang.Codec[] codecs = {new BookingBinaryCodec(), new jade.content.lang.leap.LEAPCodec()};
+        for (jade.content.lang.Codec codec : codecs) {
+            manager.registerLanguage(codec);
+        }
+        manager.registerOntology(MovieBookingOntology.getInstance());
+
+        String[] requests = {
+                "BOOKING:Film=Avengers: Endgame,Date=2024-01-15,Time=19:00,Seats=BEST,Count=3,Class=VIP",
+                "REQUEST_INFO:Film=Inception,Date=2024-01-15,Time=13:00,Class=Regular,Tickets=2",
+                "ALTERNATIVE:Class=Economy,Film=Dune,Date=2024-01-16,Time=21:00",
+                "BOOKING:Film=Film ñ ü 映画,Seats=A1;A2,Count=-5"
+        };
+        for (jade.content.lang.Codec codec : codecs) {
+            for (String request : requests) {
+                ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+                msg.setLanguage(codec.getName());
+                msg.setOntology(MovieBookingOntology.ONTOLOGY_NAME);
+                manager.fillContent(msg, MovieBookingOntology.toAction(ContentCodec.parser().parse(request)));
+                String decoded = MovieBookingOntology.toContent(manager.extractAbsContent(msg));
+                if (!request.equals(decoded)) {
+                    throw new Exception(codec.getName() + " round trip changed request: " + decoded);
+                }
+            }
+
+            ACLMessage reply = new ACLMessage(ACLMessage.CONFIRM);
+            reply.setLanguage(codec.getName());
+            reply.setOntology(MovieBookingOntology.ONTOLOGY_NAME);
+            String text = "Booking berhasil! Transaction ID: TXN_42, Kursi: A1,A2, Waktu: 19:00";
+            manager.fillContent(reply, MovieBookingOntology.toResponse(ACLMessage.CONFIRM, text));
+            jade.content.abs.AbsContentElement response = manager.extractAbsContent(reply);
+            if (!text.equals(MovieBookingOntology.toContent(response))
+                    || !((jade.content.abs.AbsPredicate) response).getBoolean("success")
+                    || !"TXN_42".equals(((jade.content.abs.AbsPredicate) response).getString("transactionId"))) {
+                throw new Exception(codec.getName() + " response round trip failed");
+            }
+        }
+        if (MovieBookingOntology.toAction(ContentCodec.parser().parse("HOLD:Seats=A1")) != null) {
+            throw new Exception("HOLD has no schema and must stay a string request");
+        }
+        try {
+            new BookingBinaryCodec().decode(new byte[]{1, 1});
+            throw new Exception("Truncated binary content was accepted");
+        } catch (jade.content.lang.Codec.CodecException expected) {
+            // konten terpotong harus ditolak
+        }
+
+        // Biaya satu request + satu balasan: encode di pengirim, decode di penerima
+        String request = requests[0];
+        String replyText = "Booking berhasil! Transaction ID: TXN_1842, Kursi: E7,E8,E9, Waktu: 19:00";
+        int rounds = 20000;
+        jade.lang.acl.LEAPACLCodec envelope = new jade.lang.acl.LEAPACLCodec();
+        StringBuilder report = new StringBuilder();
+        for (int variant = 0; variant <= codecs.length; variant++) {
+            String name = variant == 0 ? "string" : codecs[variant - 1].getName();
+            long sink = 0;
+            int contentBytes = 0;
+            int envelopeBytes = 0;
+            long elapsed = 0;
+            for (int pass = 0; pass < 2; pass++) {
+                long begin = System.nanoTime();
+                for (int i = 0; i < rounds; i++) {
+                    ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+                    ACLMessage reply = new ACLMessage(ACLMessage.CONFIRM);
+                    if (variant == 0) {
+                        StringBuilder content = ContentCodec.begin(new StringBuilder(96), "BOOKING");
+                        ContentCodec.param(content, "Film", "Avengers: Endgame");
+                        ContentCodec.param(content, "Date", "2024-01-15");
+                        ContentCodec.param(content, "Time", "19:00");
+                        ContentCodec.param(content, "Seats", "BEST");
+                        ContentCodec.param(content, "Count", 3);
+                        ContentCodec.param(content, "Class", "VIP");
+                        msg.setContent(content.toString());
+                        ContentCodec decoded = ContentCodec.parser().parse(msg.getContent());
+                        sink += decoded.getInt("Count", 0) + decoded.get("Film", "").length();
+                        reply.setContent(replyText);
+                        sink += ContentCodec.valueAfter(reply.getContent(), "Transaction ID:", ',').length();
+                    } else {
+                        jade.content.abs.AbsAgentAction action = new jade.content.abs.AbsAgentAction(MovieBookingOntology.BOOKING_REQUEST);
+                        action.set("movieTitle", "Avengers: Endgame");
+                        action.set("date", "2024-01-15");
+                        action.set("selectedTime", "19:00");
+                        action.set("selectedSeats", "BEST");
+                        action.set("ticketCount", 3);
+                        action.set("seatClass", "VIP");
+                        msg.setLanguage(name);
+                        msg.setOntology(MovieBookingOntology.ONTOLOGY_NAME);
+                        manager.fillContent(msg, action);
+                        jade.content.abs.AbsAgentAction decoded = (jade.content.abs.AbsAgentAction) manager.extractAbsContent(msg);
+                        sink += decoded.getInteger("ticketCount") + decoded.getString("movieTitle").length();
+                        reply.setLanguage(name);
+                        reply.setOntology(MovieBookingOntology.ONTOLOGY_NAME);
+                        manager.fillContent(reply, MovieBookingOntology.toResponse(ACLMessage.CONFIRM, replyText));
+                        sink += ((jade.content.abs.AbsPredicate) manager.extractAbsContent(reply)).getString("transactionId").length();
+                    }
+                    if (i == 0) {
+                        contentBytes = contentSize(msg) + contentSize(reply);
+                        envelopeBytes = envelope.encode(msg, null).length + envelope.encode(reply, null).length;
+                    }
+                }
+                elapsed = System.nanoTime() - begin;
+            }
+            if (sink == 0) throw new Exception("Benchmark was optimized away");
+            report.append(String.format("  %-15s: %,7d ns per request+reply, content %3d B, ACL (LEAP envelope) %3d B%n",
+                    name, elapsed / rounds, contentBytes, envelopeBytes));
+        }
+
+        System.out.print(report);
+        System.out.println("✓ Typed Content test passed");
+    }
+
+    private static int contentSize(ACLMessage msg) throws Exception {
+        return msg.hasByteSequenceContent() ? msg.getByteSequenceContent().length
+                : msg.getContent().getBytes("UTF-8").length;
+    }
+
+    /**
+     * Batch booking: setiap item mendapat hasil sendiri, item gagal tidak membatalkan
+     * item lain, dan kursi yang sama tidak bisa terjual dua kali dalam satu batch.
+     */
+    private static void testBatchBooking() throws Exception {
+        System.out.println("Testing Batch Booking...");
+
+        EnhancedProviderAgent provider = new EnhancedProviderAgent();
+        String show = "Film=Dune,Date=2025-01-20,Time=19:00";
+        String result = provider.processBatch("BATCH_BOOKING:" +
+                show + ",Seats=A1;A2,Class=VIP,Ref=po-1|" +
+                show + ",Seats=A2;A3,Class=VIP|" +
+                show + ",Seats=BEST,Count=3,Class=Regular,Ref=po-3|" +
+                show + ",Seats=Z9|" +
+                show + ",Seats=BEST,Count=50|" +
+                "Seats=A1||" +
+                show + ",Seats=A3");
+
+        String[] items = result.split("\\|");
+        String[] expected = {
+                "BATCH_RESULT:Items=7,Booked=3",
+                "Item=1,Ref=po-1,Status=OK,Transaction=TXN_1,Seats=A1;A2",
+                "Item=2,Status=FAILED,Reason=Kursi tidak tersedia",
+                "Item=3,Ref=po-3,Status=OK,Transaction=TXN_2,Seats=B1;B2;B3",
+                "Item=4,Status=FAILED,Reason=Kursi tidak tersedia",
+                "Item=5,Status=FAILED,Reason=Count harus 1-20",
+                "Item=6,Status=FAILED,Reason=Format item tidak valid",
+                "Item=7,Status=OK,Transaction=TXN_3,Seats=A3"
+        };
+        if (!Arrays.equals(items, expected)) {
+            throw new Exception("Unexpected batch result: " + result);
+        }
+        ContentCodec outcome = ContentCodec.parser().parseParams(items[3], 0, items[3].length());
+        if (!"TXN_2".equals(outcome.get("Transaction", null))) {
+            throw new Exception("Batch item is not parseable with ContentCodec");
+        }
+
+        // Batch besar: 500 booking BEST di satu pertunjukan tetap tanpa kursi ganda
+        StringBuilder large = new StringBuilder("BATCH_BOOKING:");
+        for (int i = 0; i < 500; i++) {
+            if (i > 0) large.append('|');
+            large.append("Film=Wonka,Date=2025-01-20,Time=21:00,Seats=BEST,Count=1,Class=Economy");
+        }
+        String largeResult = provider.processBatch(large.toString());
+        int economySeats = SeatInventory.createDefault().countAvailable(SeatInventory.CLASS_ECONOMY);
+        if (!largeResult.startsWith("BATCH_RESULT:Items=500,Booked=" + economySeats + "|")) {
+            throw new Exception("Expected " + economySeats + " Economy bookings: " + largeResult.substring(0, 40));
+        }
+
+        StringBuilder tooMany = new StringBuilder("BATCH_BOOKING:");
+        for (int i = 0; i < EnhancedProviderAgent.MAX_BATCH_ITEMS; i++) tooMany.append("Film=X|");
+        try {
+            provider.processBatch(tooMany.toString());
+            throw new Exception("Oversized batch was accepted");
+        } catch (IllegalArgumentException expectedFailure) {
+            // batch di atas batas ditolak utuh
+        }
+        System.out.println("✓ Batch Booking test passed");
+    }
+
+    /**
+     * Microbatch booking di thread agent: batch ditutup saat penuh atau saat jendela habis,
+     * jendela hanya aktif setelah burst (rata-rata bergerak ukuran batch), dan journal yang
+     * gagal membatalkan seluruh batch termasuk entry ReplyCache-nya sehingga retry dieksekusi ulang.
+     */
+    private static void testMicrobatch() throws Exception {
+        System.out.println("Testing Booking Microbatch...");
+
+        final List<ACLMessage> replies = Collections.synchronizedList(new ArrayList<>());
+        final EnhancedProviderAgent provider = new EnhancedProviderAgent() {
+            @Override
+            void deliver(ACLMessage reply) {
+                replies.add(reply);
+            }
+        };
+        BookingJournal.Config config = new BookingJournal.Config();
+        config.fsync = false;
+        BookingJournal journal = BookingJournal.open(createTempDir("booking-microbatch"), 1, config, (t, id, ref, k, seats) -> { });
+        provider.setJournal(journal);
+        provider.batchMaxSize = 8;
+        provider.batchWindowMs = 300;
+        EnhancedProviderAgent.HandleRequestsBehaviour handler = provider.new HandleRequestsBehaviour();
+
+        // Ditutup karena ukuran: 20 booking yang sudah di mailbox menjadi batch 8, 8, 4
+        for (int i = 0; i < 20; i++) provider.postMessage(microbatchBooking("burst-" + i, "Burst " + i));
+        int[] sizes = new int[3];
+        for (int b = 0; b < sizes.length; b++) sizes[b] = handler.processMicrobatch(provider.receive());
+        if (!Arrays.equals(sizes, new int[]{8, 8, 4}) || replies.size() != 20 || journal.getFlushedRecords() != 20) {
+            throw new Exception("Unexpected batches " + Arrays.toString(sizes) + ", " + replies.size() + " replies, "
+                    + journal.getFlushedRecords() + " journal records");
+        }
+        for (ACLMessage reply : replies) {
+            if (reply.getPerformative() != ACLMessage.CONFIRM) throw new Exception("Batched booking failed: " + reply.getContent());
+        }
+        if (provider.getAverageBatchSize() < 2) {
+            throw new Exception("Burst should open the batch window, average " + provider.getAverageBatchSize());
+        }
+
+        // Jendela aktif: booking yang datang 50 ms kemudian masuk batch yang sama, lalu batch ditutup saat jendela habis
+        provider.postMessage(microbatchBooking("late-1", "Late"));
+        Thread poster = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            provider.postMessage(microbatchBooking("late-2", "Late"));
+        });
+        long begin = System.nanoTime();
+        poster.start();
+        int lateSize = handler.processMicrobatch(provider.receive());
+        long waitedMs = (System.nanoTime() - begin) / 1000000;
+        poster.join();
+        if (lateSize != 2 || waitedMs < 250) {
+            throw new Exception("Window should collect the late booking and close on expiry: size " + lateSize
+                    + " after " + waitedMs + " ms");
+        }
+
+        // Beban rendah: rata-rata turun di bawah 2 dan booking tunggal di-commit tanpa menunggu
+        provider.batchWindowMs = 20;
+        int singles = 0;
+        while (provider.getAverageBatchSize() >= 2 && singles < 20) {
+            provider.postMessage(microbatchBooking("single-" + singles, "Single " + singles));
+            if (handler.processMicrobatch(provider.receive()) != 1) throw new Exception("Single booking was batched");
+            singles++;
+        }
+        provider.batchWindowMs = 1000;
+        provider.postMessage(microbatchBooking("quiet", "Quiet"));
+        begin = System.nanoTime();
+        int quietSize = handler.processMicrobatch(provider.receive());
+        long quietMs = (System.nanoTime() - begin) / 1000000;
+        if (provider.getAverageBatchSize() >= 2 || quietSize != 1 || quietMs >= 500) {
+            throw new Exception("Window should close at low load: average " + provider.getAverageBatchSize()
+                    + " after " + singles + " singles, waited " + quietMs + " ms");
+        }
+
+        // Journal gagal: semua CONFIRM batch menjadi FAILURE, kursi kembali, dan retry dengan
+        // RequestId yang sama dieksekusi ulang (bukan dijawab dari cache)
+        replies.clear();
+        for (int i = 0; i < 3; i++) provider.postMessage(microbatchBooking("fail-" + i, "Fail"));
+        journal.close();
+        handler.processMicrobatch(provider.receive());
+        if (replies.size() != 3) throw new Exception("Expected 3 replies, got " + replies.size());
+        for (ACLMessage reply : replies) {
+            if (reply.getPerformative() != ACLMessage.FAILURE || !reply.getContent().contains("tidak dapat disimpan")) {
+                throw new Exception("Journal failure should fail every booking in the batch: " + reply.getContent());
+            }
+        }
+        replies.clear();
+        BookingJournal retryJournal = BookingJournal.open(createTempDir("booking-microbatch"), 1, config, (t, id, ref, k, seats) -> { });
+        provider.setJournal(retryJournal);
+        for (int i = 0; i < 3; i++) provider.postMessage(microbatchBooking("fail-" + i, "Fail"));
+        handler.processMicrobatch(provider.receive());
+        for (ACLMessage reply : replies) {
+            if (reply.getPerformative() != ACLMessage.CONFIRM) {
+                throw new Exception("Retry after journal failure should book again: " + reply.getContent());
+            }
+        }
+        if (replies.size() != 3 || retryJournal.getFlushedRecords() != 3) {
+            throw new Exception("Retries were answered from the reply cache: " + replies.size() + " replies, "
+                    + retryJournal.getFlushedRecords() + " journal records");
+        }
+        retryJournal.close();
+        System.out.println("✓ Booking Microbatch test passed");
+    }
+
+    private static ACLMessage microbatchBooking(String requestId, String film) {
+        ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+        msg.setSender(new AID("customer@test", AID.ISGUID));
+        msg.setConversationId("movie_booking_" + requestId);
+        msg.setReplyWith(requestId);
+        msg.setContent("BOOKING:Film=" + film + ",Date=2025-01-20,Time=19:00,Seats=BEST,Count=1,Class=Economy,RequestId=" + requestId);
+        return msg;
+    }
+
+    /**
+     * Worker pool: request yang di-dispatch loop agent ke beberapa worker sekaligus
+     * tidak pernah menjual kursi yang sama dua kali dan setiap request dibalas tepat sekali.
+     */
+    private static void testWorkerPool() throws Exception {
+        System.out.println("Testing Provider Worker Pool...");
+
+        final List<ACLMessage> replies = Collections.synchronizedList(new ArrayList<>());
+        EnhancedProviderAgent provider = new EnhancedProviderAgent() {
+            @Override
+            void deliver(ACLMessage reply) {
+                replies.add(reply);
+            }
+        };
+        provider.workerThreads = 4;
+        provider.startWorkers();
+        EnhancedProviderAgent.HandleRequestsBehaviour handler = provider.new HandleRequestsBehaviour();
+
+        // 4 pertunjukan x 5 kursi Economy, setiap kursi diperebutkan 10 customer
+        int shows = 4;
+        int requests = 200;
+        for (int i = 0; i < requests; i++) {
+            ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+            msg.setSender(new AID("customer" + (i % 20) + "@test", AID.ISGUID));
+            msg.setConversationId("movie_booking_w" + i);
+            msg.setReplyWith("w" + i);
+            msg.setContent("BOOKING:Film=Worker " + (i % shows) + ",Date=2025-01-20,Time=19:00,Seats=C"
+                    + (1 + (i / shows) % 5) + ",Class=Economy,RequestId=w" + i);
+            provider.postMessage(msg);
+        }
+        handler.action();
+        provider.stopWorkers();
+
+        Map<String, Integer> repliesPerRequest = new ConcurrentHashMap<>();
+        Map<String, String> soldSeats = new ConcurrentHashMap<>();
+        for (ACLMessage reply : replies) {
+            repliesPerRequest.merge(reply.getInReplyTo(), 1, Integer::sum);
+            if (reply.getPerformative() != ACLMessage.CONFIRM) continue;
+            int request = Integer.parseInt(reply.getInReplyTo().substring(1));
+            String seat = (request % shows) + "/C" + (1 + (request / shows) % 5);
+            String previous = soldSeats.put(seat, reply.getInReplyTo());
+            if (previous != null) {
+                throw new Exception("Seat " + seat + " sold twice: " + previous + " and " + reply.getInReplyTo());
+            }
+        }
+        if (repliesPerRequest.size() != requests || replies.size() != requests) {
+            throw new Exception("Expected one reply per request, got " + replies.size() + " replies for "
+                    + repliesPerRequest.size() + " requests");
+        }
+        if (soldSeats.size() != shows * 5) {
+            throw new Exception("Every contested seat should be sold exactly once, sold " + soldSeats.size());
+        }
+        System.out.println("✓ Provider Worker Pool test passed");
+    }
+
+    /**
+     * Inventaris dan versi ketersediaan terpisah per (film, tanggal, jam): kursi yang sama
+     * bisa dijual di setiap pertunjukan, dan booking di satu pertunjukan tidak mengubah yang lain.
+     */
+    private static void testShowIsolation() throws Exception {
+        System.out.println("Testing Show Isolation...");
+
+        final List<ACLMessage> replies = Collections.synchronizedList(new ArrayList<>());
+        EnhancedProviderAgent provider = new EnhancedProviderAgent() {
+            @Override
+            void deliver(ACLMessage reply) {
+                replies.add(reply);
+            }
+        };
+        EnhancedProviderAgent.HandleRequestsBehaviour handler = provider.new HandleRequestsBehaviour();
+
+        // Film, tanggal atau jam berbeda adalah pertunjukan berbeda; A1 pertunjukan pertama dipesan dua kali
+        String[][] bookings = {
+                {"Isolasi", "2025-01-20", "19:00"},
+                {"Isolasi", "2025-01-20", "21:00"},
+                {"Isolasi", "2025-01-21", "19:00"},
+                {"Isolasi Dua", "2025-01-20", "19:00"},
+                {"Isolasi", "2025-01-20", "19:00"},
+        };
+        for (int i = 0; i < bookings.length; i++) {
+            ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+            msg.setSender(new AID("customer@test", AID.ISGUID));
+            msg.setConversationId("movie_booking_iso" + i);
+            msg.setReplyWith("iso" + i);
+            msg.setContent("BOOKING:Film=" + bookings[i][0] + ",Date=" + bookings[i][1] + ",Time=" + bookings[i][2]
+                    + ",Seats=A1,Class=VIP,RequestId=iso" + i);
+            provider.postMessage(msg);
+            handler.action();
+        }
+        for (int i = 0; i < bookings.length; i++) {
+            int expected = i < 4 ? ACLMessage.CONFIRM : ACLMessage.DISCONFIRM;
+            if (replies.get(i).getPerformative() != expected) {
+                throw new Exception("Booking A1 for " + Arrays.toString(bookings[i]) + ": " + replies.get(i).getContent());
+            }
+        }
+
+        // Versi hanya naik di pertunjukan yang berubah
+        String booked = provider.generateInfoResponse("Isolasi", "2025-01-20", "19:00", "VIP", 1, null);
+        String otherTime = provider.generateInfoResponse("Isolasi", "2025-01-20", "21:00", "VIP", 1, null);
+        String untouched = provider.generateInfoResponse("Isolasi", "2025-01-22", "19:00", "VIP", 1, null);
+        if (booked.contains("A1(") || !untouched.contains("A1(")) {
+            throw new Exception("Seat A1 leaked between shows: " + booked + " / " + untouched);
+        }
+        String bookedVersion = ContentCodec.valueAfter(booked, "Versi:", ',');
+        if (!bookedVersion.equals(ContentCodec.valueAfter(otherTime, "Versi:", ','))
+                || !provider.versionToken(0).equals(ContentCodec.valueAfter(untouched, "Versi:", ','))
+                || bookedVersion.equals(provider.versionToken(0))) {
+            throw new Exception("Availability versions not per show: " + booked + " / " + otherTime + " / " + untouched);
+        }
+        System.out.println("✓ Show Isolation test passed");
+    }
+
+    /**
+     * Pemetaan pertunjukan ke shard stabil (String.hashCode ditetapkan spesifikasi Java, jadi
+     * customer dan provider di JVM mana pun sepakat), dan shard menolak pertunjukan milik shard lain.
+     */
+    private static void testShardOwnership() throws Exception {
+        System.out.println("Testing Shard Ownership...");
+
+        String dune = EnhancedProviderAgent.showKey("Dune", "2025-01-20", "19:00");
+        String avengers = EnhancedProviderAgent.showKey("Avengers: Endgame", "2025-01-20", "19:00");
+        if (EnhancedProviderAgent.shardFor(dune, 3) != 2 || EnhancedProviderAgent.shardFor(avengers, 3) != 1
+                || EnhancedProviderAgent.shardFor(dune, 1) != 0) {
+            throw new Exception("Shard mapping changed: " + EnhancedProviderAgent.shardFor(dune, 3) + ", "
+                    + EnhancedProviderAgent.shardFor(avengers, 3));
+        }
+        int[] perShard = new int[3];
+        for (int i = 0; i < 300; i++) {
+            perShard[EnhancedProviderAgent.shardFor(EnhancedProviderAgent.showKey("Film " + i, "2025-01-20", "19:00"), 3)]++;
+        }
+        for (int count : perShard) {
+            if (count < 50) throw new Exception("Uneven shard spread: " + Arrays.toString(perShard));
+        }
+
+        final List<ACLMessage> replies = Collections.synchronizedList(new ArrayList<>());
+        EnhancedProviderAgent provider = new EnhancedProviderAgent() {
+            @Override
+            void deliver(ACLMessage reply) {
+                replies.add(reply);
+            }
+        };
+        provider.setShard(2, 3);
+        EnhancedProviderAgent.HandleRequestsBehaviour handler = provider.new HandleRequestsBehaviour();
+        String[] films = {"Dune", "Avengers: Endgame"};
+        for (int i = 0; i < films.length; i++) {
+            ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+            msg.setSender(new AID("customer@test", AID.ISGUID));
+            msg.setConversationId("movie_booking_shard" + i);
+            msg.setReplyWith("shard" + i);
+            msg.setContent("BOOKING:Film=" + films[i] + ",Date=2025-01-20,Time=19:00,Seats=BEST,Count=1,Class=Economy,RequestId=shard" + i);
+            provider.postMessage(msg);
+            handler.action();
+        }
+        if (replies.size() != 2 || replies.get(0).getPerformative() != ACLMessage.CONFIRM) {
+            throw new Exception("Owned show should be booked: " + (replies.isEmpty() ? "no reply" : replies.get(0).getContent()));
+        }
+        ACLMessage refused = replies.get(1);
+        if (refused.getPerformative() != ACLMessage.FAILURE || !refused.getContent().contains("dimiliki oleh provider-1")) {
+            throw new Exception("Show of another shard should be refused: " + refused.getContent());
+        }
+        System.out.println("✓ Shard Ownership test passed");
+    }
+
+    /**
+     * Future dari {@link EnhancedCustomerAgent#book} selesai saat CONFIRM, DISCONFIRM, FAILURE
+     * setelah retry habis, dan timeout; balasan yang datang bersilangan dicocokkan lewat conversation-id.
+     */
+    private static void testBookingFutures() throws Exception {
+        System.out.println("Testing Booking Futures...");
+
+        final List<ACLMessage> requests = Collections.synchronizedList(new ArrayList<>());
+        EnhancedCustomerAgent customer = new EnhancedCustomerAgent() {
+            @Override
+            void deliver(ACLMessage msg) {
+                requests.add(msg);
+            }
+        };
+        customer.setEnabledO2ACommunication(true, 0);
+        customer.setProviderShards(new AID[]{new AID("provider@test", AID.ISGUID)});
+        customer.conversationTimeoutMs = 200;
+        EnhancedCustomerAgent.HandleO2AMessageBehaviour dispatcher = customer.new HandleO2AMessageBehaviour();
+        EnhancedCustomerAgent.HandleResponsesBehaviour responses = customer.new HandleResponsesBehaviour();
+        EnhancedCustomerAgent.TimeoutBehaviour timeouts = customer.new TimeoutBehaviour();
+
+        CompletableFuture<BookingResult> confirmed = customer.book("Future A", "2025-01-20", "19:00", "Economy", 2);
+        CompletableFuture<BookingResult> rejected = customer.book("Future B", "2025-01-20", "19:00", "Economy", 2);
+        CompletableFuture<BookingResult> failed = customer.book("Future C", "2025-01-20", "19:00", "Economy", 2);
+        CompletableFuture<BookingResult> timedOut = customer.book("Future D", "2025-01-20", "19:00", "Economy", 2);
+        for (int i = 0; i < 4; i++) dispatcher.action();
+        if (requests.size() != 4) throw new Exception("Expected 4 booking requests, got " + requests.size());
+
+        // Balasan datang terbalik; masing-masing harus menyelesaikan future percakapannya sendiri
+        customer.postMessage(futureReply(requests.get(1), ACLMessage.DISCONFIRM,
+                "Booking gagal! Kursi tidak tersedia. Tersedia: C1, Total tersedia: 1, Kelas: Economy"));
+        customer.postMessage(futureReply(requests.get(0), ACLMessage.CONFIRM,
+                "Booking berhasil! Transaction ID: TXN_7, Kursi: C2,C3, Waktu: 19:00"));
+        responses.action();
+        responses.action();
+        BookingResult confirmedResult = confirmed.getNow(null);
+        BookingResult rejectedResult = rejected.getNow(null);
+        if (confirmedResult == null || confirmedResult.getStatus() != BookingResult.CONFIRMED
+                || !"TXN_7".equals(confirmedResult.getTransactionId())) {
+            throw new Exception("CONFIRM should complete the first booking: " + confirmedResult);
+        }
+        if (rejectedResult == null || rejectedResult.getStatus() != BookingResult.REJECTED
+                || confirmedResult.getRequestId().equals(rejectedResult.getRequestId())) {
+            throw new Exception("DISCONFIRM should complete the second booking: " + rejectedResult);
+        }
+        if (failed.isDone() || timedOut.isDone()) throw new Exception("Unanswered bookings completed early");
+
+        // FAILURE dikirim ulang dengan konten (dan RequestId) yang sama sampai batas retry
+        String failedContent = requests.get(2).getContent();
+        ACLMessage attempt = requests.get(2);
+        for (int failures = 0; failures < 4; failures++) {
+            if (failed.isDone()) throw new Exception("Booking failed before retries ran out, after " + failures);
+            customer.postMessage(futureReply(attempt, ACLMessage.FAILURE, "Error: Booking tidak dapat disimpan: disk"));
+            responses.action();
+            attempt = requests.get(requests.size() - 1);
+            if (!failedContent.equals(attempt.getContent())) throw new Exception("Retry changed the request: " + attempt.getContent());
+        }
+        BookingResult failedResult = failed.getNow(null);
+        if (failedResult == null || failedResult.getStatus() != BookingResult.FAILED || requests.size() != 7) {
+            throw new Exception("FAILURE should complete the booking after 3 retries: " + failedResult
+                    + ", " + requests.size() + " requests");
+        }
+
+        // Tanpa balasan: future selesai dengan TIMEOUT setelah deadline
+        Thread.sleep(250);
+        timeouts.onTick();
+        BookingResult timeoutResult = timedOut.getNow(null);
+        if (timeoutResult == null || timeoutResult.getStatus() != BookingResult.TIMEOUT) {
+            throw new Exception("Unanswered booking should time out: " + timeoutResult);
+        }
+
+        // Balasan terlambat untuk percakapan yang sudah selesai diabaikan
+        customer.postMessage(futureReply(requests.get(3), ACLMessage.CONFIRM, "Booking berhasil! Transaction ID: TXN_8"));
+        responses.action();
+        if (timedOut.get().getStatus() != BookingResult.TIMEOUT) throw new Exception("Late reply changed the result");
+
+        // Banyak percakapan berjalan bersamaan dengan balasan acak: setiap future mendapat
+        // transaksi untuk RequestId-nya sendiri
+        requests.clear();
+        List<CompletableFuture<BookingResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) futures.add(customer.book("Interleaved " + (i % 3), "2025-01-20", "19:00", "Economy", 1));
+        for (int i = 0; i < 10; i++) dispatcher.action();
+        List<ACLMessage> shuffled = new ArrayList<>(requests);
+        Collections.shuffle(shuffled, new Random(11));
+        for (ACLMessage request : shuffled) {
+            String requestId = ContentCodec.parser().parse(request.getContent()).get("RequestId", "");
+            customer.postMessage(futureReply(request, ACLMessage.CONFIRM,
+                    "Booking berhasil! Transaction ID: TXN_" + requestId + ", Kursi: C1"));
+        }
+        for (int i = 0; i < shuffled.size(); i++) responses.action();
+        for (CompletableFuture<BookingResult> future : futures) {
+            BookingResult result = future.getNow(null);
+            if (result == null || !("TXN_" + result.getRequestId()).equals(result.getTransactionId())) {
+                throw new Exception("Interleaved reply completed the wrong booking: " + result);
+            }
+        }
+
+        // Kursi pilihan pengguna dikirim sebagai Seats, bukan diganti blok BEST
+        requests.clear();
+        customer.book("Chosen", "2025-01-20", "19:00", "VIP", new String[]{"A1", "A2"});
+        dispatcher.action();
+        ContentCodec chosen = ContentCodec.parser().parse(requests.get(0).getContent());
+        if (!"A1;A2".equals(chosen.get("Seats", "")) || chosen.has("Count")) {
+            throw new Exception("Chosen seats not sent: " + requests.get(0).getContent());
+        }
+        System.out.println("✓ Booking Futures test passed");
+    }
+
+    private static ACLMessage futureReply(ACLMessage request, int performative, String content) {
+        ACLMessage reply = new ACLMessage(performative);
+        reply.setSender(new AID("provider@test", AID.ISGUID));
+        reply.setConversationId(request.getConversationId());
+        reply.setInReplyTo(request.getReplyWith());
+        reply.setContent(content);
+        return reply;
+    }
+
+    /**
+     * Persentil histogram load test: nilai kecil persis, nilai besar dalam galat relatif
+     * bucket (~1,6%), dan penggabungan histogram per driver menjumlahkan semua sampel.
+     */
+    private static void testLatencyHistogram() throws Exception {
+        System.out.println("Testing Latency Histogram...");
+
+        LatencyHistogram empty = new LatencyHistogram();
+        if (empty.percentile(99) != 0 || empty.getCount() != 0) {
+            throw new Exception("Empty histogram should report zero");
+        }
+
+        LatencyHistogram small = new LatencyHistogram();
+        for (int v = 1; v <= 50; v++) small.record(v);
+        if (small.percentile(50) != 25 || small.percentile(100) != 50) {
+            throw new Exception("Small values should be exact: p50=" + small.percentile(50));
+        }
+
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (int v = 1; v <= 100000; v++) {
+            (v % 2 == 0 ? first : second).record(v);
+        }
+        first.add(second);
+        double[][] expected = {{50, 50000}, {90, 90000}, {99, 99000}, {99.9, 99900}};
+        for (double[] point : expected) {
+            long actual = first.percentile(point[0]);
+            if (actual < point[1] || actual > point[1] * 1.02) {
+                throw new Exception("p" + point[0] + " = " + actual + ", expected about " + (long) point[1]);
+            }
+        }
+        if (first.getCount() != 100000 || first.getMax() != 100000 || first.percentile(100) != 100000
+                || Math.abs(first.getMean() - 50000.5) > 0.001) {
+            throw new Exception("Merged histogram lost samples: " + first.getCount());
+        }
+
+        // Setiap nilai jatuh di bucket yang batas atasnya tidak lebih kecil dari nilai itu
+        for (long v = 1; v < (1L << 40); v = v * 3 + 1) {
+            long upper = LatencyHistogram.highestEquivalent(LatencyHistogram.bucketOf(v));
+            if (upper < v || upper > v + v / 64) {
+                throw new Exception("Bucket bound " + upper + " does not cover " + v);
+            }
+        }
+        System.out.println("✓ Latency Histogram test passed");
+    }
+
+    /**
+     * Booking yang ditolak membawa ketersediaan kelasnya, sehingga customer tidak perlu pre-check atau ALTERNATIVE.
+     */
+    private static void testConflictAvailability() throws Exception {
+        System.out.println("Testing Conflict Availability...");
+
+        SeatInventory inventory = SeatInventory.createDefault();
+        if (!inventory.book(new int[]{inventory.indexOf("B1"), inventory.indexOf("B3")})) {
+            throw new Exception("Setup booking failed");
+        }
+        String content = EnhancedProviderAgent.conflictContent(EnhancedProviderAgent.BOOKING_CONFLICT,
+                inventory.view(), SeatInventory.CLASS_REGULAR, "v");
+        if (!content.endsWith(" Tersedia: B2;B4, Total tersedia: 2, Kelas: Regular, Versi: v")) {
+            throw new Exception("Unexpected conflict content: " + content);
+        }
+        BookingResult rejected = new BookingResult(BookingResult.REJECTED, "r-1", content, null);
+        if (!Arrays.equals(rejected.getAvailableSeats(), new String[]{"B2", "B4"})) {
+            throw new Exception("Available seats not parsed: " + Arrays.toString(rejected.getAvailableSeats()));
+        }
+
+        // Daftar dibatasi, tetapi total tetap jumlah sebenarnya
+        StringBuilder limited = new StringBuilder();
+        if (inventory.view().appendAvailableSeatIds(limited, SeatInventory.CLASS_ECONOMY, 2) != 5 || !"C1;C2".equals(limited.toString())) {
+            throw new Exception("Unexpected limited list: " + limited);
+        }
+
+        // Kelas habis: daftar kosong, dan kelas tak dikenal tidak menambahkan ketersediaan
+        inventory.book(new int[]{inventory.indexOf("B2"), inventory.indexOf("B4")});
+        BookingResult soldOut = new BookingResult(BookingResult.REJECTED, "r-2",
+                EnhancedProviderAgent.conflictContent(EnhancedProviderAgent.BOOKING_CONFLICT,
+                        inventory.view(), SeatInventory.CLASS_REGULAR, "v"), null);
+        if (soldOut.getAvailableSeats().length != 0 || !soldOut.getMessage().contains("Total tersedia: 0")) {
+            throw new Exception("Sold-out class should list no seats: " + soldOut.getMessage());
+        }
+        if (EnhancedProviderAgent.conflictContent(EnhancedProviderAgent.BOOKING_CONFLICT, inventory.view(), -1, "v")
+                .contains("Tersedia:")) {
+            throw new Exception("Unknown class should not list availability");
+        }
+        System.out.println("✓ Conflict Availability test passed");
+    }
+
+    /**
+     * Versi ketersediaan naik pada setiap perubahan kursi (tidak pada operasi tanpa efek),
+     * dan request info dengan versi yang masih terkini dijawab tanpa daftar kursi.
+     */
+    private static void testAvailabilityVersion() throws Exception {
+        System.out.println("Testing Availability Version...");
+
+        SeatInventory inventory = SeatInventory.createDefault();
+        int[] b1 = {inventory.indexOf("B1")};
+        long start = inventory.getVersion();
+        if (!inventory.book(b1) || inventory.getVersion() <= start) {
+            throw new Exception("Booking should advance the version");
+        }
+        long booked = inventory.getVersion();
+        if (inventory.book(b1) || inventory.getVersion() != booked) {
+            throw new Exception("Refused booking should not change the version");
+        }
+        inventory.release(b1);
+        long released = inventory.getVersion();
+        inventory.release(b1);
+        if (released <= booked || inventory.getVersion() != released) {
+            throw new Exception("Only an effective release should advance the version");
+        }
+        inventory.markSold(b1);
+        if (inventory.getVersion() <= released) {
+            throw new Exception("Sale should advance the version");
+        }
+
+        EnhancedProviderAgent provider = new EnhancedProviderAgent();
+        String full = provider.generateInfoResponse("Dune", "2025-01-20", "19:00", "VIP", 1, null);
+        String token = ContentCodec.valueAfter(full, "Versi:", ',');
+        if (!full.contains("A1(") || token.isEmpty()) {
+            throw new Exception("Info response should list seats and carry a version: " + full);
+        }
+        String unchanged = provider.generateInfoResponse("Dune", "2025-01-20", "19:00", "VIP", 1, token);
+        if (!unchanged.contains("tidak berubah") || unchanged.contains("A1(")) {
+            throw new Exception("Current version should skip the seat list: " + unchanged);
+        }
+        String stale = provider.generateInfoResponse("Dune", "2025-01-20", "19:00", "VIP", 1,
+                provider.versionToken(-1));
+        if (!stale.contains("A1(")) {
+            throw new Exception("Stale version should get the full list: " + stale);
+        }
+
+        BookingResult rejected = new BookingResult(BookingResult.REJECTED, "r-1",
+                EnhancedProviderAgent.conflictContent(EnhancedProviderAgent.VERSION_CONFLICT,
+                        inventory.view(), SeatInventory.CLASS_REGULAR, token), null);
+        if (!token.equals(rejected.getVersion()) || rejected.getAvailableSeats().length != 3) {
+            throw new Exception("Version not parsed from rejection: " + rejected.getMessage());
+        }
+        if (new BookingResult(BookingResult.TIMEOUT, "r-2", "timeout", null).getVersion() != null) {
+            throw new Exception("Only rejections carry a version");
+        }
+        System.out.println("✓ Availability Version test passed");
+    }
+
+    /**
+     * View ketersediaan: immutable, dipakai ulang selama versi tetap, dan tidak pernah
+     * memperlihatkan booking multi-word setengah jadi walaupun dibaca bersamaan dengan booking.
+     */
+    private static void testSeatViews() throws Exception {
+        System.out.println("Testing Consistent Seat Views...");
+
+        SeatInventory inventory = SeatInventory.createDefault();
+        SeatView before = inventory.view();
+        if (inventory.view() != before) {
+            throw new Exception("Unchanged inventory should reuse its view");
+        }
+        inventory.book(new int[]{inventory.indexOf("A1"), inventory.indexOf("A2")});
+        SeatView after = inventory.view();
+        if (!before.isAvailable(inventory.indexOf("A1")) || before.countAvailable(SeatInventory.CLASS_VIP) != 3) {
+            throw new Exception("View changed after a booking");
+        }
+        if (after.getVersion() != inventory.getVersion() || after.countAvailable(SeatInventory.CLASS_VIP) != 1
+                || after.countAvailable() != 10) {
+            throw new Exception("New view does not match the inventory");
+        }
+        StringBuilder listing = new StringBuilder();
+        after.appendAvailable(listing, SeatInventory.CLASS_VIP);
+        if (!"A3(150000)".equals(listing.toString()) || !after.hasBlock(SeatInventory.CLASS_ECONOMY, 5)
+                || after.hasBlock(SeatInventory.CLASS_VIP, 2)) {
+            throw new Exception("Unexpected view queries: " + listing);
+        }
+
+        // Run per baris diturunkan dari view sebelumnya; harus sama dengan hitung ulang penuh
+        int[] rowLengths = new int[24];
+        int[] rowClasses = new int[24];
+        for (int r = 0; r < rowLengths.length; r++) {
+            rowLengths[r] = 37 + r % 11 * 9;
+            rowClasses[r] = r % 3;
+        }
+        SeatInventory mixed = new SeatInventory(rowLengths, rowClasses, new int[]{150000, 100000, 75000});
+        Random random = new Random(5);
+        for (int op = 0; op < 3000; op++) {
+            int seat = random.nextInt(mixed.getSeatCount() - 3);
+            int[] seats = random.nextInt(3) == 0 ? new int[]{seat, seat + 1, seat + 2} : new int[]{seat};
+            if (!mixed.book(seats) || random.nextInt(4) == 0) mixed.release(seats);
+            if (op % 10 != 0) continue;
+            SeatView view = mixed.view();
+            for (int c = 0; c < SeatInventory.CLASS_NAMES.length; c++) {
+                int longest = 0;
+                for (int row = 0; row < mixed.getRowCount(); row++) {
+                    int start = mixed.getRowStart(row);
+                    if (mixed.getClassOrdinal(start) != c) continue;
+                    for (int s = start, run = 0; s < start + mixed.getRowLength(row); s++) {
+                        run = view.isAvailable(s) ? run + 1 : 0;
+                        longest = Math.max(longest, run);
+                    }
+                }
+                if (view.hasBlock(c, longest) != longest > 0 || view.hasBlock(c, longest + 1)) {
+                    throw new Exception("Incremental row runs diverged for " + SeatInventory.CLASS_NAMES[c]
+                            + " after " + op + " operations: longest " + longest);
+                }
+            }
+        }
+
+        // Dua kursi di word berbeda (63 dan 64) selalu dibooking dan dilepas bersama
+        final SeatInventory hall = new SeatInventory(new int[]{100, 100},
+                new int[]{SeatInventory.CLASS_REGULAR, SeatInventory.CLASS_REGULAR}, new int[]{100000, 100000, 75000});
+        final int[] pair = {63, 64};
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong writes = new AtomicLong();
+        Thread[] writers = new Thread[2];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> {
+                long local = 0;
+                while (running.get()) {
+                    if (hall.book(pair)) {
+                        hall.release(pair);
+                        local++;
+                    }
+                }
+                writes.addAndGet(local);
+            });
+            writers[t].start();
+        }
+
+        long views = 0;
+        String torn = null;
+        long deadline = System.currentTimeMillis() + 300;
+        while (System.currentTimeMillis() < deadline && torn == null) {
+            SeatView view = hall.view();
+            boolean first = view.isAvailable(pair[0]);
+            int expected = first ? 200 : 198;
+            if (first != view.isAvailable(pair[1]) || view.countAvailable(SeatInventory.CLASS_REGULAR) != expected) {
+                torn = "version " + view.getVersion() + ": " + first + "/" + view.isAvailable(pair[1])
+                        + ", count " + view.countAvailable(SeatInventory.CLASS_REGULAR);
+            }
+            views++;
+        }
+        running.set(false);
+        for (Thread writer : writers) writer.join();
+
+        if (torn != null) {
+            throw new Exception("View saw a partial booking at " + torn);
+        }
+        if (views == 0 || writes.get() == 0) {
+            throw new Exception("Stress run made no progress: " + views + " views, " + writes.get() + " bookings");
+        }
+        System.out.printf("  %,d consistent views alongside %,d pair bookings%n", views, writes.get());
+        System.out.println("✓ Consistent Seat Views test passed");
+    }
+
+    /**
+     * Reply cache: duplikat mendapat balasan yang sama, entry pending tidak dijawab,
+     * abandon membuka key untuk retry, dan eviksi menjaga batas umur serta kapasitas.
+     */
+    private static void testReplyCache() throws Exception {
+        System.out.println("Testing Reply Cache...");
+
+        ReplyCache cache = new ReplyCache(3, 1000);
+        if (cache.begin("customer/r1", 0) != null) {
+            throw new Exception("First request must not be a cache hit");
+        }
+        ReplyCache.Entry pending = cache.begin("customer/r1", 10);
+        if (pending == null || !pending.isPending()) {
+            throw new Exception("Duplicate of in-flight request must see a pending entry");
+        }
+        cache.complete("customer/r1", ACLMessage.CONFIRM, "Booking berhasil! Transaction ID: TXN_1");
+        ReplyCache.Entry hit = cache.begin("customer/r1", 20);
+        if (hit.isPending() || hit.getPerformative() != ACLMessage.CONFIRM
+                || !hit.getContent().endsWith("TXN_1") || cache.getHits() != 2) {
+            throw new Exception("Completed reply was not served from cache");
+        }
+
+        // Kegagalan sementara: key dilepas agar retry dieksekusi ulang
+        cache.begin("customer/r2", 30);
+        cache.abandon("customer/r2");
+        if (cache.begin("customer/r2", 40) != null) {
+            throw new Exception("Abandoned key should be processed again");
+        }
+        // abandon tidak menghapus balasan yang sudah final
+        cache.abandon("customer/r1");
+        if (cache.begin("customer/r1", 50) == null) {
+            throw new Exception("Abandon must not drop a completed reply");
+        }
+
+        // Kapasitas 3: key keempat mengeluarkan entry selesai tertua (r1)
+        cache.begin("customer/r3", 60);
+        cache.begin("customer/r4", 70);
+        if (cache.size() != 3 || cache.begin("customer/r1", 80) != null) {
+            throw new Exception("Oldest entry should be evicted at capacity, size=" + cache.size());
+        }
+        // TTL 1000 ms: semua entry lama yang sudah selesai kedaluwarsa
+        for (String key : new String[]{"customer/r1", "customer/r2", "customer/r3", "customer/r4"}) {
+            cache.complete(key, ACLMessage.CONFIRM, "ok");
+        }
+        if (cache.begin("customer/r3", 2000) != null || cache.size() != 1) {
+            throw new Exception("Expired entries should be evicted, size=" + cache.size());
+        }
+
+        // Key sama dari customer berbeda tidak saling bertabrakan
+        if (cache.begin("other/r3", 2010) != null) {
+            throw new Exception("Keys must be scoped per sender");
+        }
+
+        // Melewati kapasitas saat satu request masih berjalan: hanya entry selesai yang dibuang,
+        // jadi retry request yang lambat tetap melihat pending dan tidak dieksekusi dua kali
+        ReplyCache small = new ReplyCache(2, 1000);
+        small.begin("customer/slow", 0);
+        for (int i = 0; i < 5; i++) {
+            small.begin("customer/fast" + i, 10 + i);
+            small.complete("customer/fast" + i, ACLMessage.CONFIRM, "TXN_" + i);
+        }
+        if (small.size() != 2) {
+            throw new Exception("Completed entries should be evicted around the pending one, size=" + small.size());
+        }
+        ReplyCache.Entry slow = small.begin("customer/slow", 20);
+        if (slow == null || !slow.isPending()) {
+            throw new Exception("Pending entry must survive eviction");
+        }
+        // Entry pending yang kedaluwarsa juga tetap ada sampai complete/abandon
+        if (small.begin("customer/slow", 5000) == null) {
+            throw new Exception("Expired pending entry must not be evicted");
+        }
+        System.out.println("✓ Reply Cache test passed");
+    }
+
+    /**
+     * Delta ketersediaan: replika yang mulai dari snapshot lalu menerapkan delta berversi
+     * selalu sama dengan inventaris provider; delta yang terlewat terdeteksi sebagai gap.
+     */
+    private static void testSeatDeltas() throws Exception {
+        System.out.println("Testing Seat Availability Deltas...");
+
+        SeatInventory inventory = SeatInventory.createDefault();
+        String show = EnhancedProviderAgent.showKey("Dune", "2025-01-20", "19:00");
+        StringBuilder words = new StringBuilder();
+        if (inventory.drainDelta(words) != -1 || words.length() != 0) {
+            throw new Exception("Unchanged inventory should not produce a delta");
+        }
+
+        inventory.book(new int[]{0, 1});
+        long v1 = inventory.drainDelta(words);
+        String delta1 = EnhancedProviderAgent.seatDeltaContent(show, v1, false, words);
+
+        // Delta yang datang sebelum snapshot ditahan, lalu dilewati karena sudah tercakup snapshot
+        SeatReplica replica = new SeatReplica(show);
+        if (replica.apply(ContentCodec.parser().parse(delta1)) != SeatReplica.STALE || replica.isSynced()) {
+            throw new Exception("Delta before snapshot must be buffered");
+        }
+        words.setLength(0);
+        String snapshot = EnhancedProviderAgent.seatDeltaContent(show, inventory.appendSnapshot(words), true, words);
+
+        inventory.bookBestBlock(SeatInventory.CLASS_ECONOMY, 3);
+        words.setLength(0);
+        String delta2 = EnhancedProviderAgent.seatDeltaContent(show, inventory.drainDelta(words), false, words);
+
+        if (replica.apply(ContentCodec.parser().parse(snapshot)) != SeatReplica.APPLIED
+                || replica.apply(ContentCodec.parser().parse(delta2)) != SeatReplica.APPLIED
+                || replica.getVersion() != 2) {
+            throw new Exception("Snapshot + delta should bring replica to version 2, got " + replica.getVersion());
+        }
+        assertReplicaMatches(replica, inventory);
+        if (replica.apply(ContentCodec.parser().parse(delta2)) != SeatReplica.STALE) {
+            throw new Exception("Re-delivered delta should be ignored");
+        }
+
+        // Delta versi 3 hilang: versi 4 harus memicu snapshot ulang
+        inventory.release(new int[]{0});
+        words.setLength(0);
+        inventory.drainDelta(words);
+        inventory.release(new int[]{1});
+        words.setLength(0);
+        String delta4 = EnhancedProviderAgent.seatDeltaContent(show, inventory.drainDelta(words), false, words);
+        if (replica.apply(ContentCodec.parser().parse(delta4)) != SeatReplica.GAP || replica.isSynced()) {
+            throw new Exception("Missing delta was not detected");
+        }
+        words.setLength(0);
+        replica.apply(ContentCodec.parser().parse(
+                EnhancedProviderAgent.seatDeltaContent(show, inventory.appendSnapshot(words), true, words)));
+        assertReplicaMatches(replica, inventory);
+
+        // Listener (GUI) yang dipasang belakangan menerima state saat ini, lalu hanya word yang berubah
+        final long[] view = new long[1];
+        final int[] callbacks = {0};
+        replica.setListener((key, wordIndex, bits) -> {
+            view[wordIndex] = bits;
+            callbacks[0]++;
+        });
+        inventory.book(new int[]{2});
+        words.setLength(0);
+        replica.apply(ContentCodec.parser().parse(
+                EnhancedProviderAgent.seatDeltaContent(show, inventory.drainDelta(words), false, words)));
+        if (callbacks[0] != 2 || view[0] != inventory.availableRange(0, inventory.getSeatCount())) {
+            throw new Exception("Listener view out of sync after " + callbacks[0] + " callbacks");
+        }
+
+        // Versi adalah long dari ujung ke ujung: pertunjukan yang berjalan lama melewati jangkauan int
+        SeatReplica longLived = new SeatReplica(show);
+        long bigVersion = Integer.MAX_VALUE + 5L;
+        longLived.apply(ContentCodec.parser().parse(
+                EnhancedProviderAgent.seatDeltaContent(show, bigVersion, true, "0:" + Long.toHexString(view[0]))));
+        if (longLived.apply(ContentCodec.parser().parse(EnhancedProviderAgent.seatDeltaContent(show, bigVersion + 1,
+                false, "0:0"))) != SeatReplica.APPLIED || longLived.getVersion() != bigVersion + 1) {
+            throw new Exception("Delta past int range not applied, replica at version " + longLived.getVersion());
+        }
+
+        System.out.println("  delta message: " + delta2.length() + " B (" + delta2 + ")");
+        System.out.println("✓ Seat Availability Deltas test passed");
+    }
+
+    /**
+     * Seat map: hanya kursi di clip yang digambar, dan update word hanya menyentuh kursi yang berubah.
+     */
+    private static void testSeatMapPanel() throws Exception {
+        System.out.println("Testing Seat Map Panel...");
+
+        // Studio IMAX 2.000 kursi: 40 baris x 50 kursi
+        int[] rowLengths = new int[40];
+        int[] rowClasses = new int[40];
+        for (int r = 0; r < 40; r++) {
+            rowLengths[r] = 50;
+            rowClasses[r] = r < 8 ? SeatInventory.CLASS_VIP : r < 28 ? SeatInventory.CLASS_REGULAR : SeatInventory.CLASS_ECONOMY;
+        }
+        SeatInventory hall = new SeatInventory(rowLengths, rowClasses, new int[]{150000, 100000, 75000});
+        long[] words = new long[(hall.getSeatCount() + 63) >>> 6];
+        for (int seat = 0; seat < hall.getSeatCount(); seat++) {
+            if (seat != 5) words[seat >>> 6] |= 1L << seat;
+        }
+
+        SeatMapPanel map = new SeatMapPanel(hall);
+        map.setWords(words);
+        java.awt.Dimension size = map.getPreferredSize();
+        map.setSize(size);
+        java.awt.image.BufferedImage image =
+                new java.awt.image.BufferedImage(size.width, size.height, java.awt.image.BufferedImage.TYPE_INT_RGB);
+        java.awt.Graphics2D g = image.createGraphics();
+
+        java.awt.Rectangle viewport = new java.awt.Rectangle(0, 0, 640, 12 * SeatMapPanel.CELL);
+        int visibleRows = (viewport.height - SeatMapPanel.MARGIN) / SeatMapPanel.CELL + 1;
+        int visibleColumns = (viewport.width - SeatMapPanel.LABEL_WIDTH) / SeatMapPanel.CELL + 1;
+        g.setClip(viewport);
+        map.paint(g);
+        if (map.lastPaintedSeats != visibleRows * visibleColumns) {
+            throw new Exception("Viewport paint drew " + map.lastPaintedSeats + " seats, expected " + visibleRows * visibleColumns);
+        }
+        java.awt.Rectangle a1 = map.seatBounds(0);
+        java.awt.Rectangle a6 = map.seatBounds(5);
+        if (image.getRGB(a1.x + 1, a1.y + 1) != SeatMapPanel.AVAILABLE.getRGB()
+                || image.getRGB(a6.x + 1, a6.y + 1) != SeatMapPanel.TAKEN.getRGB()) {
+            throw new Exception("Seat colors do not match availability");
+        }
+
+        final int paints = 2000;
+        long start = System.nanoTime();
+        for (int i = 0; i < paints; i++) map.paint(g);
+        long viewportNs = (System.nanoTime() - start) / paints;
+        g.setClip(0, 0, size.width, size.height);
+        start = System.nanoTime();
+        for (int i = 0; i < paints; i++) map.paint(g);
+        long fullNs = (System.nanoTime() - start) / paints;
+        if (map.lastPaintedSeats != hall.getSeatCount()) {
+            throw new Exception("Full paint drew " + map.lastPaintedSeats + " seats");
+        }
+        g.dispose();
+
+        // Satu kursi berubah di word 0: hanya sel itu yang di-repaint; nilai sama tidak me-repaint apa pun
+        if (map.updateWord(0, words[0] & ~1L) != 1 || map.updateWord(0, words[0] & ~1L) != 0) {
+            throw new Exception("updateWord should repaint exactly the changed seats");
+        }
+        if (map.countAvailable(SeatInventory.CLASS_VIP) != 8 * 50 - 2) {
+            throw new Exception("Unexpected VIP count " + map.countAvailable(SeatInventory.CLASS_VIP));
+        }
+        System.out.printf("  %d-seat hall: viewport paint %,d ns (%d seats), full paint %,d ns (%d seats)%n",
+                hall.getSeatCount(), viewportNs, visibleRows * visibleColumns, fullNs, hall.getSeatCount());
+        System.out.println("✓ Seat Map Panel test passed");
+    }
+
+    private static void assertReplicaMatches(SeatReplica replica, SeatInventory inventory) throws Exception {
+        for (int c = 0; c < SeatInventory.CLASS_NAMES.length; c++) {
+            if (replica.countAvailable(c) != inventory.countAvailable(c)) {
+                throw new Exception("Replica count mismatch for " + SeatInventory.CLASS_NAMES[c]);
+            }
+        }
+        for (int seat = 0; seat < inventory.getSeatCount(); seat++) {
+            if (replica.isAvailable(seat) != inventory.isAvailable(seat)) {
+                throw new Exception("Replica mismatch at seat " + inventory.seatId(seat));
+            }
+        }
+    }
+
+    private static int parseWithCodec(String message, SeatInventory inventory) {
+        ContentCodec codec = ContentCodec.parser().parse(message);
+        int[] seats = codec.seatIndices("Seats", inventory);
+        return codec.getInt("Count", 0) + (seats != null ? seats.length : 0);
+    }
+
+    // Rantai split lama dari EnhancedProviderAgent, dipakai sebagai pembanding
+    private static Map<String, String> splitParams(String content) {
+        Map<String, String> params = new java.util.HashMap<>();
+        String[] parts = content.split(":", 2);
+        if (parts.length < 2) return params;
+        for (String param : parts[1].split(",")) {
+            String[] keyValue = param.split("=");
+            if (keyValue.length == 2) {
+                params.put(keyValue[0].trim(), keyValue[1].trim());
+            }
+        }
+        return params;
+    }
+
+    // Byte yang dialokasikan thread ini, atau -1 jika JVM tidak mendukungnya
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = java.lang.management.ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) return -1;
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static String bytesPerOp(long bytes, int rounds) {
+        return bytes < 0 ? "n/a" : (bytes / rounds) + " B";
+    }
+
+    // Salinan layout SeatInfo lama, hanya dipakai sebagai pembanding memori
+    private static class LegacySeatInfo {
+        boolean available;
+        int price;
+        String seatClass;
+        long lastChecked;
+        final ReentrantLock lock = new ReentrantLock();
+
+        LegacySeatInfo(boolean available, int price, String seatClass) {
+            this.available = available;
+            this.price = price;
+            this.seatClass = seatClass;
+            this.lastChecked = System.currentTimeMillis();
+        }
+    }
+
     /**
      * Test utility untuk memverifikasi ontologi
      */